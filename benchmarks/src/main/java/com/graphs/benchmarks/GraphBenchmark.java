@@ -0,0 +1,97 @@
+package com.graphs.benchmarks;
+
+import com.graphs.graph.CsrGraph;
+import com.graphs.graph.Graph;
+import com.graphs.graph.ShortestPath;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query and build costs of {@link Graph} on synthetic road like networks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GraphBenchmark {
+    @Param({"GRID", "GEOMETRIC", "SCALE_FREE"})
+    public RoadLikeGraphs shape;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private RoadLikeGraphs.Edges edges;
+    private Graph<Integer> graph;
+    private CsrGraph<Integer> frozen;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        edges = shape.generate(size, 42);
+        graph = edges.toGraph();
+        frozen = graph.freeze();
+        random = new Random(7);
+    }
+
+    @Benchmark
+    public Graph<Integer> addEdge() {
+        Graph<Integer> empty = new Graph<>();
+        edges.addEdges(empty);
+        return empty;
+    }
+
+    @Benchmark
+    public Graph<Integer> bulkLoad() {
+        return edges.bulkLoad(false);
+    }
+
+    @Benchmark
+    public Graph<Integer> bulkLoadParallel() {
+        return edges.bulkLoad(true);
+    }
+
+    @Benchmark
+    public ShortestPath<Integer> shortestPathEarlyExit() {
+        return graph.shortestPath(random.nextInt(size), random.nextInt(size), false);
+    }
+
+    @Benchmark
+    public ShortestPath<Integer> shortestPathFullSearch() {
+        int source = random.nextInt(size);
+        return graph.shortestPath(source, source, true);
+    }
+
+    @Benchmark
+    public ShortestPath<Integer> frozenFullSearch() {
+        int source = random.nextInt(size);
+        return frozen.shortestPath(source, source, true);
+    }
+
+    @Benchmark
+    public ShortestPath<Integer> frozenFullSearchDeltaStepping() {
+        int source = random.nextInt(size);
+        return frozen.shortestPath(source, source, ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> breadthFirstTraversal() {
+        return graph.breadthFirstTraversal(random.nextInt(size));
+    }
+
+    @Benchmark
+    public boolean isConnected() {
+        return graph.isConnected();
+    }
+
+    @Benchmark
+    public List<Integer> nodesWithinRangeOf() {
+        return graph.nodesWithinRangeOf(random.nextInt(size), 200);
+    }
+}
@@ -0,0 +1,230 @@
+package com.graphs.benchmarks;
+
+import com.graphs.graph.Graph;
+import com.graphs.graph.GraphBuilder;
+import com.graphs.road.Road;
+import com.graphs.road.Town;
+import com.graphs.road.TownRoadNetwork;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generators of synthetic road like networks. Nodes are the ints {@code 0 .. size - 1}.
+ */
+public enum RoadLikeGraphs {
+    /**
+     * Square grid with roads to the right and lower neighbour.
+     */
+    GRID {
+        @Override
+        Edges generate(int size, Random random) {
+            int side = (int) Math.ceil(Math.sqrt(size));
+            Edges edges = new Edges(size, 2 * size);
+
+            for (int node = 0; node < size; node++) {
+                if ((node + 1) % side != 0 && node + 1 < size) {
+                    edges.add(node, node + 1, 1 + random.nextInt(100));
+                }
+
+                if (node + side < size) {
+                    edges.add(node, node + side, 1 + random.nextInt(100));
+                }
+            }
+
+            return edges;
+        }
+    },
+    /**
+     * Towns scattered uniformly over a square, connected to every town closer than a fixed radius.
+     * Road lengths are proportional to the straight line distance, the average degree is about 7.
+     */
+    GEOMETRIC {
+        private static final double RADIUS = 1.5;
+
+        @Override
+        Edges generate(int size, Random random) {
+            double side = Math.sqrt(size);
+            int cellsPerSide = Math.max(1, (int) (side / RADIUS));
+            double[] x = new double[size];
+            double[] y = new double[size];
+            int[] cellOf = new int[size];
+            int[] cellStart = new int[cellsPerSide * cellsPerSide + 1];
+
+            for (int node = 0; node < size; node++) {
+                x[node] = random.nextDouble() * side;
+                y[node] = random.nextDouble() * side;
+                cellOf[node] = cell(x[node], side, cellsPerSide) * cellsPerSide + cell(y[node], side, cellsPerSide);
+                cellStart[cellOf[node] + 1]++;
+            }
+
+            for (int cell = 0; cell < cellsPerSide * cellsPerSide; cell++) {
+                cellStart[cell + 1] += cellStart[cell];
+            }
+
+            int[] byCell = new int[size];
+            int[] fill = Arrays.copyOf(cellStart, cellStart.length);
+
+            for (int node = 0; node < size; node++) {
+                byCell[fill[cellOf[node]]++] = node;
+            }
+
+            Edges edges = new Edges(size, 4 * size);
+
+            for (int node = 0; node < size; node++) {
+                int cellX = cellOf[node] / cellsPerSide;
+                int cellY = cellOf[node] % cellsPerSide;
+
+                for (int dx = -1; dx <= 1; dx++) {
+                    for (int dy = -1; dy <= 1; dy++) {
+                        int otherX = cellX + dx;
+                        int otherY = cellY + dy;
+
+                        if (otherX < 0 || otherY < 0 || otherX >= cellsPerSide || otherY >= cellsPerSide) {
+                            continue;
+                        }
+
+                        int other = otherX * cellsPerSide + otherY;
+
+                        for (int i = cellStart[other]; i < cellStart[other + 1]; i++) {
+                            int neighbour = byCell[i];
+                            double distance = Math.hypot(x[node] - x[neighbour], y[node] - y[neighbour]);
+
+                            if (neighbour > node && distance <= RADIUS) {
+                                edges.add(node, neighbour, 1 + (int) (distance * 10));
+                            }
+                        }
+                    }
+                }
+            }
+
+            return edges;
+        }
+
+        private int cell(double coordinate, double side, int cellsPerSide) {
+            return Math.min(cellsPerSide - 1, (int) (coordinate / side * cellsPerSide));
+        }
+    },
+    /**
+     * Barabasi-Albert preferential attachment, every new town connects to two existing towns.
+     */
+    SCALE_FREE {
+        private static final int LINKS = 2;
+
+        @Override
+        Edges generate(int size, Random random) {
+            Edges edges = new Edges(size, LINKS * size);
+            int[] endpoints = new int[2 * LINKS * size];
+            int endpointCount = 0;
+
+            for (int node = 1; node < size; node++) {
+                for (int link = 0; link < Math.min(LINKS, node); link++) {
+                    int target = endpointCount == 0 ? 0 : endpoints[random.nextInt(endpointCount)];
+
+                    if (target != node) {
+                        edges.add(node, target, 1 + random.nextInt(100));
+                        endpoints[endpointCount++] = node;
+                        endpoints[endpointCount++] = target;
+                    }
+                }
+            }
+
+            return edges;
+        }
+    };
+
+    abstract Edges generate(int size, Random random);
+
+    public Edges generate(int size, long seed) {
+        return generate(size, new Random(seed));
+    }
+
+    /**
+     * Edge list of a generated network.
+     */
+    public static class Edges {
+        private final int size;
+        private int[] from;
+        private int[] to;
+        private int[] weights;
+        private int count;
+
+        Edges(int size, int expectedEdges) {
+            this.size = size;
+            this.from = new int[expectedEdges];
+            this.to = new int[expectedEdges];
+            this.weights = new int[expectedEdges];
+        }
+
+        void add(int a, int b, int weight) {
+            if (count == from.length) {
+                from = Arrays.copyOf(from, count * 2);
+                to = Arrays.copyOf(to, count * 2);
+                weights = Arrays.copyOf(weights, count * 2);
+            }
+
+            from[count] = a;
+            to[count] = b;
+            weights[count] = weight;
+            count++;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public Graph<Integer> toGraph() {
+            Graph<Integer> graph = new Graph<>();
+
+            for (int node = 0; node < size; node++) {
+                graph.addNode(node);
+            }
+
+            for (int i = 0; i < count; i++) {
+                graph.addEdge(from[i], to[i], weights[i]);
+            }
+
+            return graph;
+        }
+
+        public void addEdges(Graph<Integer> graph) {
+            for (int i = 0; i < count; i++) {
+                graph.addEdge(from[i], to[i], weights[i]);
+            }
+        }
+
+        public Graph<Integer> bulkLoad(boolean parallel) {
+            GraphBuilder<Integer> builder = new GraphBuilder<>(size, count);
+
+            for (int node = 0; node < size; node++) {
+                builder.addNode(node);
+            }
+
+            for (int i = 0; i < count; i++) {
+                builder.addEdge(from[i], to[i], weights[i]);
+            }
+
+            return builder.build(parallel);
+        }
+
+        public TownRoadNetwork toTownRoadNetwork(Random random) {
+            TownRoadNetwork network = new TownRoadNetwork();
+            Town[] towns = new Town[size];
+
+            for (int node = 0; node < size; node++) {
+                towns[node] = new Town("Town " + node, 1000 + random.nextInt(1_000_000));
+                network.addTown(towns[node]);
+            }
+
+            for (int i = 0; i < count; i++) {
+                network.addConnection(new Road(towns[from[i]], towns[to[i]], weights[i]));
+            }
+
+            return network;
+        }
+    }
+}
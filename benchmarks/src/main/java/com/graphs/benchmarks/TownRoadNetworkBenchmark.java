@@ -0,0 +1,36 @@
+package com.graphs.benchmarks;
+
+import com.graphs.road.TownRoadNetwork;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costs of {@link TownRoadNetwork} queries on synthetic road like networks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TownRoadNetworkBenchmark {
+    @Param({"GRID", "GEOMETRIC", "SCALE_FREE"})
+    public RoadLikeGraphs shape;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private TownRoadNetwork network;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        network = shape.generate(size, 42).toTownRoadNetwork(new Random(7));
+    }
+
+    @Benchmark
+    public int getAvgPopulation() {
+        return network.getAvgPopulation();
+    }
+}
@@ -0,0 +1,89 @@
+package com.graphs.graph;
+
+import java.util.*;
+
+import static java.util.Collections.emptyMap;
+
+/**
+ * A* search over an unidirected adjacency. Nodes are expanded by their distance from the source
+ * plus the heuristic estimate to the destination. A node is expanded again whenever a shorter
+ * distance to it is found, so the result is exact for any heuristic which never overestimates,
+ * even when its estimates are not consistent between neighbours.
+ */
+final class AStarSearch {
+    private AStarSearch() {
+    }
+
+    /**
+     * Searches the shortest route from source to dest.
+     * @param predecessors filled with the predecessor of each reached node
+     * @param stats counts the steps of the search, or null
+     * @return distance from the source of each reached node; does not contain dest when it is unreachable
+     */
+    static <N> Map<N, Integer> search(Map<N, Map<N, Integer>> adjacency, N source, N dest,
+                                      Heuristic<N> heuristic, Map<N, N> predecessors, QueryStats<N> stats) {
+        final Map<N, Integer> distance = new HashMap<>();
+        final PriorityQueue<Candidate<N>> queue = new PriorityQueue<>();
+        int settledNodes = 0;
+        int relaxedEdges = 0;
+        int heapOperations = 1;
+
+        distance.put(source, 0);
+        queue.add(new Candidate<>(source, 0, heuristic.estimate(source, dest)));
+
+        while (!queue.isEmpty()) {
+            Candidate<N> next = queue.poll();
+            N current = next.node;
+
+            heapOperations++;
+
+            // The heap keeps outdated entries instead of decreasing keys, skip them
+            if(next.distance > distance.get(current)) {
+                continue;
+            }
+
+            settledNodes++;
+
+            if(current.equals(dest)) {
+                break;
+            }
+
+            for (Map.Entry<N, Integer> edge : adjacency.getOrDefault(current, emptyMap()).entrySet()) {
+                N child = edge.getKey();
+                int alternate = next.distance + edge.getValue();
+                relaxedEdges++;
+                Integer known = distance.get(child);
+
+                if(known == null || alternate < known) {
+                    distance.put(child, alternate);
+                    predecessors.put(child, current);
+                    queue.add(new Candidate<>(child, alternate, (long) alternate + heuristic.estimate(child, dest)));
+                    heapOperations++;
+                }
+            }
+        }
+
+        if(stats != null) {
+            stats.addSteps(settledNodes, relaxedEdges, heapOperations);
+        }
+
+        return distance;
+    }
+
+    private static final class Candidate<N> implements Comparable<Candidate<N>> {
+        private final N node;
+        private final int distance;
+        private final long estimatedTotal;
+
+        private Candidate(N node, int distance, long estimatedTotal) {
+            this.node = node;
+            this.distance = distance;
+            this.estimatedTotal = estimatedTotal;
+        }
+
+        @Override
+        public int compareTo(Candidate<N> other) {
+            return Long.compare(estimatedTotal, other.estimatedTotal);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.graphs.graph;
+
+import java.util.*;
+
+import static java.util.Collections.emptyMap;
+
+/**
+ * Bidirectional Dijkstra over an unidirected adjacency. A forward search from the source and a
+ * backward search from the destination are expanded alternately, always on the side with the
+ * closer frontier, and stop once the two frontiers together are at least as long as the best
+ * route found through an edge joining both searches.
+ * @param <N> the generic type of nodes.
+ */
+class BidirectionalDijkstra<N> {
+    private final Map<N, Map<N, Integer>> adjacency;
+    private final Side forward;
+    private final Side backward;
+    private int best = Integer.MAX_VALUE;
+    /**
+     * Edge on the best route joining the forward and backward searches.
+     */
+    private N meetForward;
+    private N meetBackward;
+    private int settledNodes;
+    private int relaxedEdges;
+    private int heapOperations;
+
+    private BidirectionalDijkstra(Map<N, Map<N, Integer>> adjacency, N source, N dest, Map<N, N> predecessors) {
+        this.adjacency = adjacency;
+        this.forward = new Side(source, predecessors);
+        this.backward = new Side(dest, new HashMap<>());
+    }
+
+    /**
+     * Searches the shortest route from source to dest.
+     * @param predecessors filled with the predecessor of each node on the route, and of other nodes
+     *                     reached by the forward search
+     * @param stats counts the steps of both searches, or null
+     * @return distance from the source of each node reached by the forward search and of each node
+     *         on the route; does not contain dest when it is unreachable
+     */
+    static <N> Map<N, Integer> search(Map<N, Map<N, Integer>> adjacency, N source, N dest, Map<N, N> predecessors,
+                                      QueryStats<N> stats) {
+        if(source.equals(dest)) {
+            Map<N, Integer> distance = new HashMap<>();
+            distance.put(source, 0);
+            return distance;
+        }
+
+        BidirectionalDijkstra<N> search = new BidirectionalDijkstra<>(adjacency, source, dest, predecessors);
+        search.run();
+
+        if(stats != null) {
+            stats.addSteps(search.settledNodes, search.relaxedEdges, search.heapOperations);
+        }
+
+        return search.joinRoute();
+    }
+
+    private void run() {
+        while (forward.hasNext() && backward.hasNext()) {
+            int forwardTop = forward.peekDistance();
+            int backwardTop = backward.peekDistance();
+
+            if((long) forwardTop + backwardTop >= best) {
+                return;
+            }
+
+            if(forwardTop <= backwardTop) {
+                expand(forward, backward, true);
+            } else {
+                expand(backward, forward, false);
+            }
+        }
+    }
+
+    private void expand(Side side, Side other, boolean isForward) {
+        N current = side.queue.poll().getKey();
+        int currentDistance = side.distance.get(current);
+
+        side.settled.add(current);
+        heapOperations++;
+        settledNodes++;
+
+        adjacency.getOrDefault(current, emptyMap()).forEach((child, weight) -> {
+            int alternate = currentDistance + weight;
+            relaxedEdges++;
+
+            if(!side.settled.contains(child)) {
+                Integer known = side.distance.get(child);
+
+                if(known == null || alternate < known) {
+                    side.distance.put(child, alternate);
+                    side.predecessors.put(child, current);
+                    side.queue.add(Map.entry(child, alternate));
+                    heapOperations++;
+                }
+            }
+
+            Integer remaining = other.distance.get(child);
+
+            if(remaining != null && alternate + remaining < best) {
+                best = alternate + remaining;
+                meetForward = isForward ? current : child;
+                meetBackward = isForward ? child : current;
+            }
+        });
+    }
+
+    /**
+     * Links the backward half of the best route into the forward search results.
+     */
+    private Map<N, Integer> joinRoute() {
+        if(best == Integer.MAX_VALUE) {
+            return forward.distance;
+        }
+
+        N previous = meetForward;
+
+        for(N node = meetBackward; node != null; node = backward.predecessors.get(node)) {
+            forward.predecessors.put(node, previous);
+            forward.distance.put(node, best - backward.distance.get(node));
+            previous = node;
+        }
+
+        return forward.distance;
+    }
+
+    private class Side {
+        private final Map<N, Integer> distance = new HashMap<>();
+        private final Map<N, N> predecessors;
+        private final Set<N> settled = new HashSet<>();
+        private final PriorityQueue<Map.Entry<N, Integer>> queue = new PriorityQueue<>(Map.Entry.comparingByValue());
+
+        private Side(N start, Map<N, N> predecessors) {
+            this.predecessors = predecessors;
+            distance.put(start, 0);
+            queue.add(Map.entry(start, 0));
+            heapOperations++;
+        }
+
+        /**
+         * Drops outdated heap entries of settled nodes.
+         * @return whether there is a node left to settle
+         */
+        private boolean hasNext() {
+            while (!queue.isEmpty() && settled.contains(queue.peek().getKey())) {
+                queue.poll();
+                heapOperations++;
+            }
+
+            return !queue.isEmpty();
+        }
+
+        private int peekDistance() {
+            return queue.peek().getValue();
+        }
+    }
+}
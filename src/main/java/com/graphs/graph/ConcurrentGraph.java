@@ -0,0 +1,140 @@
+package com.graphs.graph;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Thread safe {@link Graph} for serving queries in parallel while edges are being added.
+ * The adjacency is held in concurrent maps, so queries never lock and each query keeps its
+ * own working state. Updates lock the stripes of both end nodes, so the two directions of an
+ * edge are always written together with respect to other updates. A query running while an edge
+ * is added may or may not see the new edge. While shortest path trees are tracked, updates run one at a time,
+ * so that each tree repairs itself from an adjacency no other update changes, in the order of the updates.
+ * Bulk loads and clearing always run alone, so edges they merge stay symmetric and trees are recomputed
+ * from a complete adjacency.
+ * @param <N> the generic type of nodes.
+ */
+public class ConcurrentGraph<N> extends Graph<N> {
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final Object[] stripes;
+    /**
+     * Read by updates while no trees are tracked and written by updates while some are, as well as when
+     * tracking starts and by bulk loads and clearing.
+     */
+    private final ReadWriteLock trackingLock = new ReentrantReadWriteLock();
+
+    public ConcurrentGraph() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param concurrencyLevel number of lock stripes guarding updates
+     */
+    public ConcurrentGraph(int concurrencyLevel) {
+        super(new ConcurrentHashMap<>(), ConcurrentHashMap::new);
+
+        if(concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("Concurrency level must be positive.");
+        }
+
+        stripes = new Object[concurrencyLevel];
+
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    @Override
+    public void addEdge(N from, N to, int weight) {
+        locked(from, to, () -> {
+            super.addEdge(from, to, weight);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean removeEdge(N from, N to) {
+        return locked(from, to, () -> super.removeEdge(from, to));
+    }
+
+    @Override
+    public void updateWeight(N from, N to, int weight) {
+        locked(from, to, () -> {
+            super.updateWeight(from, to, weight);
+            return null;
+        });
+    }
+
+    @Override
+    public ShortestPathTree<N> trackShortestPaths(N source) {
+        return exclusive(() -> super.trackShortestPaths(source));
+    }
+
+    @Override
+    List<N> addAll(List<N> nodeList, int[] offsets, int[] targets, int[] weights, boolean parallel) {
+        return exclusive(() -> super.addAll(nodeList, offsets, targets, weights, parallel));
+    }
+
+    @Override
+    public void clear() {
+        exclusive(() -> {
+            super.clear();
+            return null;
+        });
+    }
+
+    /**
+     * Runs the update while no other update runs.
+     */
+    private <T> T exclusive(Supplier<T> update) {
+        trackingLock.writeLock().lock();
+
+        try {
+            return update.get();
+        } finally {
+            trackingLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Runs the update of the edge between both nodes while holding the stripes of both, and alone while
+     * trees are tracked.
+     */
+    private <T> T locked(N from, N to, Supplier<T> update) {
+        if(from == null || to == null) {
+            throw new IllegalArgumentException("No null nodes allowed.");
+        }
+
+        int first = stripeOf(from);
+        int second = stripeOf(to);
+        Lock tracking = trackingLock.readLock();
+        tracking.lock();
+
+        if(isTracking()) {
+            tracking.unlock();
+            tracking = trackingLock.writeLock();
+            tracking.lock();
+        }
+
+        try {
+            // Always lock the lower stripe first to avoid deadlocks between opposite updates
+            synchronized (stripes[Math.min(first, second)]) {
+                synchronized (stripes[Math.max(first, second)]) {
+                    return update.get();
+                }
+            }
+        } finally {
+            tracking.unlock();
+        }
+    }
+
+    private int stripeOf(N node) {
+        int hash = node.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), stripes.length);
+    }
+}
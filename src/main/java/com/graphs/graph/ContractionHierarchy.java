@@ -0,0 +1,582 @@
+package com.graphs.graph;
+
+import java.nio.IntBuffer;
+import java.util.*;
+
+/**
+ * Contraction hierarchy over an immutable {@link CsrGraph}, answering shortest path queries by
+ * searching only a small part of the graph.
+ * <p>
+ * Preprocessing contracts nodes one by one, least important first, and adds a shortcut edge
+ * between two neighbours of a contracted node whenever the only shortest path between them leads
+ * through that node. A query then runs a Dijkstra search from each end which only follows edges
+ * towards more important nodes, and the two searches meet at the most important node of the route.
+ * Shortcuts on the route are unpacked recursively into the original edges.
+ * <p>
+ * Instances are thread safe and only the attached metrics can change. Queries borrow their search working
+ * state from a pool owned by the hierarchy.
+ * @param <N> the generic type of nodes.
+ */
+public class ContractionHierarchy<N> {
+    private static final int NO_MIDDLE = -1;
+    /**
+     * Limits of nodes settled by a single witness search, when estimating the priority of a node and
+     * when contracting it. Reaching a limit only means a shortcut which may not be needed is counted or added.
+     */
+    private static final int SIMULATED_WITNESS_SETTLE_LIMIT = 50;
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+
+    private final CsrGraph<N> graph;
+    /**
+     * Edges from each node to more important nodes, in compressed sparse row layout. For shortcuts
+     * {@code upwardMiddles} holds the contracted node the shortcut bypasses.
+     */
+    private final IntBuffer upwardOffsets;
+    private final IntBuffer upwardTargets;
+    private final IntBuffer upwardWeights;
+    private final int[] upwardMiddles;
+    private final int shortcutCount;
+    private final long buildTimeNanos;
+    private final ScratchPool<DijkstraSearch[]> searches;
+    private volatile GraphMetrics<N> metrics;
+
+    private ContractionHierarchy(CsrGraph<N> graph, int[] upwardOffsets, int[] upwardTargets, int[] upwardWeights,
+                                 int[] upwardMiddles, int shortcutCount, long buildTimeNanos) {
+        this.graph = graph;
+        this.upwardOffsets = IntBuffer.wrap(upwardOffsets);
+        this.upwardTargets = IntBuffer.wrap(upwardTargets);
+        this.upwardWeights = IntBuffer.wrap(upwardWeights);
+        this.upwardMiddles = upwardMiddles;
+        this.shortcutCount = shortcutCount;
+        this.buildTimeNanos = buildTimeNanos;
+        this.searches = new ScratchPool<>(() -> new DijkstraSearch[] {
+                new DijkstraSearch(graph.getSize()), new DijkstraSearch(graph.getSize())});
+    }
+
+    /**
+     * Contracts all nodes of the graph.
+     * @param graph snapshot of the graph
+     * @return hierarchy answering queries over the snapshot
+     */
+    public static <N> ContractionHierarchy<N> build(CsrGraph<N> graph) {
+        long start = System.nanoTime();
+        Builder builder = new Builder(graph.getSize(), graph.offsets(), graph.targets(), graph.weights());
+
+        builder.contractAll();
+
+        return builder.toHierarchy(graph, System.nanoTime() - start);
+    }
+
+    /**
+     * Finds the lowest cost path from source to destination. The lowest costs of the result only hold
+     * the nodes on the route.
+     *
+     * @param source node
+     * @param dest node
+     * @return shortest distance through graph from source to destination
+     *         considering weighted edges
+     */
+    public ShortestPath<N> shortestPath(N source, N dest) {
+        int sourceId = graph.idOf(source);
+        int destId = graph.idOf(dest);
+        QueryStats<N> stats = startQuery(source, dest);
+        DijkstraSearch[] state = searches.borrow();
+        int meeting;
+        int[] ids;
+
+        try {
+            meeting = search(state[0], state[1], sourceId, destId);
+            ids = meeting == DijkstraSearch.NO_NODE ? null : unpackRoute(state[0], state[1], sourceId, destId, meeting);
+        } finally {
+            finishQuery(stats, state);
+        }
+
+        ShortestPath<N> shortestPath = new ShortestPath<>();
+        Map<N, Integer> lowestCosts = new LinkedHashMap<>();
+
+        if(meeting == DijkstraSearch.NO_NODE) {
+            shortestPath.setCost(Integer.MAX_VALUE);
+            shortestPath.setLowestCosts(lowestCosts);
+            return shortestPath;
+        }
+
+        List<N> route = new ArrayList<>();
+        int cost = 0;
+
+        for (int i = 0; i < ids.length; i++) {
+            if(i > 0) {
+                cost += edgeWeight(ids[i - 1], ids[i]);
+            }
+
+            route.add(graph.nodeOf(ids[i]));
+            lowestCosts.put(graph.nodeOf(ids[i]), cost);
+        }
+
+        shortestPath.setCost(cost);
+        shortestPath.setLowestCosts(lowestCosts);
+        shortestPath.setNodes(route);
+
+        return shortestPath;
+    }
+
+    /**
+     * @return cost of the shortest path, or {@link Integer#MAX_VALUE} if dest is unreachable
+     */
+    public int distance(N source, N dest) {
+        int sourceId = graph.idOf(source);
+        int destId = graph.idOf(dest);
+        QueryStats<N> stats = startQuery(source, dest);
+        DijkstraSearch[] state = searches.borrow();
+
+        try {
+            int meeting = search(state[0], state[1], sourceId, destId);
+
+            return meeting == DijkstraSearch.NO_NODE
+                    ? Integer.MAX_VALUE
+                    : state[0].distance[meeting] + state[1].distance[meeting];
+        } finally {
+            finishQuery(stats, state);
+        }
+    }
+
+    /**
+     * Reports each query as a bidirectional shortest path search, with the steps of both upward searches.
+     * @param metrics the metrics, or null to stop reporting
+     */
+    public void setMetrics(GraphMetrics<N> metrics) {
+        this.metrics = metrics;
+    }
+
+    public long getBuildTimeMillis() {
+        return buildTimeNanos / 1_000_000;
+    }
+
+    /**
+     * @return approximate number of bytes held by the hierarchy on top of the graph snapshot
+     */
+    public long getMemoryFootprintBytes() {
+        return 4L * (upwardOffsets.limit() + upwardTargets.limit() + upwardWeights.limit() + upwardMiddles.length);
+    }
+
+    public int getShortcutCount() {
+        return shortcutCount;
+    }
+
+    /**
+     * @return the stats of the query, started when metrics are attached; otherwise null
+     */
+    private QueryStats<N> startQuery(N source, N dest) {
+        if(metrics == null) {
+            return null;
+        }
+
+        QueryStats<N> stats = new QueryStats<>(QueryType.SHORTEST_PATH, SearchStrategy.BIDIRECTIONAL, source, dest);
+        stats.start();
+        return stats;
+    }
+
+    /**
+     * Hands the searches back to the pool and reports the query with the steps they counted.
+     * @param stats stats of the query, or null when it is not measured
+     */
+    private void finishQuery(QueryStats<N> stats, DijkstraSearch[] state) {
+        if(stats != null) {
+            stats.stop();
+
+            for (DijkstraSearch search : state) {
+                stats.addSteps(search.settledCount, search.relaxedCount, search.heapOperations);
+            }
+
+            GraphMetrics<N> currentMetrics = metrics;
+
+            if(currentMetrics != null) {
+                currentMetrics.onQuery(stats);
+            }
+        }
+
+        searches.release(state);
+    }
+
+    /**
+     * Runs the upward searches from both ends.
+     * @return node minimizing the sum of both search distances, or {@link DijkstraSearch#NO_NODE}
+     */
+    private int search(DijkstraSearch forward, DijkstraSearch backward, int source, int dest) {
+        forward.run(upwardOffsets, upwardTargets, upwardWeights, source, DijkstraSearch.NO_NODE, Integer.MAX_VALUE);
+        backward.run(upwardOffsets, upwardTargets, upwardWeights, dest, DijkstraSearch.NO_NODE, Integer.MAX_VALUE);
+
+        int meeting = DijkstraSearch.NO_NODE;
+        long best = Long.MAX_VALUE;
+
+        for (int i = 0; i < forward.reachedCount; i++) {
+            int node = forward.reached[i];
+            int remaining = backward.distance[node];
+
+            if(remaining != Integer.MAX_VALUE && (long) forward.distance[node] + remaining < best) {
+                best = (long) forward.distance[node] + remaining;
+                meeting = node;
+            }
+        }
+
+        return meeting;
+    }
+
+    private int[] unpackRoute(DijkstraSearch forward, DijkstraSearch backward, int source, int dest, int meeting) {
+        Deque<Integer> upward = new ArrayDeque<>();
+
+        for (int node = meeting; node != source; node = forward.predecessors[node]) {
+            upward.addFirst(node);
+        }
+
+        upward.addFirst(source);
+
+        for (int node = meeting; node != dest; ) {
+            node = backward.predecessors[node];
+            upward.addLast(node);
+        }
+
+        int[] hierarchyRoute = upward.stream().mapToInt(Integer::intValue).toArray();
+        List<Integer> route = new ArrayList<>();
+        route.add(source);
+
+        for (int i = 1; i < hierarchyRoute.length; i++) {
+            unpackEdge(hierarchyRoute[i - 1], hierarchyRoute[i], route);
+        }
+
+        return route.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Appends the original nodes after {@code from} up to and including {@code to}.
+     */
+    private void unpackEdge(int from, int to, List<Integer> route) {
+        Deque<int[]> pending = new ArrayDeque<>();
+        pending.push(new int[] {from, to});
+
+        while (!pending.isEmpty()) {
+            int[] edge = pending.pop();
+            int middle = upwardMiddles[upwardEdge(edge[0], edge[1])];
+
+            if(middle == NO_MIDDLE) {
+                route.add(edge[1]);
+            } else {
+                pending.push(new int[] {middle, edge[1]});
+                pending.push(new int[] {edge[0], middle});
+            }
+        }
+    }
+
+    private int edgeWeight(int from, int to) {
+        return upwardWeights.get(upwardEdge(from, to));
+    }
+
+    /**
+     * Every edge is stored once, at its less important end.
+     */
+    private int upwardEdge(int a, int b) {
+        for (int edge = upwardOffsets.get(a); edge < upwardOffsets.get(a + 1); edge++) {
+            if(upwardTargets.get(edge) == b) {
+                return edge;
+            }
+        }
+
+        for (int edge = upwardOffsets.get(b); edge < upwardOffsets.get(b + 1); edge++) {
+            if(upwardTargets.get(edge) == a) {
+                return edge;
+            }
+        }
+
+        throw new IllegalStateException("No edge between " + a + " and " + b + " in the hierarchy.");
+    }
+
+    /**
+     * Mutable graph on which nodes are contracted. Arcs towards a contracted node are removed from
+     * its neighbours, while the contracted node keeps its own arcs, which lead to more important nodes.
+     */
+    private static final class Builder {
+        private static final int INITIAL_DEGREE = 4;
+
+        private final int size;
+        private final int[][] neighbours;
+        private final int[][] weights;
+        private final int[][] middles;
+        private final int[] degrees;
+        private final int[] contractedNeighbours;
+        private final int[] ranks;
+        private int shortcutCount;
+
+        /**
+         * Working state of witness searches, valid for nodes whose mark equals the generation.
+         */
+        private final int[] witnessDistance;
+        private final int[] witnessMarks;
+        private final IntMinHeap witnessHeap;
+        private int generation;
+
+        private Builder(int size, IntBuffer offsets, IntBuffer targets, IntBuffer edgeWeights) {
+            this.size = size;
+            neighbours = new int[size][];
+            weights = new int[size][];
+            middles = new int[size][];
+            degrees = new int[size];
+            contractedNeighbours = new int[size];
+            ranks = new int[size];
+            witnessDistance = new int[size];
+            witnessMarks = new int[size];
+            witnessHeap = new IntMinHeap(size);
+
+            for (int node = 0; node < size; node++) {
+                int degree = Math.max(INITIAL_DEGREE, offsets.get(node + 1) - offsets.get(node));
+                neighbours[node] = new int[degree];
+                weights[node] = new int[degree];
+                middles[node] = new int[degree];
+            }
+
+            for (int node = 0; node < size; node++) {
+                for (int edge = offsets.get(node); edge < offsets.get(node + 1); edge++) {
+                    addArc(node, targets.get(edge), edgeWeights.get(edge), NO_MIDDLE);
+                }
+            }
+        }
+
+        private void contractAll() {
+            IntMinHeap order = new IntMinHeap(size);
+
+            for (int node = 0; node < size; node++) {
+                order.insertOrDecrease(node, priority(node));
+            }
+
+            int rank = 0;
+
+            while (!order.isEmpty()) {
+                int node = order.poll();
+                int updated = priority(node);
+
+                // Priorities only change lazily, contract the node once it is still the least important
+                if(!order.isEmpty() && updated > order.peekKey()) {
+                    order.insertOrDecrease(node, updated);
+                    continue;
+                }
+
+                contract(node, false);
+                ranks[node] = rank++;
+
+                for (int i = 0; i < degrees[node]; i++) {
+                    int neighbour = neighbours[node][i];
+
+                    removeArc(neighbour, node);
+                    contractedNeighbours[neighbour]++;
+                    order.update(neighbour, priority(neighbour));
+                }
+            }
+        }
+
+        /**
+         * Edge difference of contracting the node, plus the number of contracted neighbours so that
+         * contraction spreads evenly over the graph.
+         */
+        private int priority(int node) {
+            return contract(node, true) - degrees[node] + contractedNeighbours[node];
+        }
+
+        /**
+         * Finds the shortcuts needed to contract the node.
+         * @param simulate only count the shortcuts without adding them
+         * @return number of shortcuts
+         */
+        private int contract(int node, boolean simulate) {
+            int shortcuts = 0;
+
+            for (int i = 0; i < degrees[node]; i++) {
+                int from = neighbours[node][i];
+                int targetCount = 0;
+                int maxDistance = 0;
+
+                // Each pair is handled from its lower id, the edges are unidirected
+                for (int j = 0; j < degrees[node]; j++) {
+                    if(neighbours[node][j] > from) {
+                        targetCount++;
+                        maxDistance = Math.max(maxDistance, weights[node][i] + weights[node][j]);
+                    }
+                }
+
+                if(targetCount == 0) {
+                    continue;
+                }
+
+                witnessSearch(from, node, maxDistance, targetCount,
+                        simulate ? SIMULATED_WITNESS_SETTLE_LIMIT : WITNESS_SETTLE_LIMIT);
+
+                for (int j = 0; j < degrees[node]; j++) {
+                    int to = neighbours[node][j];
+
+                    if(to <= from) {
+                        continue;
+                    }
+
+                    int viaNode = weights[node][i] + weights[node][j];
+
+                    if(witnessDistance(to) > viaNode) {
+                        shortcuts++;
+
+                        if(!simulate) {
+                            if(addArc(from, to, viaNode, node)) {
+                                shortcutCount++;
+                            }
+
+                            addArc(to, from, viaNode, node);
+                        }
+                    }
+                }
+            }
+
+            return shortcuts;
+        }
+
+        /**
+         * Dijkstra's algorithm from the start node over nodes not contracted yet, avoiding the
+         * excluded node. Stops once the neighbours of the excluded node with a higher id than the
+         * start are settled, or when bounded by distance or by the number of settled nodes.
+         */
+        private void witnessSearch(int start, int excluded, int maxDistance, int targetCount, int settleLimit) {
+            if(++generation == Integer.MAX_VALUE) {
+                Arrays.fill(witnessMarks, 0);
+                generation = 1;
+            }
+
+            witnessHeap.clear();
+            witnessMarks[start] = generation;
+            witnessDistance[start] = 0;
+            witnessHeap.insertOrDecrease(start, 0);
+
+            int settled = 0;
+
+            while (!witnessHeap.isEmpty() && settled++ < settleLimit && targetCount > 0) {
+                int current = witnessHeap.poll();
+                int currentDistance = witnessDistance[current];
+
+                if(currentDistance > maxDistance) {
+                    break;
+                }
+
+                if(current > start && isArcBetween(current, excluded)) {
+                    targetCount--;
+                }
+
+                for (int i = 0; i < degrees[current]; i++) {
+                    int child = neighbours[current][i];
+
+                    if(child == excluded) {
+                        continue;
+                    }
+
+                    int alternate = currentDistance + weights[current][i];
+
+                    if(witnessMarks[child] != generation || alternate < witnessDistance[child]) {
+                        witnessMarks[child] = generation;
+                        witnessDistance[child] = alternate;
+                        witnessHeap.insertOrDecrease(child, alternate);
+                    }
+                }
+            }
+        }
+
+        private int witnessDistance(int node) {
+            return witnessMarks[node] == generation ? witnessDistance[node] : Integer.MAX_VALUE;
+        }
+
+        private boolean isArcBetween(int from, int to) {
+            for (int i = 0; i < degrees[from]; i++) {
+                if(neighbours[from][i] == to) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        /**
+         * Adds the arc, or lowers the weight of an existing arc between the same nodes.
+         * @return whether a new arc was added
+         */
+        private boolean addArc(int from, int to, int weight, int middle) {
+            for (int i = 0; i < degrees[from]; i++) {
+                if(neighbours[from][i] == to) {
+                    if(weight < weights[from][i]) {
+                        weights[from][i] = weight;
+                        middles[from][i] = middle;
+                    }
+
+                    return false;
+                }
+            }
+
+            int degree = degrees[from];
+
+            if(degree == neighbours[from].length) {
+                neighbours[from] = Arrays.copyOf(neighbours[from], degree * 2);
+                weights[from] = Arrays.copyOf(weights[from], degree * 2);
+                middles[from] = Arrays.copyOf(middles[from], degree * 2);
+            }
+
+            neighbours[from][degree] = to;
+            weights[from][degree] = weight;
+            middles[from][degree] = middle;
+            degrees[from]++;
+
+            return true;
+        }
+
+        /**
+         * Removes the arc, keeping the remaining arcs of the node packed at the start of its arrays.
+         */
+        private void removeArc(int from, int to) {
+            int last = --degrees[from];
+
+            for (int i = 0; i <= last; i++) {
+                if(neighbours[from][i] == to) {
+                    neighbours[from][i] = neighbours[from][last];
+                    weights[from][i] = weights[from][last];
+                    middles[from][i] = middles[from][last];
+                    return;
+                }
+            }
+
+            degrees[from]++;
+        }
+
+        private <N> ContractionHierarchy<N> toHierarchy(CsrGraph<N> graph, long buildTimeNanos) {
+            int[] offsets = new int[size + 1];
+
+            for (int node = 0; node < size; node++) {
+                offsets[node + 1] = offsets[node];
+
+                for (int i = 0; i < degrees[node]; i++) {
+                    if(ranks[neighbours[node][i]] > ranks[node]) {
+                        offsets[node + 1]++;
+                    }
+                }
+            }
+
+            int[] targets = new int[offsets[size]];
+            int[] upwardWeights = new int[offsets[size]];
+            int[] upwardMiddles = new int[offsets[size]];
+
+            for (int node = 0; node < size; node++) {
+                int edge = offsets[node];
+
+                for (int i = 0; i < degrees[node]; i++) {
+                    if(ranks[neighbours[node][i]] > ranks[node]) {
+                        targets[edge] = neighbours[node][i];
+                        upwardWeights[edge] = weights[node][i];
+                        upwardMiddles[edge] = middles[node][i];
+                        edge++;
+                    }
+                }
+            }
+
+            return new ContractionHierarchy<>(graph, offsets, targets, upwardWeights, upwardMiddles,
+                    shortcutCount, buildTimeNanos);
+        }
+    }
+}
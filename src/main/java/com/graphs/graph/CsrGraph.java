@@ -0,0 +1,783 @@
+package com.graphs.graph;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable snapshot of a {@link Graph} in compressed sparse row layout.
+ * Nodes are mapped to dense int ids and the edges of node {@code i} are stored in
+ * {@code targets} and {@code weights} between {@code offsets[i]} and {@code offsets[i + 1]}.
+ * The three arrays are int buffers, so they either live on the heap or in a file mapped into memory,
+ * see {@link #writeAdjacency(ByteBuffer)} and {@link #mapAdjacency(List, ByteBuffer)}.
+ * Snapshots are thread safe. Queries borrow their search working state from a pool owned by the snapshot.
+ * Metrics attached to a snapshot receive the same queries as those of a {@link Graph}.
+ * @param <N> the generic type of nodes.
+ */
+public class CsrGraph<N> {
+    private final List<N> nodes;
+    private final Map<N, Integer> ids;
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final IntBuffer weights;
+    private final ScratchPool<DijkstraSearch> searches;
+    private volatile GraphMetrics<N> metrics;
+    private volatile ShortestPathCache<N> cache;
+    /**
+     * Connected components, found with a union-find over the edges by the first query which needs them.
+     */
+    private volatile Components components;
+
+    CsrGraph(List<N> nodes, Map<N, Integer> ids, IntBuffer offsets, IntBuffer targets, IntBuffer weights) {
+        this.nodes = nodes;
+        this.ids = ids;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.searches = new ScratchPool<>(() -> new DijkstraSearch(nodes.size()));
+    }
+
+    /**
+     * Builds the snapshot of the given adjacency. Node ids follow the iteration order of the adjacency.
+     */
+    static <N> CsrGraph<N> of(Map<N, Map<N, Integer>> adjacency) {
+        int size = adjacency.size();
+        List<N> nodes = new ArrayList<>(adjacency.keySet());
+        Map<N, Integer> ids = new HashMap<>(size * 4 / 3 + 1);
+
+        for (int id = 0; id < size; id++) {
+            ids.put(nodes.get(id), id);
+        }
+
+        int[] offsets = new int[size + 1];
+
+        for (int id = 0; id < size; id++) {
+            offsets[id + 1] = offsets[id] + adjacency.get(nodes.get(id)).size();
+        }
+
+        int[] targets = new int[offsets[size]];
+        int[] weights = new int[offsets[size]];
+
+        for (int id = 0; id < size; id++) {
+            int edge = offsets[id];
+
+            for (Map.Entry<N, Integer> neighbour : adjacency.get(nodes.get(id)).entrySet()) {
+                targets[edge] = ids.get(neighbour.getKey());
+                weights[edge] = neighbour.getValue();
+                edge++;
+            }
+        }
+
+        return new CsrGraph<>(nodes, ids, IntBuffer.wrap(offsets), IntBuffer.wrap(targets), IntBuffer.wrap(weights));
+    }
+
+    /**
+     * Creates a snapshot over adjacency written by {@link #writeAdjacency(ByteBuffer)}, reading it in place
+     * from the buffer, which is typically mapped from a file. Advances the position of the buffer past the
+     * adjacency. The adjacency is checked once, so that queries never read out of bounds.
+     * @param nodes the nodes of the snapshot, in id order
+     * @param buffer buffer positioned at the adjacency, in the byte order it was written with
+     * @throws IllegalArgumentException if the offsets do not start at 0 and never decrease, or an edge
+     *         leads to an unknown node or has a weight which is not positive
+     */
+    public static <N> CsrGraph<N> mapAdjacency(List<N> nodes, ByteBuffer buffer) {
+        int size = nodes.size();
+        IntBuffer offsets = sliceInts(buffer, size + 1);
+        int arcs = offsets.get(size);
+
+        if(offsets.get(0) != 0 || arcs < 0 || (long) arcs * 2 * Integer.BYTES > buffer.remaining()) {
+            throw new IllegalArgumentException("Adjacency of " + size + " nodes is corrupt.");
+        }
+
+        IntBuffer targets = sliceInts(buffer, arcs);
+        IntBuffer weights = sliceInts(buffer, arcs);
+
+        for (int id = 0; id < size; id++) {
+            if (offsets.get(id) > offsets.get(id + 1)) {
+                throw new IllegalArgumentException("Offsets of node " + id + " decrease.");
+            }
+        }
+
+        for (int edge = 0; edge < arcs; edge++) {
+            if (targets.get(edge) < 0 || targets.get(edge) >= size || weights.get(edge) <= 0) {
+                throw new IllegalArgumentException("Edge " + edge + " of the adjacency is corrupt.");
+            }
+        }
+        Map<N, Integer> ids = new HashMap<>(size * 4 / 3 + 1);
+
+        for (int id = 0; id < size; id++) {
+            ids.put(nodes.get(id), id);
+        }
+
+        return new CsrGraph<>(new ArrayList<>(nodes), ids, offsets, targets, weights);
+    }
+
+    private static IntBuffer sliceInts(ByteBuffer buffer, int count) {
+        ByteBuffer slice = buffer.slice().order(buffer.order());
+        slice.limit(count * Integer.BYTES);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+
+        return slice.asIntBuffer();
+    }
+
+    /**
+     * Writes the offsets, targets and weights at the position of the buffer and advances it past them.
+     * Nodes are not written, they are identified by their position in {@link #getNodeList()}.
+     */
+    public void writeAdjacency(ByteBuffer buffer) {
+        IntBuffer ints = buffer.asIntBuffer();
+
+        ints.put(offsets.duplicate());
+        ints.put(targets.duplicate());
+        ints.put(weights.duplicate());
+        buffer.position(buffer.position() + ints.position() * Integer.BYTES);
+    }
+
+    /**
+     * @return number of bytes written by {@link #writeAdjacency(ByteBuffer)}
+     */
+    public long getAdjacencyBytes() {
+        return (long) Integer.BYTES * (offsets.limit() + 2L * targets.limit());
+    }
+
+    public Set<N> getNodes() {
+        return Collections.unmodifiableSet(ids.keySet());
+    }
+
+    /**
+     * @return the nodes ordered by their dense ids
+     */
+    public List<N> getNodeList() {
+        return Collections.unmodifiableList(nodes);
+    }
+
+    public Set<N> getNeighboringNodes(N node) {
+        Integer id = ids.get(node);
+
+        if (id == null) {
+            return Collections.emptySet();
+        }
+
+        Set<N> neighbours = new LinkedHashSet<>();
+
+        for (int edge = offsets.get(id); edge < offsets.get(id + 1); edge++) {
+            neighbours.add(nodes.get(targets.get(edge)));
+        }
+
+        return neighbours;
+    }
+
+    public boolean isConnected() {
+        return !nodes.isEmpty() && components().count == 1;
+    }
+
+    /**
+     * @return whether a path connects both nodes
+     */
+    public boolean areConnected(N first, N second) {
+        Components current = components();
+        return current.numbers[idOf(first)] == current.numbers[idOf(second)];
+    }
+
+    /**
+     * @return the nodes of each connected component in the order of {@link #getNodeList()}, largest component first
+     */
+    public List<Set<N>> getComponents() {
+        Components current = components();
+        List<Set<N>> result = new ArrayList<>(current.count);
+
+        for (int number = 0; number < current.count; number++) {
+            result.add(new LinkedHashSet<>());
+        }
+
+        for (int id = 0; id < nodes.size(); id++) {
+            result.get(current.numbers[id]).add(nodes.get(id));
+        }
+
+        result.sort(Comparator.comparingInt((Set<N> component) -> component.size()).reversed());
+
+        return result;
+    }
+
+    private Components components() {
+        Components current = components;
+
+        if (current == null) {
+            // Snapshots do not change, so threads racing here compute the same components
+            current = new Components(nodes.size(), offsets, targets);
+            components = current;
+        }
+
+        return current;
+    }
+
+    /**
+     * Runs Dijkstra's algorithm which stops expanding once distances exceed maxRange, so the cost
+     * depends on the size of the neighbourhood rather than on the size of the graph.
+     * @return nodes within maxRange of the given node ordered by distance, without the node itself
+     */
+    public List<N> nodesWithinRangeOf(N node, int maxRange) {
+        int id = idOf(node);
+        QueryStats<N> stats = startQuery(QueryType.NODES_WITHIN_RANGE, node, null);
+        DijkstraSearch search = searches.borrow();
+
+        try {
+            int settled = search.run(offsets, targets, weights, id, DijkstraSearch.NO_NODE, maxRange);
+            List<N> result = new ArrayList<>(settled);
+
+            // The first settled node is the node itself
+            for (int i = 1; i < settled; i++) {
+                result.add(nodes.get(search.settled[i]));
+            }
+
+            return result;
+        } finally {
+            finishQuery(stats, search);
+        }
+    }
+
+    /**
+     * Runs the same search as {@link #nodesWithinRangeOf(Object, int)} and reports each node within
+     * maxRange to the listener by increasing distance, starting with the node itself at distance 0.
+     */
+    public void visitWithinRange(N node, int maxRange, TraversalListener<N> listener) {
+        int source = idOf(node);
+        QueryStats<N> stats = startQuery(QueryType.NODES_WITHIN_RANGE, node, null);
+        DijkstraSearch search = searches.borrow();
+
+        try {
+            int settled = search.run(offsets, targets, weights, source, DijkstraSearch.NO_NODE, maxRange);
+
+            for (int i = 0; i < settled; i++) {
+                int id = search.settled[i];
+                listener.onVisit(nodes.get(id), search.distance[id]);
+            }
+        } finally {
+            finishQuery(stats, search);
+        }
+    }
+
+    /**
+     * Finds the nodes nearest to the given node, see {@link Graph#nearestNodes(Object, int, Predicate)}.
+     * @param k maximum number of nodes to return
+     * @param filter nodes to consider, e.g. {@code node -> true} for all
+     * @return at most k accepted nodes without the node itself, mapped to their distance in increasing order
+     */
+    public Map<N, Integer> nearestNodes(N node, int k, Predicate<? super N> filter) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Number of nodes cannot be negative.");
+        }
+
+        int source = idOf(node);
+        Map<N, Integer> result = new LinkedHashMap<>(Math.min(k, nodes.size()) * 4 / 3 + 1);
+
+        if (k > 0) {
+            QueryStats<N> stats = startQuery(QueryType.NEAREST_NODES, node, null);
+            DijkstraSearch search = searches.borrow();
+
+            try {
+                search.runUntil(offsets, targets, weights, source, id -> {
+                    if (id != source && filter.test(nodes.get(id))) {
+                        result.put(nodes.get(id), search.distance[id]);
+                    }
+
+                    return result.size() == k;
+                });
+            } finally {
+                finishQuery(stats, search);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Does a breadth first traversal over the graph and computes weight of path from
+     * start node to all visited nodes.
+     * @param start start node
+     * @return a mapping from each visited node to its weighted distance, in visiting order
+     */
+    public Map<N, Integer> breadthFirstTraversal(N start) {
+        return breadthFirstTraversal(start, TraversalListener.none());
+    }
+
+    /**
+     * Does a breadth first traversal over the graph and reports each visited node to the listener.
+     * @param start start node
+     * @param listener notified of each node when it is visited
+     * @return a mapping from each visited node to its weighted distance, in visiting order
+     */
+    public Map<N, Integer> breadthFirstTraversal(N start, TraversalListener<N> listener) {
+        int startId = idOf(start);
+        int[] queue = new int[nodes.size()];
+        int[] distance = new int[nodes.size()];
+        boolean[] visited = new boolean[nodes.size()];
+        int head = 0;
+        int tail = 0;
+
+        visited[startId] = true;
+        queue[tail++] = startId;
+
+        while (head < tail) {
+            int current = queue[head++];
+
+            listener.onVisit(nodes.get(current), distance[current]);
+
+            for (int edge = offsets.get(current); edge < offsets.get(current + 1); edge++) {
+                int vertex = targets.get(edge);
+
+                if (!visited[vertex]) {
+                    visited[vertex] = true;
+                    distance[vertex] = distance[current] + weights.get(edge);
+                    queue[tail++] = vertex;
+                }
+            }
+        }
+
+        Map<N, Integer> result = new LinkedHashMap<>(tail * 4 / 3 + 1);
+
+        for (int i = 0; i < tail; i++) {
+            result.put(nodes.get(queue[i]), distance[queue[i]]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Breadth first traversal which only counts the nodes reachable from the start node.
+     * @param start start node
+     * @return number of reachable nodes, including the start node
+     */
+    public int countReachable(N start) {
+        int startId = idOf(start);
+        int[] queue = new int[nodes.size()];
+        boolean[] visited = new boolean[nodes.size()];
+        int head = 0;
+        int tail = 0;
+
+        visited[startId] = true;
+        queue[tail++] = startId;
+
+        while (head < tail) {
+            int current = queue[head++];
+
+            for (int edge = offsets.get(current); edge < offsets.get(current + 1); edge++) {
+                int vertex = targets.get(edge);
+
+                if (!visited[vertex]) {
+                    visited[vertex] = true;
+                    queue[tail++] = vertex;
+                }
+            }
+        }
+
+        return tail;
+    }
+
+    /**
+     * Dijkstra's algorithm over the dense ids, using an indexed binary heap with decrease-key.
+     * Behaves as {@link Graph#shortestPath(Object, Object, boolean)}.
+     *
+     * @param source node
+     * @param dest node
+     * @param fullSearch boolean to specify whether search should end when all nodes ar visited
+     *                   or when destination node is found.
+     * @return shortest distance through graph from source to destination
+     *         considering weighted edges
+     */
+    public ShortestPath<N> shortestPath(N source, N dest, boolean fullSearch) {
+        int sourceId = idOf(source);
+        Integer destId = ids.get(dest);
+        int target = destId == null ? DijkstraSearch.NO_NODE : destId;
+
+        QueryStats<N> stats = startQuery(fullSearch ? QueryType.FULL_SEARCH : QueryType.SHORTEST_PATH, source, dest);
+        ShortestPathCache<N> currentCache = cache;
+        long generation = 0;
+
+        if (currentCache != null) {
+            ShortestPathCache.CachedSearch<N> cached = currentCache.get(source, fullSearch ? null : dest);
+
+            if (cached != null) {
+                if (stats != null) {
+                    stats.cacheHit = true;
+                }
+
+                finishQuery(stats, null);
+
+                ShortestPath<N> shortestPath = new ShortestPath<>();
+                shortestPath.setCost(cached.distance.getOrDefault(dest, Integer.MAX_VALUE));
+                shortestPath.setLowestCosts(cached.distance);
+                shortestPath.setPredecessors(dest, cached.predecessors);
+
+                return shortestPath;
+            }
+
+            generation = currentCache.generation();
+        }
+
+        DijkstraSearch search = searches.borrow();
+
+        try {
+            search.run(offsets, targets, weights, sourceId, fullSearch ? DijkstraSearch.NO_NODE : target,
+                    Integer.MAX_VALUE);
+
+            Map<N, Integer> lowestCosts = new HashMap<>(search.reachedCount * 4 / 3 + 1);
+
+            for (int i = 0; i < search.reachedCount; i++) {
+                lowestCosts.put(nodes.get(search.reached[i]), search.distance[search.reached[i]]);
+            }
+
+            if (currentCache != null) {
+                Map<N, N> predecessors = new HashMap<>(search.reachedCount * 4 / 3 + 1);
+
+                // The source comes first and has no predecessor
+                for (int i = 1; i < search.reachedCount; i++) {
+                    int id = search.reached[i];
+                    predecessors.put(nodes.get(id), nodes.get(search.predecessors[id]));
+                }
+
+                lowestCosts = Collections.unmodifiableMap(lowestCosts);
+                currentCache.put(source, fullSearch ? null : dest, lowestCosts,
+                        Collections.unmodifiableMap(predecessors), generation);
+            }
+
+            ShortestPath<N> shortestPath = new ShortestPath<>();
+            shortestPath.setCost(search.distanceTo(target));
+            shortestPath.setLowestCosts(lowestCosts);
+            shortestPath.setNodes(route(search.predecessors, target, search.distanceTo(target)));
+
+            return shortestPath;
+        } finally {
+            finishQuery(stats, search);
+        }
+    }
+
+    /**
+     * Computes the same lowest costs as {@link #shortestPath(Object, Object, boolean)} with full search, relaxing
+     * the edges of many nodes at once on the pool with delta stepping. When several routes to the destination
+     * have the lowest cost, the route may differ.
+     * @param pool pool relaxing the edges
+     * @return shortest distance through graph from source to destination and the lowest costs of all
+     *         reachable nodes
+     */
+    public ShortestPath<N> shortestPath(N source, N dest, ForkJoinPool pool) {
+        return shortestPath(source, dest, DeltaSteppingSearch.defaultDelta(weights), pool);
+    }
+
+    /**
+     * @param delta width of the distance buckets: wider buckets relax more edges at once but relax
+     *              edges more often in vain
+     * @see #shortestPath(Object, Object, ForkJoinPool)
+     */
+    public ShortestPath<N> shortestPath(N source, N dest, int delta, ForkJoinPool pool) {
+        int sourceId = idOf(source);
+        Integer destId = ids.get(dest);
+        int target = destId == null ? DijkstraSearch.NO_NODE : destId;
+
+        DeltaSteppingSearch search = new DeltaSteppingSearch(offsets, targets, weights, delta, pool);
+        int[] distance = search.run(sourceId);
+        int[] predecessors = search.predecessors(sourceId, distance);
+
+        int reached = 0;
+
+        for (int value : distance) {
+            if (value != Integer.MAX_VALUE) {
+                reached++;
+            }
+        }
+
+        Map<N, Integer> lowestCosts = new HashMap<>(reached * 4 / 3 + 1);
+
+        for (int id = 0; id < distance.length; id++) {
+            if (distance[id] != Integer.MAX_VALUE) {
+                lowestCosts.put(nodes.get(id), distance[id]);
+            }
+        }
+
+        int cost = target == DijkstraSearch.NO_NODE ? Integer.MAX_VALUE : distance[target];
+
+        ShortestPath<N> shortestPath = new ShortestPath<>();
+        shortestPath.setCost(cost);
+        shortestPath.setLowestCosts(lowestCosts);
+        shortestPath.setNodes(route(predecessors, target, cost));
+
+        return shortestPath;
+    }
+
+    /**
+     * Computes the lowest costs from every source to every destination, running one Dijkstra search per
+     * source in parallel on the pool. Each search stops once all destinations are settled, and the searches
+     * reuse the working states pooled by the snapshot.
+     * @param pool pool running the searches
+     * @return matrix with a row per source and a column per destination
+     */
+    public DistanceMatrix<N> distanceMatrix(List<N> sources, List<N> destinations, ForkJoinPool pool) {
+        if((long) sources.size() * destinations.size() > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Distance matrix of " + sources.size() + " x " + destinations.size()
+                    + " is too large.");
+        }
+
+        int[] sourceIds = sources.stream().mapToInt(this::idOf).toArray();
+        int[] targetIds = destinations.stream().mapToInt(this::idOf).toArray();
+        boolean[] isTarget = new boolean[nodes.size()];
+        int distinctTargets = 0;
+
+        for (int id : targetIds) {
+            if (!isTarget[id]) {
+                isTarget[id] = true;
+                distinctTargets++;
+            }
+        }
+
+        int columns = targetIds.length;
+        int targetCount = distinctTargets;
+        int[] costs = new int[sourceIds.length * columns];
+
+        pool.submit(() -> IntStream.range(0, sourceIds.length).parallel().forEach(row -> {
+            DijkstraSearch search = searches.borrow();
+
+            try {
+                search.runUntilSettled(offsets, targets, weights, sourceIds[row], isTarget, targetCount);
+
+                for (int column = 0; column < columns; column++) {
+                    costs[row * columns + column] = search.distance[targetIds[column]];
+                }
+            } finally {
+                searches.release(search);
+            }
+        })).join();
+
+        return new DistanceMatrix<>(new ArrayList<>(sources), new ArrayList<>(destinations), costs);
+    }
+
+    /**
+     * Computes a spanning tree of least total weight for each connected component with Kruskal's algorithm.
+     * Edges are sorted as packed longs rather than objects, so graphs with tens of millions of edges only
+     * need a few longs per edge on top of the snapshot.
+     * @param parallel whether the edges are sorted in parallel on the common pool
+     * @return snapshot of the same nodes holding only the edges of the forest
+     */
+    public CsrGraph<N> minimumSpanningForest(boolean parallel) {
+        int[] selected = SpanningForest.select(offsets, targets, weights, parallel);
+        int[] from = new int[selected.length];
+        int[] forestOffsets = new int[nodes.size() + 1];
+
+        for (int i = 0; i < selected.length; i++) {
+            from[i] = SpanningForest.sourceOf(offsets, selected[i]);
+            forestOffsets[from[i] + 1]++;
+            forestOffsets[targets.get(selected[i]) + 1]++;
+        }
+
+        for (int id = 0; id < nodes.size(); id++) {
+            forestOffsets[id + 1] += forestOffsets[id];
+        }
+
+        int[] forestTargets = new int[2 * selected.length];
+        int[] forestWeights = new int[2 * selected.length];
+        int[] fill = Arrays.copyOf(forestOffsets, nodes.size());
+
+        for (int i = 0; i < selected.length; i++) {
+            int to = targets.get(selected[i]);
+            int weight = weights.get(selected[i]);
+
+            forestTargets[fill[from[i]]] = to;
+            forestWeights[fill[from[i]]++] = weight;
+            forestTargets[fill[to]] = from[i];
+            forestWeights[fill[to]++] = weight;
+        }
+
+        return new CsrGraph<>(nodes, ids, IntBuffer.wrap(forestOffsets), IntBuffer.wrap(forestTargets),
+                IntBuffer.wrap(forestWeights));
+    }
+
+    /**
+     * @return sum of the weights of all edges, each counted once
+     */
+    public long getTotalWeight() {
+        long total = 0;
+
+        for (int edge = 0; edge < weights.limit(); edge++) {
+            total += weights.get(edge);
+        }
+
+        return total / 2;
+    }
+
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    public int getSize() {
+        return nodes.size();
+    }
+
+    public int getEdgeCount() {
+        return targets.limit();
+    }
+
+    /**
+     * Reports the cost of the Dijkstra searches of this snapshot: shortest paths without the pool, nodes
+     * within range and nearest nodes. Only this snapshot reports to them, not the graph it was taken from.
+     * @param metrics the metrics, or null to stop reporting
+     */
+    public void setMetrics(GraphMetrics<N> metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Attaches a cache for the results of {@link #shortestPath(Object, Object, boolean)}, see
+     * {@link Graph#setCache(ShortestPathCache)}. Snapshots do not change, so it is only invalidated when attached.
+     * @param cache the cache, or null to stop caching
+     */
+    public void setCache(ShortestPathCache<N> cache) {
+        if (cache != null) {
+            cache.invalidate();
+        }
+
+        this.cache = cache;
+    }
+
+    /**
+     * @return the stats of the query, started when metrics are attached; otherwise null
+     */
+    private QueryStats<N> startQuery(QueryType type, N source, N dest) {
+        if (metrics == null) {
+            return null;
+        }
+
+        QueryStats<N> stats = new QueryStats<>(type, SearchStrategy.DIJKSTRA, source, dest);
+        stats.start();
+        return stats;
+    }
+
+    /**
+     * Hands the search back to the pool and reports the query with the steps it counted.
+     * @param stats stats of the query, or null when it is not measured
+     * @param search the search, or null when the query was answered from the cache
+     */
+    private void finishQuery(QueryStats<N> stats, DijkstraSearch search) {
+        if (stats != null) {
+            stats.stop();
+
+            if (search != null) {
+                stats.addSteps(search.settledCount, search.relaxedCount, search.heapOperations);
+            }
+
+            GraphMetrics<N> currentMetrics = metrics;
+
+            if (currentMetrics != null) {
+                currentMetrics.onQuery(stats);
+            }
+        }
+
+        if (search != null) {
+            searches.release(search);
+        }
+    }
+
+    int idOf(N node) {
+        Integer id = ids.get(node);
+
+        if (id == null) {
+            throw new IllegalArgumentException("Node " + node + " is not part of the graph.");
+        }
+
+        return id;
+    }
+
+    N nodeOf(int id) {
+        return nodes.get(id);
+    }
+
+    IntBuffer offsets() {
+        return offsets;
+    }
+
+    IntBuffer targets() {
+        return targets;
+    }
+
+    IntBuffer weights() {
+        return weights;
+    }
+
+    private List<N> route(int[] predecessors, int target, int cost) {
+        LinkedList<N> route = new LinkedList<>();
+
+        if (cost == Integer.MAX_VALUE) {
+            return route;
+        }
+
+        for (int id = target; id != DijkstraSearch.NO_NODE; id = predecessors[id]) {
+            route.addFirst(nodes.get(id));
+        }
+
+        return route;
+    }
+
+    /**
+     * Number of the connected component of each id, components numbered in the order of their first id.
+     */
+    private static final class Components {
+        final int[] numbers;
+        final int count;
+
+        Components(int size, IntBuffer offsets, IntBuffer targets) {
+            int[] parents = new int[size];
+            int[] sizes = new int[size];
+
+            for (int id = 0; id < size; id++) {
+                parents[id] = id;
+                sizes[id] = 1;
+            }
+
+            for (int id = 0; id < size; id++) {
+                for (int edge = offsets.get(id); edge < offsets.get(id + 1); edge++) {
+                    int first = find(parents, id);
+                    int second = find(parents, targets.get(edge));
+
+                    if (first != second) {
+                        // The smaller set goes below the larger one
+                        if (sizes[first] > sizes[second]) {
+                            int swap = first;
+                            first = second;
+                            second = swap;
+                        }
+
+                        parents[first] = second;
+                        sizes[second] += sizes[first];
+                    }
+                }
+            }
+
+            // Reuses the sizes as the number of each root
+            Arrays.fill(sizes, -1);
+            numbers = new int[size];
+            int numbered = 0;
+
+            for (int id = 0; id < size; id++) {
+                int root = find(parents, id);
+
+                if (sizes[root] < 0) {
+                    sizes[root] = numbered++;
+                }
+
+                numbers[id] = sizes[root];
+            }
+
+            count = numbered;
+        }
+
+        private static int find(int[] parents, int id) {
+            while (parents[id] != id) {
+                parents[id] = parents[parents[id]];
+                id = parents[id];
+            }
+
+            return id;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.graphs.graph;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Delta stepping single source shortest paths in the style of Meyer and Sanders, over a graph in compressed
+ * sparse row layout with both directions of each edge present.
+ * <p>
+ * Reached nodes are kept in buckets of tentative distances {@code delta} wide. The lowest bucket is emptied
+ * in rounds which relax the light edges, at most {@code delta} long, of all its nodes in parallel; nodes they
+ * bring into the same bucket are relaxed by the next round. Once the bucket stays empty the heavy edges of
+ * all nodes it held are relaxed in parallel, which only fills later buckets. Distances are only ever lowered
+ * by compare and set, so they end up the same as with Dijkstra's algorithm whatever the interleaving.
+ * Predecessors are chosen afterwards from the final distances.
+ */
+class DeltaSteppingSearch {
+    /**
+     * Number of nodes whose edges a single task relaxes.
+     */
+    private static final int CHUNK = 1024;
+
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final IntBuffer weights;
+    private final int delta;
+    private final ForkJoinPool pool;
+    private final AtomicIntegerArray distance;
+    /**
+     * Last round and last bucket each node was taken into, to relax it once per round and settle it once
+     * per bucket although it may have been put into a bucket several times.
+     */
+    private final int[] lastRound;
+    private final int[] lastBucket;
+    private final TreeMap<Integer, Nodes> buckets = new TreeMap<>();
+    private int round;
+
+    /**
+     * @param delta width of the buckets, e.g. {@link #defaultDelta(IntBuffer)}
+     */
+    DeltaSteppingSearch(IntBuffer offsets, IntBuffer targets, IntBuffer weights, int delta, ForkJoinPool pool) {
+        if(delta <= 0) {
+            throw new IllegalArgumentException("Delta must be positive.");
+        }
+
+        int size = offsets.limit() - 1;
+
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.delta = delta;
+        this.pool = pool;
+        this.distance = new AtomicIntegerArray(size);
+        this.lastRound = new int[size];
+        this.lastBucket = new int[size];
+    }
+
+    /**
+     * @return the mean weight of the edges, which keeps about half of them light on road like graphs
+     */
+    static int defaultDelta(IntBuffer weights) {
+        long total = 0;
+
+        for (int edge = 0; edge < weights.limit(); edge++) {
+            total += weights.get(edge);
+        }
+
+        return (int) Math.max(1, total / Math.max(1, weights.limit()));
+    }
+
+    /**
+     * Runs the search from the source over all reachable nodes.
+     * @return distance of each node from the source, {@link Integer#MAX_VALUE} if it is unreachable
+     */
+    int[] run(int source) {
+        int size = distance.length();
+
+        pool.submit(() -> IntStream.range(0, size).parallel().forEach(id -> distance.set(id, Integer.MAX_VALUE)))
+                .join();
+        Arrays.fill(lastRound, -1);
+        Arrays.fill(lastBucket, -1);
+        buckets.clear();
+        round = 0;
+
+        distance.set(source, 0);
+        bucket(0).add(source);
+
+        while (!buckets.isEmpty()) {
+            Map.Entry<Integer, Nodes> lowest = buckets.pollFirstEntry();
+            int index = lowest.getKey();
+            Nodes frontier = lowest.getValue();
+            Nodes settled = new Nodes();
+
+            while (frontier != null) {
+                Nodes current = new Nodes();
+
+                for (int i = 0; i < frontier.size; i++) {
+                    int id = frontier.ids[i];
+
+                    // Skip nodes which moved to a lower bucket since, or were already taken this round
+                    if(distance.get(id) / delta == index && lastRound[id] != round) {
+                        lastRound[id] = round;
+                        current.add(id);
+
+                        if(lastBucket[id] != index) {
+                            lastBucket[id] = index;
+                            settled.add(id);
+                        }
+                    }
+                }
+
+                round++;
+
+                if(current.size == 0) {
+                    break;
+                }
+
+                distribute(relax(current, true));
+                frontier = buckets.remove(index);
+            }
+
+            distribute(relax(settled, false));
+        }
+
+        int[] result = new int[size];
+
+        for (int id = 0; id < size; id++) {
+            result[id] = distance.get(id);
+        }
+
+        return result;
+    }
+
+    /**
+     * Chooses for every reached node a neighbour on one of its shortest routes from the source.
+     * @param distance distances returned by {@link #run(int)}
+     * @return predecessor of each node, {@link DijkstraSearch#NO_NODE} for the source and unreachable nodes
+     */
+    int[] predecessors(int source, int[] distance) {
+        int[] predecessors = new int[distance.length];
+
+        pool.submit(() -> IntStream.range(0, distance.length).parallel().forEach(id -> {
+            predecessors[id] = DijkstraSearch.NO_NODE;
+
+            if(id == source || distance[id] == Integer.MAX_VALUE) {
+                return;
+            }
+
+            for (int edge = offsets.get(id); edge < offsets.get(id + 1); edge++) {
+                int neighbour = targets.get(edge);
+
+                if(distance[neighbour] != Integer.MAX_VALUE && distance[neighbour] + weights.get(edge) == distance[id]) {
+                    predecessors[id] = neighbour;
+                    return;
+                }
+            }
+        })).join();
+
+        return predecessors;
+    }
+
+    /**
+     * Relaxes the light or the heavy edges of the nodes, in parallel when there are many.
+     * @return nodes whose distance was lowered, per task
+     */
+    private List<Nodes> relax(Nodes nodes, boolean light) {
+        int chunks = (nodes.size + CHUNK - 1) / CHUNK;
+
+        if(chunks <= 1) {
+            return List.of(relax(nodes, 0, nodes.size, light));
+        }
+
+        return pool.submit(() -> IntStream.range(0, chunks).parallel()
+                .mapToObj(chunk -> relax(nodes, chunk * CHUNK, Math.min(nodes.size, (chunk + 1) * CHUNK), light))
+                .collect(Collectors.toList()))
+                .join();
+    }
+
+    private Nodes relax(Nodes nodes, int from, int to, boolean light) {
+        Nodes improved = new Nodes();
+
+        for (int i = from; i < to; i++) {
+            int current = nodes.ids[i];
+            int currentDistance = distance.get(current);
+            int end = offsets.get(current + 1);
+
+            for (int edge = offsets.get(current); edge < end; edge++) {
+                int weight = weights.get(edge);
+
+                if((weight <= delta) != light) {
+                    continue;
+                }
+
+                int child = targets.get(edge);
+                int alternate = currentDistance + weight;
+                int known = distance.get(child);
+
+                while (alternate < known) {
+                    if(distance.compareAndSet(child, known, alternate)) {
+                        improved.add(child);
+                        break;
+                    }
+
+                    known = distance.get(child);
+                }
+            }
+        }
+
+        return improved;
+    }
+
+    /**
+     * Puts each node into the bucket of its current distance.
+     */
+    private void distribute(List<Nodes> improved) {
+        for (Nodes nodes : improved) {
+            for (int i = 0; i < nodes.size; i++) {
+                bucket(distance.get(nodes.ids[i]) / delta).add(nodes.ids[i]);
+            }
+        }
+    }
+
+    private Nodes bucket(int index) {
+        return buckets.computeIfAbsent(index, __ -> new Nodes());
+    }
+
+    /**
+     * Growable list of node ids.
+     */
+    private static class Nodes {
+        int[] ids = new int[16];
+        int size;
+
+        void add(int id) {
+            if(size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+
+            ids[size++] = id;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.graphs.graph;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Dijkstra's algorithm over a graph in compressed sparse row layout, together with its working
+ * state. The state is sized once for the graph and reset in time proportional to the nodes the
+ * previous search reached, so an instance can be reused for many searches without allocating.
+ */
+class DijkstraSearch {
+    static final int NO_NODE = -1;
+
+    final int[] distance;
+    final int[] predecessors;
+    /**
+     * Ids of the nodes reached by the last search, in the order they were first reached.
+     */
+    final int[] reached;
+    /**
+     * Ids of the nodes settled by the last search, by increasing distance.
+     */
+    final int[] settled;
+    int reachedCount;
+    int settledCount;
+    /**
+     * Edges looked at and heap insertions and removals of the last search.
+     */
+    int relaxedCount;
+    int heapOperations;
+
+    private final boolean[] isSettled;
+    private final IntMinHeap heap;
+
+    DijkstraSearch(int size) {
+        distance = new int[size];
+        predecessors = new int[size];
+        reached = new int[size];
+        settled = new int[size];
+        isSettled = new boolean[size];
+        heap = new IntMinHeap(size);
+
+        Arrays.fill(distance, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Runs the search from the source until the target is settled, the heap runs dry or the
+     * next node is further than maxRange. Nodes further than maxRange are not reached at all.
+     * @param target id to stop at, or {@link #NO_NODE} for a full search
+     * @return number of settled nodes
+     */
+    int run(IntBuffer offsets, IntBuffer targets, IntBuffer weights, int source, int target, int maxRange) {
+        return run(offsets, targets, weights, source, target, null, 0, null, maxRange);
+    }
+
+    /**
+     * Runs the search from the source until all the flagged targets are settled or the heap runs dry.
+     * @param isTarget flags of the ids to stop at
+     * @param targetCount number of flagged ids
+     * @return number of settled nodes
+     */
+    int runUntilSettled(IntBuffer offsets, IntBuffer targets, IntBuffer weights, int source, boolean[] isTarget, int targetCount) {
+        return run(offsets, targets, weights, source, NO_NODE, isTarget, targetCount, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Runs the search from the source until the stop condition holds for a settled id or the heap runs dry.
+     * @param stop tested with each id as it is settled, in order of increasing distance
+     * @return number of settled nodes
+     */
+    int runUntil(IntBuffer offsets, IntBuffer targets, IntBuffer weights, int source, IntPredicate stop) {
+        return run(offsets, targets, weights, source, NO_NODE, null, 0, stop, Integer.MAX_VALUE);
+    }
+
+    private int run(IntBuffer offsets, IntBuffer targets, IntBuffer weights, int source, int target,
+                    boolean[] isTarget, int targetCount, IntPredicate stop, int maxRange) {
+        reset();
+
+        int remainingTargets = targetCount;
+
+        distance[source] = 0;
+        predecessors[source] = NO_NODE;
+        reached[reachedCount++] = source;
+        heap.insertOrDecrease(source, 0);
+        heapOperations++;
+
+        while (!heap.isEmpty()) {
+            int current = heap.poll();
+            heapOperations++;
+            isSettled[current] = true;
+            settled[settledCount++] = current;
+
+            if (current == target || (isTarget != null && isTarget[current] && --remainingTargets == 0)
+                    || (stop != null && stop.test(current))) {
+                break;
+            }
+
+            int end = offsets.get(current + 1);
+
+            relaxedCount += end - offsets.get(current);
+
+            for (int edge = offsets.get(current); edge < end; edge++) {
+                int child = targets.get(edge);
+
+                if (!isSettled[child]) {
+                    int alternate = distance[current] + weights.get(edge);
+
+                    if (alternate <= maxRange && alternate < distance[child]) {
+                        if (distance[child] == Integer.MAX_VALUE) {
+                            reached[reachedCount++] = child;
+                        }
+
+                        distance[child] = alternate;
+                        predecessors[child] = current;
+                        heap.insertOrDecrease(child, alternate);
+                        heapOperations++;
+                    }
+                }
+            }
+        }
+
+        return settledCount;
+    }
+
+    int distanceTo(int id) {
+        return id == NO_NODE ? Integer.MAX_VALUE : distance[id];
+    }
+
+    private void reset() {
+        for (int i = 0; i < reachedCount; i++) {
+            distance[reached[i]] = Integer.MAX_VALUE;
+            isSettled[reached[i]] = false;
+        }
+
+        heap.clear();
+        reachedCount = 0;
+        settledCount = 0;
+        relaxedCount = 0;
+        heapOperations = 0;
+    }
+}
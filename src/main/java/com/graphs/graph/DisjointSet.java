@@ -0,0 +1,167 @@
+package com.graphs.graph;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.graphs.graph.IntDisjointSet.CHUNK_BITS;
+import static com.graphs.graph.IntDisjointSet.CHUNK_MASK;
+import static com.graphs.graph.IntDisjointSet.CHUNK_SIZE;
+
+/**
+ * Union-find over the nodes of a graph, tracking its connected components as edges are added.
+ * Elements are mapped to dense ids which are linked in an {@link IntDisjointSet}: lookups take no lock, roots
+ * are linked by size and operations cost amortized O(&alpha;(n)).
+ * @param <N> the generic type of nodes.
+ */
+class DisjointSet<N> {
+    private final Map<N, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final IntDisjointSet set = new IntDisjointSet();
+    /**
+     * Chunk {@code i} holds the elements of the ids from {@code i * CHUNK_SIZE}. Replaced under the lock of
+     * the set when a chunk is added, before any id of the chunk is handed out.
+     */
+    private volatile Object[][] elements = new Object[0][];
+
+    /**
+     * Adds the element as a singleton set unless it is already present.
+     */
+    void add(N element) {
+        idOf(element);
+    }
+
+    /**
+     * Merges the sets of both elements, adding them first when they are not present yet.
+     */
+    void union(N first, N second) {
+        set.union(idOf(first), idOf(second));
+    }
+
+    /**
+     * Adds the elements and merges the sets of the element pairs given in compressed sparse row layout:
+     * element {@code elements.get(i)} is merged with the elements whose indices are in {@code targets}
+     * between {@code offsets[i]} and {@code offsets[i + 1]}.
+     */
+    void unionAll(List<N> elements, int[] offsets, int[] targets) {
+        int[] local = new int[elements.size()];
+
+        for (int i = 0; i < local.length; i++) {
+            local[i] = idOf(elements.get(i));
+        }
+
+        for (int i = 0; i < local.length; i++) {
+            for (int edge = offsets[i]; edge < offsets[i + 1]; edge++) {
+                set.union(local[i], local[targets[edge]]);
+            }
+        }
+    }
+
+    /**
+     * Adds the nodes of the adjacency and merges the sets of the two nodes of each edge.
+     */
+    void unionAll(Map<N, Map<N, Integer>> adjacency) {
+        adjacency.forEach((node, neighbours) -> {
+            int id = idOf(node);
+
+            for (N neighbour : neighbours.keySet()) {
+                set.union(id, idOf(neighbour));
+            }
+        });
+    }
+
+    /**
+     * @return the element representing the set of the given element; it changes when the set is merged
+     */
+    N representativeOf(N element) {
+        return elementOf(set.find(requireId(element)));
+    }
+
+    boolean connected(N first, N second) {
+        return set.connected(requireId(first), requireId(second));
+    }
+
+    int sizeOf(N element) {
+        return set.sizeOf(requireId(element));
+    }
+
+    /**
+     * @return number of disjoint sets
+     */
+    int count() {
+        return set.count();
+    }
+
+    /**
+     * @return the disjoint sets, each mapped to by its representative element
+     */
+    Map<N, Set<N>> sets() {
+        Map<N, Set<N>> sets = new HashMap<>(set.count() * 4 / 3 + 1);
+
+        ids.forEach((element, id) -> sets.computeIfAbsent(elementOf(set.find(id)), __ -> new HashSet<>())
+                .add(element));
+
+        return sets;
+    }
+
+    @SuppressWarnings("unchecked")
+    private N elementOf(int id) {
+        return (N) elements[id >>> CHUNK_BITS][id & CHUNK_MASK];
+    }
+
+    private int requireId(N element) {
+        Integer id = element == null ? null : ids.get(element);
+
+        if(id == null) {
+            throw new IllegalArgumentException("Node " + element + " is not part of the graph.");
+        }
+
+        return id;
+    }
+
+    private int idOf(N element) {
+        Integer known = ids.get(element);
+
+        if(known != null) {
+            return known;
+        }
+
+        return ids.computeIfAbsent(element, this::newId);
+    }
+
+    /**
+     * Sets up the id as a singleton before it is published in the ids.
+     */
+    private int newId(N element) {
+        int id = nextId.getAndIncrement();
+
+        elementChunkFor(id)[id & CHUNK_MASK] = element;
+        set.add(id);
+
+        return id;
+    }
+
+    private Object[] elementChunkFor(int id) {
+        int index = id >>> CHUNK_BITS;
+        Object[][] current = elements;
+
+        if(index < current.length && current[index] != null) {
+            return current[index];
+        }
+
+        synchronized (this) {
+            current = elements;
+
+            if(index >= current.length) {
+                current = Arrays.copyOf(current, Math.max(index + 1, current.length * 2));
+            }
+
+            if(current[index] == null) {
+                current[index] = new Object[CHUNK_SIZE];
+            }
+
+            elements = current;
+            return current[index];
+        }
+    }
+}
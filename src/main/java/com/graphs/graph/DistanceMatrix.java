@@ -0,0 +1,68 @@
+package com.graphs.graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Lowest costs between each of a list of sources and each of a list of targets, stored row by row
+ * in a single int array.
+ * @param <N> the generic type of nodes.
+ */
+public class DistanceMatrix<N> {
+    /**
+     * Cost of a target which cannot be reached from the source.
+     */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final List<N> sources;
+    private final List<N> targets;
+    private final int[] costs;
+
+    DistanceMatrix(List<N> sources, List<N> targets, int[] costs) {
+        this.sources = Collections.unmodifiableList(sources);
+        this.targets = Collections.unmodifiableList(targets);
+        this.costs = costs;
+    }
+
+    /**
+     * @param row index of the source
+     * @param column index of the target
+     * @return lowest cost from the source to the target, or {@link #UNREACHABLE}
+     */
+    public int get(int row, int column) {
+        if(row < 0 || row >= sources.size() || column < 0 || column >= targets.size()) {
+            throw new IndexOutOfBoundsException("No cell " + row + ", " + column + " in the matrix.");
+        }
+
+        return costs[row * targets.size() + column];
+    }
+
+    /**
+     * @return the same costs for other nodes in the same order, e.g. the objects a graph of ids stands for
+     */
+    public <M> DistanceMatrix<M> withNodes(List<M> sources, List<M> targets) {
+        if(sources.size() != this.sources.size() || targets.size() != this.targets.size()) {
+            throw new IllegalArgumentException("Expected " + this.sources.size() + " sources and "
+                    + this.targets.size() + " targets.");
+        }
+
+        return new DistanceMatrix<>(new ArrayList<>(sources), new ArrayList<>(targets), costs);
+    }
+
+    public List<N> getSources() {
+        return sources;
+    }
+
+    public List<N> getTargets() {
+        return targets;
+    }
+
+    public int getRowCount() {
+        return sources.size();
+    }
+
+    public int getColumnCount() {
+        return targets.size();
+    }
+}
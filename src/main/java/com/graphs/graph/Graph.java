@@ -1,12 +1,18 @@
 package com.graphs.graph;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static java.util.Collections.emptyMap;
-import static java.util.function.Function.identity;
-import static java.util.stream.Collectors.toList;
-import static java.util.stream.Collectors.toMap;
 
 /**
  * A generic implementation of weighted unidirected graph
@@ -14,14 +20,73 @@ import static java.util.stream.Collectors.toMap;
  */
 public class Graph <N> {
     private static final int UNVISITED_NODE_DISTANCE = -1;
+    private static final int EXPECTED_DEGREE = 4;
     /**
      * Adjacency representation. Each node is mapped to a collection of adjacency nodes. Each adjacency is represented by a mapping
      * from destination node to corresponding wight of the road.
      */
-    private final Map<N, Map<N, Integer>> nodes = new HashMap<>();
+    private final Map<N, Map<N, Integer>> nodes;
+    private final IntFunction<Map<N, Integer>> adjacencyFactory;
+    /**
+     * Connected components, kept up to date as nodes and edges are added. Replaced by a set rebuilt from
+     * the edges after edges were removed.
+     */
+    private volatile DisjointSet<N> components = new DisjointSet<>();
+    /**
+     * Incremented when an edge is removed, as the components can then only be rebuilt from scratch.
+     */
+    private final AtomicLong removals = new AtomicLong();
+    /**
+     * Number of removals the components account for, set once they are rebuilt.
+     */
+    private volatile long componentsRemovals;
+    private final Object componentsLock = new Object();
+    private final List<ShortestPathTree<N>> trees = new CopyOnWriteArrayList<>();
+    private volatile ShortestPathCache<N> cache;
+    private volatile Heuristic<N> heuristic = Heuristic.none();
+    private volatile GraphMetrics<N> metrics;
+    /**
+     * Incremented on each change, after the adjacency is changed.
+     */
+    private final AtomicLong changes = new AtomicLong();
+    /**
+     * Handed out by {@link #freeze()} until the graph changes.
+     */
+    private volatile Snapshot<N> snapshot;
+
+    public Graph() {
+        this(new HashMap<>(), Graph::newAdjacency);
+    }
+
+    /**
+     * @param nodes empty map to hold the adjacency of each node
+     * @param adjacencyFactory creates the map holding the adjacency of a single node, presized for the given degree
+     */
+    Graph(Map<N, Map<N, Integer>> nodes, IntFunction<Map<N, Integer>> adjacencyFactory) {
+        this.nodes = nodes;
+        this.adjacencyFactory = adjacencyFactory;
+    }
+
+    static <N> Map<N, Integer> newAdjacency(int expectedDegree) {
+        return new HashMap<>(expectedDegree * 4 / 3 + 1);
+    }
 
-    public void addNode(N t) {
-        nodes.put(t, new HashMap<>());
+    /**
+     * Adds a node without edges. Adding a node which is already in the graph keeps its edges.
+     * @return whether the node was not in the graph before
+     */
+    public boolean addNode(N t) {
+        if(t == null) {
+            throw new IllegalArgumentException("No null nodes allowed.");
+        }
+
+        if(nodes.putIfAbsent(t, adjacencyFactory.apply(EXPECTED_DEGREE)) == null) {
+            components.add(t);
+            invalidateCache();
+            return true;
+        }
+
+        return false;
     }
 
     public void addEdge(N from, N to, int weight) {
@@ -37,20 +102,230 @@ public class Graph <N> {
             throw new IllegalArgumentException("Weight cannot be negative or 0.");
         }
 
-        addOneWayEdge(from, to, weight);
+        Integer oldWeight = addOneWayEdge(from, to, weight);
         addOneWayEdge(to, from, weight);
+        components.union(from, to);
+        edgeChanged(from, to, oldWeight, weight);
+    }
+
+    /**
+     * Removes the edge between both nodes, keeping the nodes.
+     * @return whether there was such an edge
+     */
+    public boolean removeEdge(N from, N to) {
+        if(from == null || to == null) {
+            throw new IllegalArgumentException("No null nodes allowed.");
+        }
+
+        Integer oldWeight = nodes.getOrDefault(from, emptyMap()).remove(to);
+
+        if(oldWeight == null) {
+            return false;
+        }
+
+        nodes.getOrDefault(to, emptyMap()).remove(from);
+        removals.incrementAndGet();
+        edgeChanged(from, to, oldWeight, null);
+
+        return true;
+    }
+
+    /**
+     * Changes the weight of an existing edge.
+     */
+    public void updateWeight(N from, N to, int weight) {
+        if(from == null || to == null) {
+            throw new IllegalArgumentException("No null nodes allowed.");
+        }
+
+        if(weight <= 0) {
+            throw new IllegalArgumentException("Weight cannot be negative or 0.");
+        }
+
+        Map<N, Integer> adjacency = nodes.getOrDefault(from, emptyMap());
+        Integer oldWeight = adjacency.get(to);
+
+        if(oldWeight == null) {
+            throw new IllegalArgumentException("No edge between " + from + " and " + to + ".");
+        }
+
+        adjacency.put(to, weight);
+        nodes.get(to).put(from, weight);
+        edgeChanged(from, to, oldWeight, weight);
+    }
+
+    /**
+     * Keeps the lowest costs and routes from the source up to date as edges are added, removed or reweighted,
+     * repairing only the part of them an edge change affects. Suited for sources queried often while the
+     * graph keeps changing. Trees repair themselves from the adjacency as each change is made, so changes must
+     * not be made concurrently, which {@link ConcurrentGraph} ensures while trees are tracked.
+     * @return the tree of lowest cost routes from the source
+     */
+    public ShortestPathTree<N> trackShortestPaths(N source) {
+        ShortestPathTree<N> tree = new ShortestPathTree<>(nodes, source);
+        trees.add(tree);
+        return tree;
+    }
+
+    /**
+     * Stops updating a tree returned by {@link #trackShortestPaths(Object)}.
+     */
+    public void stopTracking(ShortestPathTree<N> tree) {
+        trees.remove(tree);
+    }
+
+    /**
+     * @return whether some trees are kept up to date
+     */
+    boolean isTracking() {
+        return !trees.isEmpty();
+    }
+
+    private void edgeChanged(N from, N to, Integer oldWeight, Integer newWeight) {
+        for (ShortestPathTree<N> tree : trees) {
+            tree.edgeChanged(from, to, oldWeight, newWeight);
+        }
+
+        invalidateCache();
+    }
+
+    /**
+     * Adds nodes and edges loaded in bulk by a {@link GraphBuilder}. The edges of node {@code nodeList.get(i)}
+     * lead to the nodes with ids in {@code targets} between {@code offsets[i]} and {@code offsets[i + 1]},
+     * both directions of each edge being present.
+     * @param parallel whether the adjacency maps are created in parallel
+     * @return the nodes which were not in the graph before
+     */
+    List<N> addAll(List<N> nodeList, int[] offsets, int[] targets, int[] weights, boolean parallel) {
+        IntStream ids = IntStream.range(0, nodeList.size());
+        List<Map<N, Integer>> adjacency = (parallel ? ids.parallel() : ids)
+                .mapToObj(id -> {
+                    Map<N, Integer> neighbours = adjacencyFactory.apply(offsets[id + 1] - offsets[id]);
+
+                    for (int edge = offsets[id]; edge < offsets[id + 1]; edge++) {
+                        neighbours.put(nodeList.get(targets[edge]), weights[edge]);
+                    }
+
+                    return neighbours;
+                })
+                .collect(Collectors.toList());
+        List<N> added = new ArrayList<>();
+
+        for (int id = 0; id < nodeList.size(); id++) {
+            Map<N, Integer> existing = nodes.putIfAbsent(nodeList.get(id), adjacency.get(id));
+
+            if(existing != null) {
+                existing.putAll(adjacency.get(id));
+            } else {
+                added.add(nodeList.get(id));
+            }
+        }
+
+        components.unionAll(nodeList, offsets, targets);
+
+        for (ShortestPathTree<N> tree : trees) {
+            tree.recompute();
+        }
+
+        invalidateCache();
+
+        return added;
     }
 
     public void clear() {
         nodes.clear();
+
+        synchronized (componentsLock) {
+            components = new DisjointSet<>();
+            componentsRemovals = removals.get();
+        }
+
+        for (ShortestPathTree<N> tree : trees) {
+            tree.recompute();
+        }
+
+        invalidateCache();
     }
 
-    private void addOneWayEdge(N from, N to, int weight) {
-        if(!nodes.containsKey(from)) {
-            nodes.put(from, new HashMap<>());
+    /**
+     * Attaches a cache for the results of {@link #shortestPath(Object, Object, boolean)}. The cache is
+     * invalidated whenever nodes or edges are added, edges are removed or reweighted, or the graph is cleared.
+     * @param cache the cache, or null to stop caching
+     */
+    public void setCache(ShortestPathCache<N> cache) {
+        if(cache != null) {
+            cache.invalidate();
         }
 
-        nodes.get(from).put(to, weight);
+        this.cache = cache;
+    }
+
+    public ShortestPathCache<N> getCache() {
+        return cache;
+    }
+
+    /**
+     * Sets the estimate of remaining costs used by {@link SearchStrategy#A_STAR} searches.
+     * @param heuristic admissible heuristic, it must never overestimate the lowest cost to the destination
+     */
+    public void setHeuristic(Heuristic<N> heuristic) {
+        this.heuristic = Objects.requireNonNull(heuristic);
+    }
+
+    /**
+     * Reports the cost of every query to the metrics, e.g. a {@link QueryMetrics}. Without metrics, queries
+     * only count their search steps and are neither timed nor checked for allocations.
+     * @param metrics the metrics, or null to stop reporting
+     */
+    public void setMetrics(GraphMetrics<N> metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Drops the cached results and snapshot after a change.
+     */
+    private void invalidateCache() {
+        changes.incrementAndGet();
+        ShortestPathCache<N> current = cache;
+
+        if(current != null) {
+            current.invalidate();
+        }
+    }
+
+    /**
+     * @return previous weight of the edge, or null if it is new
+     */
+    private Integer addOneWayEdge(N from, N to, int weight) {
+        return nodes.computeIfAbsent(from, __ -> adjacencyFactory.apply(EXPECTED_DEGREE))
+                .put(to, weight);
+    }
+
+    /**
+     * @return the connected components, first rebuilt from the edges if some were removed. Queries wait
+     *         while they are rebuilt, updates go on and merge sets in the rebuilt components.
+     */
+    private DisjointSet<N> components() {
+        // Read before the count, a set being rebuilt never accounts for all removals
+        DisjointSet<N> current = components;
+
+        if(componentsRemovals == removals.get()) {
+            return current;
+        }
+
+        synchronized (componentsLock) {
+            long seen = removals.get();
+
+            if(componentsRemovals != seen) {
+                // Installed before the edges are read, so that edges added meanwhile are merged in either way
+                DisjointSet<N> rebuilt = new DisjointSet<>();
+                components = rebuilt;
+                rebuilt.unionAll(nodes);
+                componentsRemovals = seen;
+            }
+
+            return components;
+        }
     }
 
     public String toString() {
@@ -75,27 +350,113 @@ public class Graph <N> {
                 .keySet();
     }
 
+    /**
+     * Answered from the connected components tracked while the graph is built, without a traversal.
+     */
     public boolean isConnected() {
-        if(nodes.isEmpty()) {
-            return false;
-        }
+        return !nodes.isEmpty() && components().count() == 1;
+    }
+
+    /**
+     * @return whether a path connects both nodes
+     */
+    public boolean areConnected(N first, N second) {
+        return components().connected(first, second);
+    }
+
+    /**
+     * @return the node representing the connected component of the given node. Nodes of the same component
+     *         share their representative until the component is merged with another one.
+     */
+    public N componentOf(N node) {
+        return components().representativeOf(node);
+    }
+
+    /**
+     * @return number of nodes in the connected component of the given node, including the node itself
+     */
+    public int getComponentSize(N node) {
+        return components().sizeOf(node);
+    }
 
-        N start = nodes.keySet().stream()
-                .findFirst()
-                .get();
+    public int getComponentCount() {
+        return components().count();
+    }
 
-        return breadthFirstTraversal(start)
-                .size() == nodes.size();
+    /**
+     * @return the connected components, largest first
+     */
+    public List<Set<N>> getComponents() {
+        List<Set<N>> result = new ArrayList<>(components().sets().values());
+        result.sort(Comparator.comparingInt(Set<N>::size).reversed());
+
+        return result;
     }
 
+    /**
+     * Runs Dijkstra's algorithm which stops expanding once distances exceed maxRange, so the cost
+     * depends on the size of the neighbourhood rather than on the size of the graph.
+     * @return nodes within maxRange of the given node ordered by distance, without the node itself
+     */
     public List<N> nodesWithinRangeOf(N node, int maxRange) {
-        Map<N, Integer> distance = shortestPath(node, node, true).getLowestCosts();
+        List<N> result = new ArrayList<>();
+
+        visitWithinRange(node, maxRange, (settled, __) -> {
+            if(!settled.equals(node)) {
+                result.add(settled);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Runs the same search as {@link #nodesWithinRangeOf(Object, int)} and reports each node within
+     * maxRange to the listener as it is settled, starting with the node itself at distance 0. Aggregates
+     * over the neighbourhood are computed in the one traversal without collecting it first.
+     */
+    public void visitWithinRange(N node, int maxRange, TraversalListener<N> listener) {
+        QueryStats<N> stats = startQuery(QueryType.NODES_WITHIN_RANGE, SearchStrategy.DIJKSTRA, node, null);
+
+        measured(stats, () -> {
+            dijkstra(node, maxRange, new HashMap<>(), stats, (settled, distance) -> {
+                listener.onVisit(settled, distance);
+                return false;
+            });
+
+            return null;
+        });
+    }
+
+    /**
+     * Finds the nodes nearest to the given node by running Dijkstra's algorithm which stops as soon as
+     * the k-th node accepted by the filter is settled, so no range has to be guessed up front.
+     * @param k maximum number of nodes to return
+     * @param filter nodes to consider, e.g. {@code node -> true} for all
+     * @return at most k accepted nodes without the node itself, mapped to their distance in increasing order
+     */
+    public Map<N, Integer> nearestNodes(N node, int k, Predicate<? super N> filter) {
+        if(k < 0) {
+            throw new IllegalArgumentException("Number of nodes cannot be negative.");
+        }
+
+        QueryStats<N> stats = startQuery(QueryType.NEAREST_NODES, SearchStrategy.DIJKSTRA, node, null);
+
+        return measured(stats, () -> {
+            Map<N, Integer> result = new LinkedHashMap<>(Math.min(k, nodes.size()) * 4 / 3 + 1);
+
+            if(k > 0) {
+                dijkstra(node, Integer.MAX_VALUE, new HashMap<>(), stats, (settled, distance) -> {
+                    if(!settled.equals(node) && filter.test(settled)) {
+                        result.put(settled, distance);
+                    }
 
-        return distance.entrySet().stream()
-                .filter(nodeEntry -> nodeEntry.getValue() <= maxRange)
-                .filter(nodeEntry -> ! nodeEntry.getKey().equals(node))
-                .map(Map.Entry::getKey)
-                .collect(toList());
+                    return result.size() == k;
+                });
+            }
+
+            return result;
+        });
     }
 
     /**
@@ -105,6 +466,16 @@ public class Graph <N> {
      * @return a mapping for each note to whether it was visited or not
      */
     public Map<N, Integer> breadthFirstTraversal(N start) {
+        return breadthFirstTraversal(start, TraversalListener.none());
+    }
+
+    /**
+     * Does a breadth first traversal over the graph and reports each visited node to the listener.
+     * @param start start node
+     * @param listener notified of each node when it is visited
+     * @return a mapping for each visited node to its weighted distance, in visiting order
+     */
+    public Map<N, Integer> breadthFirstTraversal(N start, TraversalListener<N> listener) {
         Deque<N> queue = new ArrayDeque<>();
         Map<N, Integer> visited = new LinkedHashMap<>();
 
@@ -113,12 +484,13 @@ public class Graph <N> {
 
         while (!queue.isEmpty()) {
             N current = queue.pollFirst();
+            int currentDistance = visited.get(current);
 
-            System.out.println("vertex " + current.toString());
+            listener.onVisit(current, currentDistance);
 
-            nodes.get(current).forEach((vertex, distance) -> {
+            nodes.getOrDefault(current, emptyMap()).forEach((vertex, distance) -> {
                 if(!visited.containsKey(vertex)) {
-                    visited.put(vertex, visited.get(current) + distance);
+                    visited.put(vertex, currentDistance + distance);
                     queue.add(vertex);
                 }
             });
@@ -127,11 +499,40 @@ public class Graph <N> {
         return visited;
     }
 
+    /**
+     * Breadth first traversal which only counts the nodes reachable from the start node,
+     * without computing distances.
+     * @param start start node
+     * @return number of reachable nodes, including the start node
+     */
+    public int countReachable(N start) {
+        Deque<N> queue = new ArrayDeque<>();
+        Set<N> visited = new HashSet<>();
+
+        visited.add(start);
+        queue.add(start);
+
+        while (!queue.isEmpty()) {
+            for (N vertex : nodes.getOrDefault(queue.pollFirst(), emptyMap()).keySet()) {
+                if(visited.add(vertex)) {
+                    queue.add(vertex);
+                }
+            }
+        }
+
+        return visited.size();
+    }
+
     /**
      * Implementation of Dijkstra's algorithm to find the lowest cost path from source
      * to destination.
      * Supports efficient search that stops when destination node is reached. Also supports
-     * full search which stops when all nodes were visited.
+     * full search which stops when all reachable nodes were visited.
+     * The next node to visit is taken from a binary heap, so a search costs O((V + E) log V).
+     * Nodes never reached by the search are not part of the lowest costs mapping.
+     * The search records the predecessor of each reached node, so the result only holds
+     * the nodes along the route from source to destination.
+     * When a {@link ShortestPathCache} is attached, results are shared and their lowest costs are read only.
      *
      * @param source node
      * @param dest node
@@ -141,39 +542,235 @@ public class Graph <N> {
      *         considering weighted edges
      */
     public ShortestPath<N> shortestPath(N source, N dest, boolean fullSearch) {
-        final Set<N> visited = new LinkedHashSet<>();
-        Map<N, Integer> distance = nodes.keySet().stream()
-                .collect(toMap(identity(), __ -> Integer.MAX_VALUE));
+        if(!fullSearch) {
+            return shortestPath(source, dest, SearchStrategy.DIJKSTRA);
+        }
+
+        QueryStats<N> stats = startQuery(QueryType.FULL_SEARCH, SearchStrategy.DIJKSTRA, source, dest);
+
+        return measured(stats, () -> cachedSearch(source, dest, stats, null,
+                predecessors -> dijkstra(source, Integer.MAX_VALUE, predecessors, stats, (settled, __) -> false)));
+    }
+
+    /**
+     * Full search on a snapshot of the graph which relaxes edges in parallel on the pool, see
+     * {@link CsrGraph#shortestPath(Object, Object, ForkJoinPool)}. Lowest costs are the same as with
+     * {@link #shortestPath(Object, Object, boolean)}. The snapshot is shared with {@link #freeze()}.
+     * @param pool pool relaxing the edges
+     */
+    public ShortestPath<N> shortestPath(N source, N dest, ForkJoinPool pool) {
+        return freeze().shortestPath(source, dest, pool);
+    }
+
+    /**
+     * Finds the lowest cost path from source to destination with the given algorithm. All strategies
+     * return the same cost and route as {@link #shortestPath(Object, Object, boolean)} without full
+     * search; lowest costs hold at least the nodes of the route.
+     *
+     * @param source node
+     * @param dest node
+     * @param strategy algorithm used for the search
+     * @return shortest distance through graph from source to destination
+     *         considering weighted edges
+     */
+    public ShortestPath<N> shortestPath(N source, N dest, SearchStrategy strategy) {
+        QueryStats<N> stats = startQuery(QueryType.SHORTEST_PATH, strategy, source, dest);
+
+        return measured(stats, () -> {
+            switch (strategy) {
+                case A_STAR:
+                    Heuristic<N> currentHeuristic = heuristic;
+                    return cachedSearch(source, dest, stats, dest, predecessors ->
+                            AStarSearch.search(nodes, source, dest, currentHeuristic, predecessors, stats));
+                case BIDIRECTIONAL:
+                    return cachedSearch(source, dest, stats, dest,
+                            predecessors -> BidirectionalDijkstra.search(nodes, source, dest, predecessors, stats));
+                case DIJKSTRA:
+                default:
+                    return cachedSearch(source, dest, stats, dest,
+                            predecessors -> dijkstra(source, Integer.MAX_VALUE, predecessors, stats,
+                                    (settled, __) -> settled.equals(dest)));
+            }
+        });
+    }
+
+    /**
+     * @return the stats of the query when metrics are attached, otherwise null
+     */
+    private QueryStats<N> startQuery(QueryType type, SearchStrategy strategy, N source, N dest) {
+        return metrics == null ? null : new QueryStats<>(type, strategy, source, dest);
+    }
+
+    /**
+     * Runs the query, timing it and reporting its cost when it is measured.
+     * @param stats stats of the query, or null when it is not measured
+     */
+    private <R> R measured(QueryStats<N> stats, Supplier<R> query) {
+        if(stats == null) {
+            return query.get();
+        }
+
+        stats.start();
+        R result = query.get();
+        stats.stop();
+
+        GraphMetrics<N> currentMetrics = metrics;
+
+        if(currentMetrics != null) {
+            currentMetrics.onQuery(stats);
+        }
+
+        return result;
+    }
+
+    /**
+     * Answers a search from the attached cache when possible, otherwise runs it and caches the result.
+     * @param stats stats of the query, or null when it is not measured
+     * @param cachedDest destination the search stops at, or null for a full search
+     * @param search fills the given predecessors and returns the distances of the search
+     */
+    private ShortestPath<N> cachedSearch(N source, N dest, QueryStats<N> stats, N cachedDest,
+                                         Function<Map<N, N>, Map<N, Integer>> search) {
+        ShortestPathCache<N> currentCache = cache;
+        long generation = 0;
+
+        if(currentCache != null) {
+            ShortestPathCache.CachedSearch<N> cached = currentCache.get(source, cachedDest);
+
+            if(cached != null) {
+                if(stats != null) {
+                    stats.cacheHit = true;
+                }
+
+                return toShortestPath(dest, cached.distance, cached.predecessors);
+            }
+
+            generation = currentCache.generation();
+        }
+
+        Map<N, N> predecessors = new HashMap<>();
+        Map<N, Integer> distance = search.apply(predecessors);
+
+        if(currentCache != null) {
+            distance = Collections.unmodifiableMap(distance);
+            predecessors = Collections.unmodifiableMap(predecessors);
+            currentCache.put(source, cachedDest, distance, predecessors, generation);
+        }
+
+        return toShortestPath(dest, distance, predecessors);
+    }
+
+    private ShortestPath<N> toShortestPath(N dest, Map<N, Integer> distance, Map<N, N> predecessors) {
+        ShortestPath<N> shortestPath = new ShortestPath<>();
+        shortestPath.setCost(distance.getOrDefault(dest, Integer.MAX_VALUE));
+        shortestPath.setLowestCosts(distance);
+        shortestPath.setPredecessors(dest, predecessors);
+
+        return shortestPath;
+    }
+
+    /**
+     * Dijkstra's algorithm from the source which never reaches nodes further than maxRange.
+     * @param predecessors filled with the predecessor of each reached node
+     * @param stats counts the steps of the search, or null
+     * @param onSettled called for each node once its distance is final, by increasing distance;
+     *                  the search stops when it returns true
+     * @return distance of each reached node
+     */
+    private Map<N, Integer> dijkstra(N source, int maxRange, Map<N, N> predecessors, QueryStats<N> stats,
+                                     BiPredicate<N, Integer> onSettled) {
+        final Set<N> visited = new HashSet<>();
+        final Map<N, Integer> distance = new HashMap<>();
+        final PriorityQueue<Map.Entry<N, Integer>> queue = new PriorityQueue<>(Map.Entry.comparingByValue());
+        int settledNodes = 0;
+        int relaxedEdges = 0;
+        int heapOperations = 1;
 
         distance.put(source, 0);
+        queue.add(Map.entry(source, 0));
+
+        while (!queue.isEmpty()) {
+            Map.Entry<N, Integer> next = queue.poll();
+            N current = next.getKey();
+            int currentDistance = next.getValue();
 
-        while (!visited.contains(dest)
-                || ( fullSearch && visited.size() != nodes.size())) {
-            N current = distance.entrySet().stream()
-                .filter(e -> !visited.contains(e.getKey()))
-                .min(Comparator.comparingInt(Map.Entry::getValue))
-                .map(Map.Entry::getKey)
-                .orElseThrow(() -> new RuntimeException("Expected to find a node here"));
+            heapOperations++;
+
+            // The heap keeps outdated entries instead of decreasing keys, skip them
+            if (!visited.add(current)) {
+                continue;
+            }
+
+            settledNodes++;
+
+            if (onSettled.test(current, currentDistance)) {
+                break;
+            }
+
+            for (Map.Entry<N, Integer> edge : nodes.getOrDefault(current, emptyMap()).entrySet()) {
+                N child = edge.getKey();
+
+                relaxedEdges++;
 
-            nodes.get(current).forEach((child, dist) -> {
                 if (!visited.contains(child)) {
-                    int alternate = distance.get(current) + dist;
+                    int alternate = currentDistance + edge.getValue();
+                    Integer known = distance.get(child);
 
-                    if (alternate < distance.get(child)) {
+                    if (alternate <= maxRange && (known == null || alternate < known)) {
                         distance.put(child, alternate);
+                        predecessors.put(child, current);
+                        queue.add(Map.entry(child, alternate));
+                        heapOperations++;
                     }
                 }
-            });
+            }
+        }
 
-            visited.add(current);
+        if (stats != null) {
+            stats.addSteps(settledNodes, relaxedEdges, heapOperations);
         }
 
-        ShortestPath<N> shortestPath = new ShortestPath<>();
-        shortestPath.setCost(distance.get(dest));
-        shortestPath.setNodes(visited);
-        shortestPath.setLowestCosts(distance);
+        return distance;
+    }
 
-        return shortestPath;
+    /**
+     * Creates an immutable snapshot of the graph in compressed sparse row layout. Later changes to
+     * this graph are not visible in the snapshot. The snapshot is kept and handed out again until the
+     * graph changes, so repeated calls on an unchanged graph are free.
+     * @return the snapshot, suited for graphs which are built once and queried many times
+     */
+    public CsrGraph<N> freeze() {
+        long taken = changes.get();
+        Snapshot<N> current = snapshot;
+
+        if(current != null && current.changes == taken) {
+            return current.graph;
+        }
+
+        CsrGraph<N> frozen = CsrGraph.of(nodes);
+
+        // A change that came in meanwhile may be half in the snapshot, so it is not kept
+        if(changes.get() == taken) {
+            snapshot = new Snapshot<>(taken, frozen);
+        }
+
+        return frozen;
+    }
+
+    /**
+     * Computes a minimum spanning forest on a snapshot of the graph, sorting the edges in parallel,
+     * see {@link CsrGraph#minimumSpanningForest(boolean)}.
+     */
+    public CsrGraph<N> minimumSpanningForest() {
+        return freeze().minimumSpanningForest(true);
+    }
+
+    /**
+     * Computes the lowest costs from every source to every destination on a snapshot of the graph,
+     * see {@link CsrGraph#distanceMatrix(List, List, ForkJoinPool)}. Runs on the common pool.
+     */
+    public DistanceMatrix<N> distanceMatrix(List<N> sources, List<N> destinations) {
+        return freeze().distanceMatrix(sources, destinations, ForkJoinPool.commonPool());
     }
 
     public boolean isEmpty() {
@@ -183,4 +780,17 @@ public class Graph <N> {
     public int getSize() {
         return nodes.size();
     }
+
+    /**
+     * Snapshot taken by {@link #freeze()} when the graph had seen the given number of changes.
+     */
+    private static class Snapshot<N> {
+        final long changes;
+        final CsrGraph<N> graph;
+
+        Snapshot(long changes, CsrGraph<N> graph) {
+            this.changes = changes;
+            this.graph = graph;
+        }
+    }
 }
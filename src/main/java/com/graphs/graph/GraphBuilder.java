@@ -0,0 +1,223 @@
+package com.graphs.graph;
+
+import java.nio.IntBuffer;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+
+/**
+ * Collects edges in bulk and loads them into a {@link Graph} or an {@link IntGraph} at once.
+ * Edges are validated as they are added and kept in int arrays over dense node ids. Loading
+ * buckets them by node and creates each adjacency map presized to its final degree, so no map
+ * is ever rehashed. When an edge is added more than once, the last weight wins as with
+ * {@link Graph#addEdge(Object, Object, int)}.
+ * @param <N> the generic type of nodes.
+ */
+public class GraphBuilder<N> {
+    private final Map<N, Integer> ids;
+    private final List<N> nodes;
+    private int[] from;
+    private int[] to;
+    private int[] weights;
+    private int edgeCount;
+
+    public GraphBuilder() {
+        this(16, 16);
+    }
+
+    /**
+     * @param expectedNodes number of distinct nodes the storage is presized for
+     * @param expectedEdges number of edges the storage is presized for
+     */
+    public GraphBuilder(int expectedNodes, int expectedEdges) {
+        if(expectedNodes < 0 || expectedEdges < 0) {
+            throw new IllegalArgumentException("Expected counts cannot be negative.");
+        }
+
+        ids = new HashMap<>(expectedNodes * 4 / 3 + 1);
+        nodes = new ArrayList<>(expectedNodes);
+        from = new int[Math.max(1, expectedEdges)];
+        to = new int[from.length];
+        weights = new int[from.length];
+    }
+
+    public GraphBuilder<N> addNode(N node) {
+        if(node == null) {
+            throw new IllegalArgumentException("No null nodes allowed.");
+        }
+
+        idOf(node);
+        return this;
+    }
+
+    public GraphBuilder<N> addEdge(N from, N to, int weight) {
+        if(from == null || to == null) {
+            throw new IllegalArgumentException("No null nodes allowed.");
+        }
+
+        if(from.equals(to)) {
+            throw new IllegalArgumentException("Cannot connect same node with an edge.");
+        }
+
+        if(weight <= 0) {
+            throw new IllegalArgumentException("Weight cannot be negative or 0.");
+        }
+
+        if(edgeCount == this.from.length) {
+            int capacity = edgeCount * 2;
+
+            this.from = Arrays.copyOf(this.from, capacity);
+            this.to = Arrays.copyOf(this.to, capacity);
+            this.weights = Arrays.copyOf(this.weights, capacity);
+        }
+
+        this.from[edgeCount] = idOf(from);
+        this.to[edgeCount] = idOf(to);
+        this.weights[edgeCount] = weight;
+        edgeCount++;
+
+        return this;
+    }
+
+    /**
+     * Adds the edges {@code from[i] - to[i]} weighted {@code weights[i]}.
+     */
+    public GraphBuilder<N> addEdges(N[] from, N[] to, int[] weights) {
+        if(from.length != to.length || from.length != weights.length) {
+            throw new IllegalArgumentException("Edge arrays must have the same length.");
+        }
+
+        for (int i = 0; i < from.length; i++) {
+            addEdge(from[i], to[i], weights[i]);
+        }
+
+        return this;
+    }
+
+    /**
+     * Adds an edge for each element of the stream, in encounter order.
+     */
+    public <E> GraphBuilder<N> addEdges(Stream<E> edges, Function<? super E, N> from, Function<? super E, N> to,
+                                        ToIntFunction<? super E> weight) {
+        edges.forEachOrdered(edge -> addEdge(from.apply(edge), to.apply(edge), weight.applyAsInt(edge)));
+        return this;
+    }
+
+    /**
+     * Adds all nodes and edges of the snapshot, e.g. to turn it back into a modifiable {@link Graph}.
+     */
+    public GraphBuilder<N> addGraph(CsrGraph<N> snapshot) {
+        IntBuffer offsets = snapshot.offsets();
+        IntBuffer targets = snapshot.targets();
+        IntBuffer weights = snapshot.weights();
+
+        for (int id = 0; id < snapshot.getSize(); id++) {
+            addNode(snapshot.nodeOf(id));
+        }
+
+        for (int id = 0; id < snapshot.getSize(); id++) {
+            for (int edge = offsets.get(id); edge < offsets.get(id + 1); edge++) {
+                // Each edge is stored in both directions, add it once
+                if(targets.get(edge) > id) {
+                    addEdge(snapshot.nodeOf(id), snapshot.nodeOf(targets.get(edge)), weights.get(edge));
+                }
+            }
+        }
+
+        return this;
+    }
+
+    public int getNodeCount() {
+        return nodes.size();
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * @param parallel whether the adjacency maps of the nodes are created in parallel
+     * @return a new graph holding the collected nodes and edges
+     */
+    public Graph<N> build(boolean parallel) {
+        Graph<N> graph = new Graph<>(new HashMap<>(nodes.size() * 4 / 3 + 1), Graph::newAdjacency);
+        addTo(graph, parallel);
+        return graph;
+    }
+
+    /**
+     * Adds the collected nodes and edges to the graph, keeping its existing edges unless they are
+     * collected again. Queries running on a {@link ConcurrentGraph} meanwhile may see part of the edges.
+     * @param parallel whether the adjacency maps of the nodes are created in parallel
+     * @return the collected nodes which were not in the graph before
+     */
+    public List<N> addTo(Graph<N> graph, boolean parallel) {
+        Buckets buckets = bucket();
+        return graph.addAll(nodes, buckets.offsets, buckets.targets, buckets.weights, parallel);
+    }
+
+    /**
+     * @return the collected nodes, in id order
+     */
+    List<N> nodes() {
+        return nodes;
+    }
+
+    /**
+     * Buckets both directions of every edge by their source node, keeping the order edges were added in.
+     */
+    Buckets bucket() {
+        int size = nodes.size();
+        int[] offsets = new int[size + 1];
+
+        for (int i = 0; i < edgeCount; i++) {
+            offsets[from[i] + 1]++;
+            offsets[to[i] + 1]++;
+        }
+
+        for (int id = 0; id < size; id++) {
+            offsets[id + 1] += offsets[id];
+        }
+
+        int[] targets = new int[2 * edgeCount];
+        int[] targetWeights = new int[2 * edgeCount];
+        int[] fill = Arrays.copyOf(offsets, size);
+
+        for (int i = 0; i < edgeCount; i++) {
+            targets[fill[from[i]]] = to[i];
+            targetWeights[fill[from[i]]++] = weights[i];
+            targets[fill[to[i]]] = from[i];
+            targetWeights[fill[to[i]]++] = weights[i];
+        }
+
+        return new Buckets(offsets, targets, targetWeights);
+    }
+
+    private int idOf(N node) {
+        Integer id = ids.get(node);
+
+        if(id == null) {
+            id = nodes.size();
+            ids.put(node, id);
+            nodes.add(node);
+        }
+
+        return id;
+    }
+
+    /**
+     * Edges of the collected nodes in compressed sparse row layout, over the ids of the nodes.
+     */
+    static final class Buckets {
+        final int[] offsets;
+        final int[] targets;
+        final int[] weights;
+
+        private Buckets(int[] offsets, int[] targets, int[] weights) {
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.graphs.graph;
+
+/**
+ * Receives the cost of each {@link Graph} query while attached with {@link Graph#setMetrics(GraphMetrics)}.
+ * Called on the querying thread right after the query, so implementations should be quick and thread safe.
+ * @param <N> the generic type of nodes.
+ */
+@FunctionalInterface
+public interface GraphMetrics<N> {
+    void onQuery(QueryStats<N> stats);
+}
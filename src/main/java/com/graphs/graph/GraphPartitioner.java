@@ -0,0 +1,277 @@
+package com.graphs.graph;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Splits a graph into a given number of parts of about equal size with few edges between them, e.g. to
+ * spread a graph which no longer fits one heap over several {@link GraphShard}s.
+ * <p>
+ * Parts are first grown breadth first from seeds spread over the graph, each seed being the node furthest
+ * in hops from the seeds before it, so a part stops growing once it holds its share of the nodes and the
+ * parts come out compact. Label propagation then refines them: each node in turn moves to the part most of
+ * its edges lead to, as long as that part stays below its capacity, until a round moves no node or the
+ * rounds run out. Moves either cut fewer edges, cut as many while evening out the part sizes, or take nodes
+ * out of a part over capacity.
+ */
+public class GraphPartitioner {
+    private int maxRounds = 20;
+    private double imbalance = 0.05;
+
+    /**
+     * @param maxRounds maximum number of label propagation rounds, 0 to keep the initial parts
+     */
+    public GraphPartitioner setMaxRounds(int maxRounds) {
+        if(maxRounds < 0) {
+            throw new IllegalArgumentException("Rounds cannot be negative.");
+        }
+
+        this.maxRounds = maxRounds;
+        return this;
+    }
+
+    /**
+     * @param imbalance fraction by which a part may grow beyond an equal share of the nodes
+     */
+    public GraphPartitioner setImbalance(double imbalance) {
+        if(imbalance < 0) {
+            throw new IllegalArgumentException("Imbalance cannot be negative.");
+        }
+
+        this.imbalance = imbalance;
+        return this;
+    }
+
+    public <N> Partition<N> partition(CsrGraph<N> graph, int parts) {
+        if(parts <= 0) {
+            throw new IllegalArgumentException("Number of parts must be positive.");
+        }
+
+        int size = graph.getSize();
+        IntBuffer offsets = graph.offsets();
+        IntBuffer targets = graph.targets();
+        int[] partSizes = new int[parts];
+        int share = (size + parts - 1) / parts;
+        int[] partOf = grow(offsets, targets, size, spreadSeeds(offsets, targets, size, parts), share, partSizes);
+        int capacity = Math.max(share, (int) Math.ceil(share * (1 + imbalance)));
+        // Edges from the current node into each part, reset through the list of parts touched
+        int[] edgesInto = new int[parts];
+        int[] touched = new int[parts];
+
+        for (int round = 0; round < maxRounds; round++) {
+            int moves = 0;
+
+            for (int id = 0; id < size; id++) {
+                int touchedCount = 0;
+
+                for (int edge = offsets.get(id); edge < offsets.get(id + 1); edge++) {
+                    int part = partOf[targets.get(edge)];
+
+                    if(edgesInto[part]++ == 0) {
+                        touched[touchedCount++] = part;
+                    }
+                }
+
+                int current = partOf[id];
+                int best = current;
+                boolean overfull = partSizes[current] > capacity;
+
+                for (int i = 0; i < touchedCount; i++) {
+                    int part = touched[i];
+
+                    if(part == current || partSizes[part] >= capacity) {
+                        continue;
+                    }
+
+                    // A part over capacity gives nodes away to its neighbours even when that cuts more edges
+                    if(best == current ? overfull || isBetter(part, current, edgesInto, partSizes)
+                            : isBetter(part, best, edgesInto, partSizes)) {
+                        best = part;
+                    }
+                }
+
+                for (int i = 0; i < touchedCount; i++) {
+                    edgesInto[touched[i]] = 0;
+                }
+
+                if(best != current && partSizes[current] > 1) {
+                    partOf[id] = best;
+                    partSizes[current]--;
+                    partSizes[best]++;
+                    moves++;
+                }
+            }
+
+            if(moves == 0) {
+                break;
+            }
+        }
+
+        return new Partition<>(graph, parts, partOf);
+    }
+
+    /**
+     * @return whether moving a node into the candidate part rather than the other one cuts fewer edges, or
+     *         as many edges while evening out the sizes of the parts
+     */
+    private static boolean isBetter(int candidate, int other, int[] edgesInto, int[] partSizes) {
+        return edgesInto[candidate] > edgesInto[other]
+                || (edgesInto[candidate] == edgesInto[other] && partSizes[candidate] + 1 < partSizes[other]);
+    }
+
+    /**
+     * @return up to the given number of ids, each furthest in hops from the ones before it; nodes which
+     *         cannot be reached from earlier seeds are taken first
+     */
+    private static int[] spreadSeeds(IntBuffer offsets, IntBuffer targets, int size, int parts) {
+        int[] seeds = new int[Math.min(parts, size)];
+        int[] hops = new int[size];
+        int[] queue = new int[size];
+
+        if(size == 0) {
+            return seeds;
+        }
+
+        // The first seed is the node furthest from node 0, usually at the rim of the graph
+        Arrays.fill(hops, Integer.MAX_VALUE);
+        seeds[0] = shortenHops(offsets, targets, 0, hops, queue);
+        Arrays.fill(hops, Integer.MAX_VALUE);
+
+        for (int i = 0; i < seeds.length; i++) {
+            if(i > 0) {
+                seeds[i] = furthest(hops);
+            }
+
+            shortenHops(offsets, targets, seeds[i], hops, queue);
+        }
+
+        return seeds;
+    }
+
+    /**
+     * Lowers the hop counts of the nodes reachable from the start to their hops from it where that is fewer.
+     * @return the last node reached, which is furthest from the start
+     */
+    private static int shortenHops(IntBuffer offsets, IntBuffer targets, int start, int[] hops, int[] queue) {
+        int head = 0;
+        int tail = 0;
+
+        hops[start] = 0;
+        queue[tail++] = start;
+
+        while (head < tail) {
+            int current = queue[head++];
+
+            for (int edge = offsets.get(current); edge < offsets.get(current + 1); edge++) {
+                int child = targets.get(edge);
+
+                if(hops[current] + 1 < hops[child]) {
+                    hops[child] = hops[current] + 1;
+                    queue[tail++] = child;
+                }
+            }
+        }
+
+        return queue[tail - 1];
+    }
+
+    private static int furthest(int[] hops) {
+        int result = 0;
+
+        for (int id = 0; id < hops.length; id++) {
+            if(hops[id] > hops[result]) {
+                result = id;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Grows a part breadth first from each seed until it holds its share of the nodes. Nodes left over,
+     * when parts got boxed in by full ones, join the first part that reaches them; nodes no seed reaches
+     * join the smallest part.
+     * @return part of each id
+     */
+    private static int[] grow(IntBuffer offsets, IntBuffer targets, int size, int[] seeds, int share,
+                              int[] partSizes) {
+        int[] partOf = new int[size];
+        int[] queue = new int[size];
+        int tail = 0;
+
+        Arrays.fill(partOf, -1);
+
+        for (int part = 0; part < seeds.length; part++) {
+            partOf[seeds[part]] = part;
+            partSizes[part]++;
+            queue[tail++] = seeds[part];
+        }
+
+        for (boolean bounded : new boolean[] {true, false}) {
+            int head = 0;
+
+            while (head < tail) {
+                int current = queue[head++];
+                int part = partOf[current];
+
+                for (int edge = offsets.get(current); edge < offsets.get(current + 1); edge++) {
+                    int child = targets.get(edge);
+
+                    if(partOf[child] == -1 && (!bounded || partSizes[part] < share)) {
+                        partOf[child] = part;
+                        partSizes[part]++;
+                        queue[tail++] = child;
+                    }
+                }
+            }
+
+            // Start over from every assigned node to hand out what the full parts left over
+            if(bounded && tail < size) {
+                tail = 0;
+
+                for (int id = 0; id < size; id++) {
+                    if(partOf[id] != -1) {
+                        queue[tail++] = id;
+                    }
+                }
+            }
+        }
+
+        for (int id = 0; id < size; id++) {
+            if(partOf[id] != -1) {
+                continue;
+            }
+
+            int smallest = 0;
+
+            for (int part = 1; part < partSizes.length; part++) {
+                if(partSizes[part] < partSizes[smallest]) {
+                    smallest = part;
+                }
+            }
+
+            // Keep the whole component together
+            int head = 0;
+            tail = 0;
+            partOf[id] = smallest;
+            partSizes[smallest]++;
+            queue[tail++] = id;
+
+            while (head < tail) {
+                int current = queue[head++];
+
+                for (int edge = offsets.get(current); edge < offsets.get(current + 1); edge++) {
+                    int child = targets.get(edge);
+
+                    if(partOf[child] == -1) {
+                        partOf[child] = smallest;
+                        partSizes[smallest]++;
+                        queue[tail++] = child;
+                    }
+                }
+            }
+        }
+
+        return partOf;
+    }
+}
@@ -0,0 +1,91 @@
+package com.graphs.graph;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * {@link Shard} held in this process, cut out of a snapshot by {@link Partition#shard(int, ForkJoinPool)}.
+ * The lowest costs between the boundary nodes are computed once when the shard is created.
+ * @param <N> the generic type of nodes.
+ */
+public class GraphShard<N> implements Shard<N> {
+    private final int id;
+    private final CsrGraph<N> graph;
+    private final List<N> boundary;
+    private final Map<N, Map<N, Integer>> cutEdges;
+    private final DistanceMatrix<N> boundaryDistances;
+    private final ForkJoinPool pool;
+
+    GraphShard(int id, CsrGraph<N> graph, List<N> boundary, Map<N, Map<N, Integer>> cutEdges, ForkJoinPool pool) {
+        this.id = id;
+        this.graph = graph;
+        this.boundary = Collections.unmodifiableList(boundary);
+        this.cutEdges = Collections.unmodifiableMap(cutEdges);
+        this.pool = pool;
+        this.boundaryDistances = graph.distanceMatrix(boundary, boundary, pool);
+    }
+
+    @Override
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return the nodes and edges of the shard
+     */
+    public CsrGraph<N> getGraph() {
+        return graph;
+    }
+
+    @Override
+    public List<N> getBoundaryNodes() {
+        return boundary;
+    }
+
+    @Override
+    public DistanceMatrix<N> getBoundaryDistances() {
+        return boundaryDistances;
+    }
+
+    @Override
+    public Map<N, Map<N, Integer>> getCutEdges() {
+        return cutEdges;
+    }
+
+    @Override
+    public int[] distancesToBoundary(N node) {
+        if(boundary.isEmpty()) {
+            graph.idOf(node);
+            return new int[0];
+        }
+
+        DistanceMatrix<N> row = graph.distanceMatrix(List.of(node), boundary, pool);
+        int[] distances = new int[boundary.size()];
+
+        for (int column = 0; column < distances.length; column++) {
+            distances[column] = row.get(0, column);
+        }
+
+        return distances;
+    }
+
+    @Override
+    public ShortestPath<N> shortestPath(N from, N to) {
+        ShortestPath<N> found = graph.shortestPath(from, to, false);
+        Map<N, Integer> routeCosts = new HashMap<>();
+
+        for (N node : found.getNodes()) {
+            routeCosts.put(node, found.getLowestCosts().get(node));
+        }
+
+        ShortestPath<N> shortestPath = new ShortestPath<>();
+        shortestPath.setCost(found.getCost());
+        shortestPath.setLowestCosts(routeCosts);
+        shortestPath.setNodes(found.getNodes());
+
+        return shortestPath;
+    }
+}
@@ -0,0 +1,18 @@
+package com.graphs.graph;
+
+/**
+ * Estimate of the remaining cost from a node to the destination, guiding A* searches.
+ * Estimates must never exceed the real lowest cost, otherwise A* may return longer routes.
+ * @param <N> the generic type of nodes.
+ */
+@FunctionalInterface
+public interface Heuristic<N> {
+    int estimate(N node, N dest);
+
+    /**
+     * @return heuristic estimating 0 for every node, which turns A* into Dijkstra's algorithm
+     */
+    static <N> Heuristic<N> none() {
+        return (node, dest) -> 0;
+    }
+}
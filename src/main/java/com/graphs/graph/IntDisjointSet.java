@@ -0,0 +1,182 @@
+package com.graphs.graph;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Union-find over dense int ids, tracking connected components as edges are added.
+ * Parents and set sizes are kept in chunks of atomic int arrays, so the forest grows without copying. Lookups
+ * take no lock and halve the paths they walk by compare and set. Roots are linked by size, the smaller set
+ * below the larger one, under a lock which also guards the size kept at the root; merging ids of the same set
+ * needs no lock. Operations cost amortized O(&alpha;(n)).
+ */
+class IntDisjointSet {
+    static final int CHUNK_BITS = 12;
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final AtomicInteger count = new AtomicInteger();
+    /**
+     * Chunk {@code i} holds ids from {@code i * CHUNK_SIZE}. Replaced under the lock of the set when a chunk
+     * is added, before any id of the chunk is added.
+     */
+    private volatile Chunk[] chunks = new Chunk[0];
+    private final Object linkLock = new Object();
+    /**
+     * Incremented before and after each link, so it is odd while a root is being linked and its size moved.
+     */
+    private volatile int links;
+
+    /**
+     * Adds the id as a singleton set. Each id is added once, before it is handed to any other method.
+     */
+    void add(int id) {
+        Chunk chunk = chunkFor(id);
+
+        chunk.sizes.set(id & CHUNK_MASK, 1);
+        chunk.parents.set(id & CHUNK_MASK, id);
+        count.incrementAndGet();
+    }
+
+    /**
+     * Merges the sets of both ids.
+     */
+    void union(int first, int second) {
+        if(find(first) == find(second)) {
+            return;
+        }
+
+        synchronized (linkLock) {
+            // Roots are only linked under the lock, so both roots stay roots until it is released
+            int firstRoot = find(first);
+            int secondRoot = find(second);
+
+            if(firstRoot == secondRoot) {
+                return;
+            }
+
+            int firstSize = sizeAt(firstRoot);
+            int secondSize = sizeAt(secondRoot);
+
+            if(firstSize > secondSize) {
+                int swap = firstRoot;
+                firstRoot = secondRoot;
+                secondRoot = swap;
+            }
+
+            links++;
+            chunk(secondRoot).sizes.set(secondRoot & CHUNK_MASK, firstSize + secondSize);
+            chunk(firstRoot).parents.set(firstRoot & CHUNK_MASK, secondRoot);
+            links++;
+            count.decrementAndGet();
+        }
+    }
+
+    boolean connected(int first, int second) {
+        while (true) {
+            int firstRoot = find(first);
+            int secondRoot = find(second);
+
+            if(firstRoot == secondRoot) {
+                return true;
+            }
+
+            // Only apart if the first root was not linked while the second was looked up
+            if(parentOf(firstRoot) == firstRoot) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Reads the size kept at the root of the set, again if a link was made meanwhile.
+     */
+    int sizeOf(int id) {
+        while (true) {
+            int seen = links;
+
+            if((seen & 1) == 0) {
+                int size = sizeAt(find(id));
+
+                if(links == seen) {
+                    return size;
+                }
+            }
+
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * @return number of disjoint sets
+     */
+    int count() {
+        return count.get();
+    }
+
+    /**
+     * @return the id at the root of the set of the given id; it changes when the set is merged
+     */
+    int find(int id) {
+        while (true) {
+            int parent = parentOf(id);
+
+            if(parent == id) {
+                return id;
+            }
+
+            int grandparent = parentOf(parent);
+
+            if(grandparent != parent) {
+                chunk(id).parents.compareAndSet(id & CHUNK_MASK, parent, grandparent);
+            }
+
+            id = grandparent;
+        }
+    }
+
+    private int sizeAt(int root) {
+        return chunk(root).sizes.get(root & CHUNK_MASK);
+    }
+
+    private int parentOf(int id) {
+        return chunk(id).parents.get(id & CHUNK_MASK);
+    }
+
+    private Chunk chunk(int id) {
+        return chunks[id >>> CHUNK_BITS];
+    }
+
+    private Chunk chunkFor(int id) {
+        int index = id >>> CHUNK_BITS;
+        Chunk[] current = chunks;
+
+        if(index < current.length && current[index] != null) {
+            return current[index];
+        }
+
+        synchronized (this) {
+            current = chunks;
+
+            if(index >= current.length) {
+                current = Arrays.copyOf(current, Math.max(index + 1, current.length * 2));
+            }
+
+            if(current[index] == null) {
+                current[index] = new Chunk();
+            }
+
+            chunks = current;
+            return current[index];
+        }
+    }
+
+    private static class Chunk {
+        final AtomicIntegerArray parents = new AtomicIntegerArray(CHUNK_SIZE);
+        /**
+         * Size of the set of each root, outdated for ids which are no roots.
+         */
+        final AtomicIntegerArray sizes = new AtomicIntegerArray(CHUNK_SIZE);
+    }
+}
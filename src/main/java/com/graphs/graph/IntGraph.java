@@ -0,0 +1,1398 @@
+package com.graphs.graph;
+
+import java.nio.IntBuffer;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+
+/**
+ * Weighted unidirected graph over int nodes which stores nothing boxed.
+ * Node keys are mapped to dense indices through an open addressing map and each node keeps its neighbours
+ * and weights in int arrays. Searches run over the indices with int heaps and marks, borrowing their working
+ * state from a pool, so they allocate nothing apart from their results. Offers the same operations as
+ * {@link Graph}.
+ * <p>
+ * Updates are serialized, queries take no lock and run concurrently with updates and with each other. The
+ * edges of a node are replaced as a whole when they change, so queries see each update to a node either
+ * completely or not at all; a query running during a bulk {@link #addAll(GraphBuilder)} may see part of it.
+ */
+public class IntGraph {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int INITIAL_DEGREE = 4;
+    /**
+     * Weight handed to trees for an edge which is absent before or after a change.
+     */
+    static final int NO_EDGE = 0;
+    static final int NO_NODE = -1;
+
+    private final Object updateLock = new Object();
+    /**
+     * Replaced when it is full and when the graph is cleared. Updates write the current one under the lock.
+     */
+    private volatile Nodes nodes = new Nodes(new IntIntMap(), INITIAL_CAPACITY, 0);
+    /**
+     * Incremented when an edge is removed, as the components can then only be rebuilt from scratch.
+     */
+    private volatile long removals;
+    private final List<IntShortestPathTree> trees = new CopyOnWriteArrayList<>();
+    private final ScratchPool<Search> searches = new ScratchPool<>(() -> new Search(INITIAL_CAPACITY));
+    private volatile ShortestPathCache<Integer> cache;
+    private volatile IntBinaryOperator heuristic = (node, dest) -> 0;
+    private volatile GraphMetrics<Integer> metrics;
+    /**
+     * Incremented on each change, after the edges are changed.
+     */
+    private final AtomicLong changes = new AtomicLong();
+    /**
+     * Handed out by {@link #freeze()} until the graph changes.
+     */
+    private volatile Snapshot snapshot;
+
+    /**
+     * Adds a node without edges. Adding a node which is already in the graph keeps its edges.
+     * @return whether the node was not in the graph before
+     */
+    public boolean addNode(int node) {
+        synchronized (updateLock) {
+            int size = nodes.size;
+
+            indexOf(node);
+
+            if(nodes.size == size) {
+                return false;
+            }
+
+            invalidateCache();
+            return true;
+        }
+    }
+
+    public void addEdge(int from, int to, int weight) {
+        if(from == to) {
+            throw new IllegalArgumentException("Cannot connect same node with an edge.");
+        }
+
+        if(weight <= 0) {
+            throw new IllegalArgumentException("Weight cannot be negative or 0.");
+        }
+
+        synchronized (updateLock) {
+            int fromIndex = indexOf(from);
+            int toIndex = indexOf(to);
+            Nodes current = nodes;
+            int oldWeight = addOneWayEdge(current, fromIndex, toIndex, weight);
+
+            addOneWayEdge(current, toIndex, fromIndex, weight);
+            current.components.set.union(fromIndex, toIndex);
+            edgeChanged(fromIndex, toIndex, oldWeight, weight);
+        }
+    }
+
+    /**
+     * Removes the edge between both nodes, keeping the nodes.
+     * @return whether there was such an edge
+     */
+    public boolean removeEdge(int from, int to) {
+        synchronized (updateLock) {
+            Nodes current = nodes;
+            int fromIndex = indexIn(current, from);
+            int toIndex = indexIn(current, to);
+
+            if(fromIndex == IntIntMap.MISSING || toIndex == IntIntMap.MISSING) {
+                return false;
+            }
+
+            int oldWeight = removeOneWayEdge(current, fromIndex, toIndex);
+
+            if(oldWeight == NO_EDGE) {
+                return false;
+            }
+
+            removeOneWayEdge(current, toIndex, fromIndex);
+            removals++;
+            edgeChanged(fromIndex, toIndex, oldWeight, NO_EDGE);
+
+            return true;
+        }
+    }
+
+    /**
+     * Changes the weight of an existing edge.
+     */
+    public void updateWeight(int from, int to, int weight) {
+        if(weight <= 0) {
+            throw new IllegalArgumentException("Weight cannot be negative or 0.");
+        }
+
+        synchronized (updateLock) {
+            Nodes current = nodes;
+            int fromIndex = indexIn(current, from);
+            int toIndex = indexIn(current, to);
+
+            if(fromIndex == IntIntMap.MISSING || toIndex == IntIntMap.MISSING
+                    || current.edges.get(fromIndex).positionOf(toIndex) < 0) {
+                throw new IllegalArgumentException("No edge between " + from + " and " + to + ".");
+            }
+
+            int oldWeight = addOneWayEdge(current, fromIndex, toIndex, weight);
+            addOneWayEdge(current, toIndex, fromIndex, weight);
+            edgeChanged(fromIndex, toIndex, oldWeight, weight);
+        }
+    }
+
+    /**
+     * Keeps the lowest costs and routes from the source up to date as edges are added, removed or reweighted,
+     * see {@link Graph#trackShortestPaths(Object)}. Trees are repaired by the update which changes an edge.
+     * @return the tree of lowest cost routes from the source
+     */
+    public IntShortestPathTree trackShortestPaths(int source) {
+        synchronized (updateLock) {
+            requireIndex(nodes, source);
+
+            IntShortestPathTree tree = new IntShortestPathTree(this, source);
+            trees.add(tree);
+            return tree;
+        }
+    }
+
+    /**
+     * Stops updating a tree returned by {@link #trackShortestPaths(int)}.
+     */
+    public void stopTracking(IntShortestPathTree tree) {
+        trees.remove(tree);
+    }
+
+    private void edgeChanged(int fromIndex, int toIndex, int oldWeight, int newWeight) {
+        for (IntShortestPathTree tree : trees) {
+            tree.edgeChanged(fromIndex, toIndex, oldWeight, newWeight);
+        }
+
+        invalidateCache();
+    }
+
+    /**
+     * Adds the nodes and edges collected by the builder, keeping the existing edges unless they are collected
+     * again; the last weight collected for an edge wins.
+     * @return the collected nodes which were not in the graph before, in the order they were collected
+     */
+    public int[] addAll(GraphBuilder<Integer> builder) {
+        GraphBuilder.Buckets buckets = builder.bucket();
+        return addAll(builder.nodes(), buckets.offsets, buckets.targets, buckets.weights);
+    }
+
+    /**
+     * Adds nodes and edges in compressed sparse row layout, both directions of each edge being present, see
+     * {@link Graph#addAll(List, int[], int[], int[], boolean)}.
+     */
+    int[] addAll(List<Integer> nodeList, int[] offsets, int[] targets, int[] weights) {
+        synchronized (updateLock) {
+            int before = nodes.size;
+            int[] local = new int[nodeList.size()];
+
+            for (int id = 0; id < local.length; id++) {
+                local[id] = indexOf(nodeList.get(id));
+            }
+
+            Nodes current = nodes;
+            // Position plus one of each neighbour in the merged edges of the node being merged, 0 for none
+            int[] positions = new int[current.size];
+
+            for (int id = 0; id < local.length; id++) {
+                if(offsets[id] == offsets[id + 1]) {
+                    continue;
+                }
+
+                Edges existing = current.edges.get(local[id]);
+                int capacity = existing.degree + offsets[id + 1] - offsets[id];
+                int[] mergedTargets = Arrays.copyOf(existing.targets, capacity);
+                int[] mergedWeights = Arrays.copyOf(existing.weights, capacity);
+                int degree = existing.degree;
+
+                for (int i = 0; i < degree; i++) {
+                    positions[mergedTargets[i]] = i + 1;
+                }
+
+                for (int edge = offsets[id]; edge < offsets[id + 1]; edge++) {
+                    int target = local[targets[edge]];
+
+                    if(positions[target] != 0) {
+                        mergedWeights[positions[target] - 1] = weights[edge];
+                    } else {
+                        mergedTargets[degree] = target;
+                        mergedWeights[degree] = weights[edge];
+                        positions[target] = ++degree;
+                    }
+
+                    current.components.set.union(local[id], target);
+                }
+
+                for (int i = 0; i < degree; i++) {
+                    positions[mergedTargets[i]] = 0;
+                }
+
+                current.edges.set(local[id], new Edges(mergedTargets, mergedWeights, degree));
+            }
+
+            for (IntShortestPathTree tree : trees) {
+                tree.recompute();
+            }
+
+            invalidateCache();
+
+            return Arrays.copyOfRange(current.keys, before, current.size);
+        }
+    }
+
+    public void clear() {
+        synchronized (updateLock) {
+            nodes = new Nodes(new IntIntMap(), INITIAL_CAPACITY, removals);
+
+            for (IntShortestPathTree tree : trees) {
+                tree.recompute();
+            }
+
+            invalidateCache();
+        }
+    }
+
+    /**
+     * Attaches a cache for the results of {@link #shortestPath(int, int, boolean)}, invalidated on every
+     * change, see {@link Graph#setCache(ShortestPathCache)}.
+     * @param cache the cache, or null to stop caching
+     */
+    public void setCache(ShortestPathCache<Integer> cache) {
+        if(cache != null) {
+            cache.invalidate();
+        }
+
+        this.cache = cache;
+    }
+
+    public ShortestPathCache<Integer> getCache() {
+        return cache;
+    }
+
+    /**
+     * Sets the estimate of remaining costs used by {@link SearchStrategy#A_STAR} searches.
+     * @param heuristic admissible estimate of the lowest cost from a node to the destination, both given as keys
+     */
+    public void setHeuristic(IntBinaryOperator heuristic) {
+        this.heuristic = Objects.requireNonNull(heuristic);
+    }
+
+    /**
+     * Reports the cost of every query to the metrics, see {@link Graph#setMetrics(GraphMetrics)}. Without
+     * metrics, queries neither time themselves nor create any {@link QueryStats}.
+     * @param metrics the metrics, or null to stop reporting
+     */
+    public void setMetrics(GraphMetrics<Integer> metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Drops the cached results and snapshot after a change.
+     */
+    private void invalidateCache() {
+        changes.incrementAndGet();
+        ShortestPathCache<Integer> current = cache;
+
+        if(current != null) {
+            current.invalidate();
+        }
+    }
+
+    /**
+     * @return the index of the node, added first unless it is in the graph. Called under the update lock.
+     */
+    private int indexOf(int node) {
+        Nodes current = nodes;
+        int index = current.indices.get(node);
+
+        if(index != IntIntMap.MISSING) {
+            return index;
+        }
+
+        if(current.size == current.keys.length) {
+            current = new Nodes(current, current.size * 2);
+            nodes = current;
+        }
+
+        index = current.size;
+        current.keys[index] = node;
+        current.edges.set(index, Edges.NONE);
+        current.components.set.add(index);
+        current.indices.put(node, index);
+        current.size = index + 1;
+
+        return index;
+    }
+
+    /**
+     * @return previous weight of the edge, or {@link #NO_EDGE} if it is new
+     */
+    private static int addOneWayEdge(Nodes current, int from, int to, int weight) {
+        Edges edges = current.edges.get(from);
+        int position = edges.positionOf(to);
+
+        if(position >= 0) {
+            int oldWeight = edges.weights[position];
+            int[] weights = Arrays.copyOf(edges.weights, edges.degree);
+
+            weights[position] = weight;
+            current.edges.set(from, new Edges(Arrays.copyOf(edges.targets, edges.degree), weights, edges.degree));
+
+            return oldWeight;
+        }
+
+        int[] targets = edges.targets;
+        int[] weights = edges.weights;
+
+        // Edges up to the degree are never written, so new ones go into the spare capacity of the arrays
+        if(edges.degree == targets.length) {
+            int capacity = Math.max(INITIAL_DEGREE, edges.degree * 2);
+
+            targets = Arrays.copyOf(targets, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+        }
+
+        targets[edges.degree] = to;
+        weights[edges.degree] = weight;
+        current.edges.set(from, new Edges(targets, weights, edges.degree + 1));
+
+        return NO_EDGE;
+    }
+
+    /**
+     * @return previous weight of the edge, or {@link #NO_EDGE} if there was none
+     */
+    private static int removeOneWayEdge(Nodes current, int from, int to) {
+        Edges edges = current.edges.get(from);
+        int position = edges.positionOf(to);
+
+        if(position < 0) {
+            return NO_EDGE;
+        }
+
+        int[] targets = Arrays.copyOf(edges.targets, edges.degree);
+        int[] weights = Arrays.copyOf(edges.weights, edges.degree);
+        int moved = edges.degree - position - 1;
+
+        System.arraycopy(targets, position + 1, targets, position, moved);
+        System.arraycopy(weights, position + 1, weights, position, moved);
+        current.edges.set(from, new Edges(targets, weights, edges.degree - 1));
+
+        return edges.weights[position];
+    }
+
+    /**
+     * @return the connected components, first rebuilt from the edges under the update lock if some were removed
+     */
+    private IntDisjointSet components(Nodes current) {
+        Components known = current.components;
+
+        if(known.removals == removals) {
+            return known.set;
+        }
+
+        synchronized (updateLock) {
+            Nodes latest = nodes;
+
+            if(latest.components.removals != removals) {
+                IntDisjointSet rebuilt = new IntDisjointSet();
+
+                for (int index = 0; index < latest.size; index++) {
+                    rebuilt.add(index);
+                }
+
+                for (int index = 0; index < latest.size; index++) {
+                    Edges edges = latest.edges.get(index);
+
+                    for (int i = 0; i < edges.degree; i++) {
+                        rebuilt.union(index, edges.targets[i]);
+                    }
+                }
+
+                latest.components = new Components(rebuilt, removals);
+            }
+
+            return latest.components.set;
+        }
+    }
+
+    public String toString() {
+        Nodes current = nodes;
+
+        return Arrays.stream(Arrays.copyOf(current.keys, current.size))
+                .mapToObj(node -> node + " -> " + Arrays.stream(getNeighboringNodes(node))
+                        .mapToObj(Integer::toString)
+                        .collect(Collectors.joining(", ")))
+                .collect(Collectors.joining("\n"));
+    }
+
+    public void printGraphAdjacency() {
+        System.out.println(this);
+    }
+
+    /**
+     * @return the nodes in the order they were added
+     */
+    public int[] getNodes() {
+        Nodes current = nodes;
+        return Arrays.copyOf(current.keys, current.size);
+    }
+
+    public int[] getNeighboringNodes(int node) {
+        Nodes current = nodes;
+        int index = indexIn(current, node);
+
+        if(index == IntIntMap.MISSING) {
+            return new int[0];
+        }
+
+        Edges edges = current.edges.get(index);
+        int[] result = new int[edges.degree];
+
+        for (int i = 0; i < result.length; i++) {
+            result[i] = current.keys[edges.targets[i]];
+        }
+
+        return result;
+    }
+
+    /**
+     * Answered from the connected components tracked while the graph is built, without a traversal.
+     */
+    public boolean isConnected() {
+        Nodes current = nodes;
+        return current.size > 0 && components(current).count() == 1;
+    }
+
+    /**
+     * @return whether a path connects both nodes
+     */
+    public boolean areConnected(int first, int second) {
+        Nodes current = nodes;
+        return components(current).connected(requireIndex(current, first), requireIndex(current, second));
+    }
+
+    /**
+     * @return the node representing the connected component of the given node, see {@link Graph#componentOf(Object)}
+     */
+    public int componentOf(int node) {
+        Nodes current = nodes;
+        int root = components(current).find(requireIndex(current, node));
+
+        // The root may have been added after the nodes were read
+        return nodes.keys[root];
+    }
+
+    /**
+     * @return number of nodes in the connected component of the given node, including the node itself
+     */
+    public int getComponentSize(int node) {
+        Nodes current = nodes;
+        return components(current).sizeOf(requireIndex(current, node));
+    }
+
+    public int getComponentCount() {
+        return components(nodes).count();
+    }
+
+    /**
+     * @return the nodes of each connected component in the order they were added, largest component first
+     */
+    public List<int[]> getComponents() {
+        Nodes current = nodes;
+        IntDisjointSet set = components(current);
+        int size = current.size;
+        int[] componentOf = new int[size];
+        int[] sizes = new int[size];
+        IntIntMap numbers = new IntIntMap(set.count());
+        int count = 0;
+
+        for (int index = 0; index < size; index++) {
+            int root = set.find(index);
+            int number = numbers.get(root);
+
+            if(number == IntIntMap.MISSING) {
+                number = count++;
+                numbers.put(root, number);
+            }
+
+            componentOf[index] = number;
+            sizes[number]++;
+        }
+
+        List<int[]> result = new ArrayList<>(count);
+
+        for (int number = 0; number < count; number++) {
+            result.add(new int[sizes[number]]);
+            sizes[number] = 0;
+        }
+
+        for (int index = 0; index < size; index++) {
+            result.get(componentOf[index])[sizes[componentOf[index]]++] = current.keys[index];
+        }
+
+        result.sort(Comparator.comparingInt((int[] component) -> component.length).reversed());
+
+        return result;
+    }
+
+    /**
+     * Runs Dijkstra's algorithm which stops expanding once distances exceed maxRange.
+     * @return nodes within maxRange of the given node ordered by distance, without the node itself
+     */
+    public int[] nodesWithinRangeOf(int node, int maxRange) {
+        Nodes current = nodes;
+        int start = requireIndex(current, node);
+        QueryStats<Integer> stats = startQuery(QueryType.NODES_WITHIN_RANGE, SearchStrategy.DIJKSTRA, node);
+        Search search = borrow(current);
+
+        try {
+            // The node itself is always settled first
+            int settled = search.dijkstra(current, start, NO_NODE, maxRange, null);
+            int[] result = new int[settled - 1];
+
+            for (int i = 1; i < settled; i++) {
+                result[i - 1] = current.keys[search.order[i]];
+            }
+
+            return result;
+        } finally {
+            finishQuery(stats, search, null);
+        }
+    }
+
+    /**
+     * Runs the same search as {@link #nodesWithinRangeOf(int, int)} and reports each node within maxRange to
+     * the listener as it is settled, starting with the node itself at distance 0.
+     */
+    public void visitWithinRange(int node, int maxRange, IntTraversalListener listener) {
+        Nodes current = nodes;
+        int start = requireIndex(current, node);
+        QueryStats<Integer> stats = startQuery(QueryType.NODES_WITHIN_RANGE, SearchStrategy.DIJKSTRA, node);
+        Search search = borrow(current);
+
+        try {
+            search.dijkstra(current, start, NO_NODE, maxRange, (settled, distance) -> {
+                listener.onVisit(current.keys[settled], distance);
+                return false;
+            });
+        } finally {
+            finishQuery(stats, search, null);
+        }
+    }
+
+    /**
+     * Finds the nodes nearest to the given node by running Dijkstra's algorithm which stops as soon as the k-th
+     * node accepted by the filter is settled.
+     * @param k maximum number of nodes to return
+     * @param filter nodes to consider, e.g. {@code node -> true} for all
+     * @return at most k accepted nodes without the node itself, mapped to their distance in increasing order
+     */
+    public Map<Integer, Integer> nearestNodes(int node, int k, IntPredicate filter) {
+        if(k < 0) {
+            throw new IllegalArgumentException("Number of nodes cannot be negative.");
+        }
+
+        Nodes current = nodes;
+        int start = requireIndex(current, node);
+        Map<Integer, Integer> result = new LinkedHashMap<>(Math.min(k, current.size) * 4 / 3 + 1);
+
+        if(k == 0) {
+            return result;
+        }
+
+        QueryStats<Integer> stats = startQuery(QueryType.NEAREST_NODES, SearchStrategy.DIJKSTRA, node);
+        Search search = borrow(current);
+
+        try {
+            search.dijkstra(current, start, NO_NODE, Integer.MAX_VALUE, (settled, distance) -> {
+                if(settled != start && filter.test(current.keys[settled])) {
+                    result.put(current.keys[settled], distance);
+                }
+
+                return result.size() == k;
+            });
+
+            return result;
+        } finally {
+            finishQuery(stats, search, null);
+        }
+    }
+
+    /**
+     * Does a breadth first traversal over the graph.
+     * @param start start node
+     * @return the visited nodes in visiting order
+     */
+    public int[] breadthFirstTraversal(int start) {
+        return breadthFirstTraversal(start, IntTraversalListener.none());
+    }
+
+    /**
+     * Does a breadth first traversal over the graph and reports each visited node to the listener, with its
+     * weighted distance along the traversal.
+     * @param start start node
+     * @param listener notified of each node when it is visited
+     * @return the visited nodes in visiting order
+     */
+    public int[] breadthFirstTraversal(int start, IntTraversalListener listener) {
+        Nodes current = nodes;
+        int startIndex = requireIndex(current, start);
+        Search search = borrow(current);
+
+        try {
+            int visited = search.traverse(current, startIndex, listener);
+            int[] result = new int[visited];
+
+            for (int i = 0; i < visited; i++) {
+                result[i] = current.keys[search.order[i]];
+            }
+
+            return result;
+        } finally {
+            searches.release(search);
+        }
+    }
+
+    /**
+     * @return number of nodes reachable from the start node, including the start node
+     */
+    public int countReachable(int start) {
+        Nodes current = nodes;
+        int startIndex = requireIndex(current, start);
+        Search search = borrow(current);
+
+        try {
+            return search.traverse(current, startIndex, null);
+        } finally {
+            searches.release(search);
+        }
+    }
+
+    /**
+     * Dijkstra's algorithm over the indices, with the same contract as
+     * {@link Graph#shortestPath(Object, Object, boolean)}.
+     */
+    public ShortestPath<Integer> shortestPath(int source, int dest, boolean fullSearch) {
+        if(!fullSearch) {
+            return shortestPath(source, dest, SearchStrategy.DIJKSTRA);
+        }
+
+        return search(QueryType.FULL_SEARCH, SearchStrategy.DIJKSTRA, source, dest);
+    }
+
+    /**
+     * Finds the lowest cost path from source to destination with the given algorithm, with the same contract
+     * as {@link Graph#shortestPath(Object, Object, SearchStrategy)}.
+     */
+    public ShortestPath<Integer> shortestPath(int source, int dest, SearchStrategy strategy) {
+        return search(QueryType.SHORTEST_PATH, Objects.requireNonNull(strategy), source, dest);
+    }
+
+    /**
+     * Full search on a snapshot of the graph which relaxes edges in parallel on the pool, see
+     * {@link Graph#shortestPath(Object, Object, ForkJoinPool)}.
+     */
+    public ShortestPath<Integer> shortestPath(int source, int dest, ForkJoinPool pool) {
+        return freeze().shortestPath(source, dest, pool);
+    }
+
+    /**
+     * Variant of {@link #shortestPath(int, int, boolean)} which only computes the cost and allocates nothing.
+     * @return cost of the shortest path, or {@link Integer#MAX_VALUE} if dest is unreachable
+     */
+    public int distance(int source, int dest) {
+        Nodes current = nodes;
+        int sourceIndex = requireIndex(current, source);
+        int destIndex = indexIn(current, dest);
+        QueryStats<Integer> stats = startQuery(QueryType.SHORTEST_PATH, SearchStrategy.DIJKSTRA, source, dest);
+        Search search = borrow(current);
+
+        try {
+            search.dijkstra(current, sourceIndex, destIndex, Integer.MAX_VALUE, null);
+            return destIndex == NO_NODE ? Integer.MAX_VALUE : search.distanceTo(destIndex);
+        } finally {
+            finishQuery(stats, search, null);
+        }
+    }
+
+    /**
+     * Answers a search from the attached cache when possible, otherwise runs it and caches the result.
+     */
+    private ShortestPath<Integer> search(QueryType type, SearchStrategy strategy, int source, int dest) {
+        Nodes current = nodes;
+        int sourceIndex = requireIndex(current, source);
+        int destIndex = indexIn(current, dest);
+        boolean fullSearch = type == QueryType.FULL_SEARCH;
+        QueryStats<Integer> stats = startQuery(type, strategy, source, dest);
+        ShortestPathCache<Integer> currentCache = cache;
+        long generation = 0;
+
+        if(currentCache != null) {
+            ShortestPathCache.CachedSearch<Integer> cached = currentCache.get(source, fullSearch ? null : dest);
+
+            if(cached != null) {
+                if(stats != null) {
+                    stats.cacheHit = true;
+                }
+
+                finishQuery(stats, null, null);
+                return toShortestPath(dest, cached.distance, cached.predecessors);
+            }
+
+            generation = currentCache.generation();
+        }
+
+        Search search = borrow(current);
+        Search backward = null;
+
+        try {
+            Map<Integer, Integer> distance;
+            Map<Integer, Integer> predecessors;
+
+            if(strategy != SearchStrategy.DIJKSTRA && (destIndex == NO_NODE || destIndex == sourceIndex)) {
+                // Nothing to search for, as with Graph the result only holds the source
+                search.begin(sourceIndex);
+                distance = search.distances(current.keys);
+                predecessors = new HashMap<>();
+            } else if(strategy == SearchStrategy.A_STAR) {
+                search.aStar(current, sourceIndex, destIndex, heuristic, dest);
+                distance = search.distances(current.keys);
+                predecessors = search.predecessors(current.keys);
+            } else if(strategy == SearchStrategy.BIDIRECTIONAL) {
+                backward = borrow(current);
+                search.bidirectional(current, backward, sourceIndex, destIndex);
+                distance = search.distances(current.keys);
+                predecessors = search.predecessors(current.keys);
+                search.joinRoute(backward, current.keys, distance, predecessors);
+            } else {
+                search.dijkstra(current, sourceIndex, fullSearch ? NO_NODE : destIndex, Integer.MAX_VALUE, null);
+                distance = search.distances(current.keys);
+                predecessors = search.predecessors(current.keys);
+            }
+
+            if(currentCache != null) {
+                distance = Collections.unmodifiableMap(distance);
+                predecessors = Collections.unmodifiableMap(predecessors);
+                currentCache.put(source, fullSearch ? null : dest, distance, predecessors, generation);
+            }
+
+            return toShortestPath(dest, distance, predecessors);
+        } finally {
+            finishQuery(stats, search, backward);
+        }
+    }
+
+    private static ShortestPath<Integer> toShortestPath(int dest, Map<Integer, Integer> distance,
+                                                        Map<Integer, Integer> predecessors) {
+        ShortestPath<Integer> shortestPath = new ShortestPath<>();
+        shortestPath.setCost(distance.getOrDefault(dest, Integer.MAX_VALUE));
+        shortestPath.setLowestCosts(distance);
+        shortestPath.setPredecessors(dest, predecessors);
+
+        return shortestPath;
+    }
+
+    /**
+     * @return the stats of a query without destination, started when metrics are attached; otherwise null
+     */
+    private QueryStats<Integer> startQuery(QueryType type, SearchStrategy strategy, int source) {
+        if(metrics == null) {
+            return null;
+        }
+
+        QueryStats<Integer> stats = new QueryStats<>(type, strategy, source, null);
+        stats.start();
+        return stats;
+    }
+
+    /**
+     * @return the stats of the query, started when metrics are attached; otherwise null
+     */
+    private QueryStats<Integer> startQuery(QueryType type, SearchStrategy strategy, int source, int dest) {
+        if(metrics == null) {
+            return null;
+        }
+
+        QueryStats<Integer> stats = new QueryStats<>(type, strategy, source, dest);
+        stats.start();
+        return stats;
+    }
+
+    /**
+     * Hands the searches back to the pool and reports the query with the steps they counted.
+     * @param stats stats of the query, or null when it is not measured
+     */
+    private void finishQuery(QueryStats<Integer> stats, Search search, Search backward) {
+        if(stats != null) {
+            stats.stop();
+            addSteps(stats, search);
+            addSteps(stats, backward);
+            GraphMetrics<Integer> currentMetrics = metrics;
+
+            if(currentMetrics != null) {
+                currentMetrics.onQuery(stats);
+            }
+        }
+
+        if(search != null) {
+            searches.release(search);
+        }
+
+        if(backward != null) {
+            searches.release(backward);
+        }
+    }
+
+    private static void addSteps(QueryStats<Integer> stats, Search search) {
+        if(search != null) {
+            stats.addSteps(search.settledNodes, search.relaxedEdges, search.heapOperations);
+        }
+    }
+
+    /**
+     * Creates an immutable snapshot of the graph, see {@link Graph#freeze()}. Taken under the update lock and
+     * handed out again until the graph changes.
+     */
+    public CsrGraph<Integer> freeze() {
+        Snapshot current = snapshot;
+
+        if(current != null && current.changes == changes.get()) {
+            return current.graph;
+        }
+
+        synchronized (updateLock) {
+            long taken = changes.get();
+            current = snapshot;
+
+            if(current != null && current.changes == taken) {
+                return current.graph;
+            }
+
+            Nodes frozen = nodes;
+            int size = frozen.size;
+            List<Integer> nodeList = new ArrayList<>(size);
+            Map<Integer, Integer> ids = new HashMap<>(size * 4 / 3 + 1);
+            int[] offsets = new int[size + 1];
+
+            for (int index = 0; index < size; index++) {
+                nodeList.add(frozen.keys[index]);
+                ids.put(frozen.keys[index], index);
+                offsets[index + 1] = offsets[index] + frozen.edges.get(index).degree;
+            }
+
+            int[] targets = new int[offsets[size]];
+            int[] weights = new int[offsets[size]];
+
+            for (int index = 0; index < size; index++) {
+                Edges edges = frozen.edges.get(index);
+
+                System.arraycopy(edges.targets, 0, targets, offsets[index], edges.degree);
+                System.arraycopy(edges.weights, 0, weights, offsets[index], edges.degree);
+            }
+
+            CsrGraph<Integer> graph = new CsrGraph<>(nodeList, ids, IntBuffer.wrap(offsets), IntBuffer.wrap(targets),
+                    IntBuffer.wrap(weights));
+            snapshot = new Snapshot(taken, graph);
+
+            return graph;
+        }
+    }
+
+    /**
+     * Computes a minimum spanning forest on a snapshot of the graph, see {@link Graph#minimumSpanningForest()}.
+     */
+    public CsrGraph<Integer> minimumSpanningForest() {
+        return freeze().minimumSpanningForest(true);
+    }
+
+    /**
+     * Computes the lowest costs from every source to every destination on a snapshot of the graph,
+     * see {@link CsrGraph#distanceMatrix(List, List, ForkJoinPool)}. Runs on the common pool.
+     */
+    public DistanceMatrix<Integer> distanceMatrix(List<Integer> sources, List<Integer> destinations) {
+        return freeze().distanceMatrix(sources, destinations, ForkJoinPool.commonPool());
+    }
+
+    public boolean isEmpty() {
+        return nodes.size == 0;
+    }
+
+    public int getSize() {
+        return nodes.size;
+    }
+
+    /**
+     * @return index of the node in the current nodes, or {@link IntIntMap#MISSING}
+     */
+    int findIndex(int node) {
+        return indexIn(nodes, node);
+    }
+
+    int keyOf(int index) {
+        return nodes.keys[index];
+    }
+
+    Edges edgesOf(int index) {
+        return nodes.edges.get(index);
+    }
+
+    /**
+     * @return number of indices the current nodes have room for, all indices are below it
+     */
+    int capacity() {
+        return nodes.keys.length;
+    }
+
+    private Search borrow(Nodes current) {
+        Search search = searches.borrow();
+        search.ensureCapacity(current.keys.length);
+        return search;
+    }
+
+    /**
+     * @return index of the node, or {@link IntIntMap#MISSING} if it is not among the given nodes
+     */
+    private static int indexIn(Nodes current, int node) {
+        int index = current.indices.get(node);
+        return index < current.size ? index : IntIntMap.MISSING;
+    }
+
+    private static int requireIndex(Nodes current, int node) {
+        int index = indexIn(current, node);
+
+        if(index == IntIntMap.MISSING) {
+            throw new IllegalArgumentException("Node " + node + " is not part of the graph.");
+        }
+
+        return index;
+    }
+
+    /**
+     * Keys, edges and components of the nodes by index. Indices below {@link #size} are complete; queries read
+     * the size first and only look at nodes below it or reached through their edges.
+     */
+    private static final class Nodes {
+        /**
+         * Shared with the nodes this one grew from, lookups ignore indices beyond the size.
+         */
+        final IntIntMap indices;
+        final int[] keys;
+        final AtomicReferenceArray<Edges> edges;
+        volatile int size;
+        volatile Components components;
+
+        Nodes(IntIntMap indices, int capacity, long removals) {
+            this.indices = indices;
+            this.keys = new int[capacity];
+            this.edges = new AtomicReferenceArray<>(capacity);
+            this.components = new Components(new IntDisjointSet(), removals);
+        }
+
+        /**
+         * Copies the full nodes into larger ones, the full ones are no longer written.
+         */
+        Nodes(Nodes from, int capacity) {
+            this.indices = from.indices;
+            this.keys = Arrays.copyOf(from.keys, capacity);
+            this.edges = new AtomicReferenceArray<>(capacity);
+            this.components = from.components;
+
+            for (int index = 0; index < from.size; index++) {
+                edges.set(index, from.edges.get(index));
+            }
+
+            this.size = from.size;
+        }
+    }
+
+    /**
+     * Connected components over the indices and the number of removals they account for.
+     */
+    private static final class Components {
+        final IntDisjointSet set;
+        final long removals;
+
+        Components(IntDisjointSet set, long removals) {
+            this.set = set;
+            this.removals = removals;
+        }
+    }
+
+    /**
+     * Neighbour indices and weights of a node, never written below the degree once published.
+     */
+    static final class Edges {
+        static final Edges NONE = new Edges(new int[0], new int[0], 0);
+
+        final int[] targets;
+        final int[] weights;
+        final int degree;
+
+        Edges(int[] targets, int[] weights, int degree) {
+            this.targets = targets;
+            this.weights = weights;
+            this.degree = degree;
+        }
+
+        /**
+         * @return position of the edge to the target, or -1
+         */
+        int positionOf(int target) {
+            for (int i = 0; i < degree; i++) {
+                if(targets[i] == target) {
+                    return i;
+                }
+            }
+
+            return -1;
+        }
+    }
+
+    /**
+     * Snapshot taken by {@link #freeze()} when the graph had seen the given number of changes.
+     */
+    private static final class Snapshot {
+        final long changes;
+        final CsrGraph<Integer> graph;
+
+        Snapshot(long changes, CsrGraph<Integer> graph) {
+            this.changes = changes;
+            this.graph = graph;
+        }
+    }
+
+    /**
+     * Told of each node a search settles.
+     */
+    @FunctionalInterface
+    private interface SettledListener {
+        /**
+         * @return whether the search should stop
+         */
+        boolean onSettled(int index, int distance);
+    }
+
+    /**
+     * Working state of a search. The distance and predecessor of an index are only valid when its mark equals
+     * the current generation, so nothing has to be reset between searches.
+     */
+    private static final class Search {
+        int[] distance;
+        int[] predecessors;
+        int[] reachedMarks;
+        int[] settledMarks;
+        /**
+         * Indices in the order they were settled, or visited by a traversal.
+         */
+        int[] order;
+        int[] reached;
+        int reachedCount;
+        IntMinHeap heap;
+        int generation;
+        int settledNodes;
+        int relaxedEdges;
+        int heapOperations;
+        /**
+         * Cost of the best route found by a bidirectional search and its edge joining both searches.
+         */
+        int best;
+        int meetForward;
+        int meetBackward;
+
+        Search(int capacity) {
+            allocate(capacity);
+        }
+
+        void ensureCapacity(int capacity) {
+            if(distance.length < capacity) {
+                allocate(capacity);
+            }
+        }
+
+        private void allocate(int capacity) {
+            distance = new int[capacity];
+            predecessors = new int[capacity];
+            reachedMarks = new int[capacity];
+            settledMarks = new int[capacity];
+            order = new int[capacity];
+            reached = new int[capacity];
+            heap = new IntMinHeap(capacity);
+            generation = 0;
+        }
+
+        /**
+         * Starts a new search which has only reached the start index.
+         */
+        void begin(int start) {
+            if(++generation == Integer.MAX_VALUE) {
+                Arrays.fill(reachedMarks, 0);
+                Arrays.fill(settledMarks, 0);
+                generation = 1;
+            }
+
+            heap.clear();
+            reachedCount = 0;
+            settledNodes = 0;
+            relaxedEdges = 0;
+            heapOperations = 0;
+            reach(start, 0, NO_NODE);
+        }
+
+        private void reach(int index, int newDistance, int predecessor) {
+            if(reachedMarks[index] != generation) {
+                reachedMarks[index] = generation;
+                reached[reachedCount++] = index;
+            }
+
+            distance[index] = newDistance;
+            predecessors[index] = predecessor;
+        }
+
+        private boolean isReached(int index) {
+            return reachedMarks[index] == generation;
+        }
+
+        private boolean isSettled(int index) {
+            return settledMarks[index] == generation;
+        }
+
+        int distanceTo(int index) {
+            return isReached(index) ? distance[index] : Integer.MAX_VALUE;
+        }
+
+        /**
+         * Dijkstra's algorithm from the start which never reaches nodes further than maxRange. The start is
+         * always settled.
+         * @param target index to stop at, or {@link #NO_NODE} to go on
+         * @param listener told of each settled index by increasing distance, may stop the search; or null
+         * @return number of settled indices, left in {@link #order}
+         */
+        int dijkstra(Nodes nodes, int start, int target, int maxRange, SettledListener listener) {
+            int settled = 0;
+
+            begin(start);
+            heap.insertOrDecrease(start, 0);
+            heapOperations++;
+
+            while (!heap.isEmpty()) {
+                int current = heap.poll();
+                int currentDistance = distance[current];
+
+                heapOperations++;
+                settledNodes++;
+                settledMarks[current] = generation;
+                order[settled++] = current;
+
+                if(current == target || listener != null && listener.onSettled(current, currentDistance)) {
+                    break;
+                }
+
+                Edges edges = nodes.edges.get(current);
+
+                for (int i = 0; i < edges.degree; i++) {
+                    int child = edges.targets[i];
+                    relaxedEdges++;
+
+                    if(!isSettled(child)) {
+                        int alternate = currentDistance + edges.weights[i];
+
+                        if(alternate <= maxRange && (!isReached(child) || alternate < distance[child])) {
+                            reach(child, alternate, current);
+                            heap.insertOrDecrease(child, alternate);
+                            heapOperations++;
+                        }
+                    }
+                }
+            }
+
+            return settled;
+        }
+
+        /**
+         * A* search which expands an index again whenever a shorter distance to it is found, see
+         * {@link AStarSearch}.
+         */
+        void aStar(Nodes nodes, int start, int target, IntBinaryOperator heuristic, int dest) {
+            begin(start);
+            heap.update(start, heuristic.applyAsInt(nodes.keys[start], dest));
+            heapOperations++;
+
+            while (!heap.isEmpty()) {
+                int current = heap.poll();
+                int currentDistance = distance[current];
+
+                heapOperations++;
+                settledNodes++;
+
+                if(current == target) {
+                    break;
+                }
+
+                Edges edges = nodes.edges.get(current);
+
+                for (int i = 0; i < edges.degree; i++) {
+                    int child = edges.targets[i];
+                    int alternate = currentDistance + edges.weights[i];
+                    relaxedEdges++;
+
+                    if(!isReached(child) || alternate < distance[child]) {
+                        long estimate = (long) alternate + heuristic.applyAsInt(nodes.keys[child], dest);
+
+                        reach(child, alternate, current);
+                        heap.update(child, (int) Math.min(estimate, Integer.MAX_VALUE));
+                        heapOperations++;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Bidirectional Dijkstra, see {@link BidirectionalDijkstra}. This search runs forward from the start
+         * and the backward one from the target; the best route is left in {@link #best} and its meeting edge.
+         */
+        void bidirectional(Nodes nodes, Search backward, int start, int target) {
+            begin(start);
+            backward.begin(target);
+            heap.insertOrDecrease(start, 0);
+            backward.heap.insertOrDecrease(target, 0);
+            heapOperations += 2;
+            best = Integer.MAX_VALUE;
+            meetForward = NO_NODE;
+            meetBackward = NO_NODE;
+
+            while (!heap.isEmpty() && !backward.heap.isEmpty()) {
+                int forwardTop = heap.peekKey();
+                int backwardTop = backward.heap.peekKey();
+
+                if((long) forwardTop + backwardTop >= best) {
+                    return;
+                }
+
+                if(forwardTop <= backwardTop) {
+                    expand(nodes, this, backward, true);
+                } else {
+                    expand(nodes, backward, this, false);
+                }
+            }
+        }
+
+        private void expand(Nodes nodes, Search side, Search other, boolean isForward) {
+            int current = side.heap.poll();
+            int currentDistance = side.distance[current];
+            Edges edges = nodes.edges.get(current);
+
+            side.settledMarks[current] = side.generation;
+            side.heapOperations++;
+            side.settledNodes++;
+
+            for (int i = 0; i < edges.degree; i++) {
+                int child = edges.targets[i];
+                int alternate = currentDistance + edges.weights[i];
+                side.relaxedEdges++;
+
+                if(!side.isSettled(child) && (!side.isReached(child) || alternate < side.distance[child])) {
+                    side.reach(child, alternate, current);
+                    side.heap.insertOrDecrease(child, alternate);
+                    side.heapOperations++;
+                }
+
+                if(other.isReached(child) && (long) alternate + other.distance[child] < best) {
+                    best = alternate + other.distance[child];
+                    meetForward = isForward ? current : child;
+                    meetBackward = isForward ? child : current;
+                }
+            }
+        }
+
+        /**
+         * Links the backward half of the best route found by {@link #bidirectional} into the results of the
+         * forward search.
+         */
+        void joinRoute(Search backward, int[] keys, Map<Integer, Integer> distances,
+                       Map<Integer, Integer> predecessorKeys) {
+            if(best == Integer.MAX_VALUE) {
+                return;
+            }
+
+            int previous = meetForward;
+
+            for (int index = meetBackward; index != NO_NODE; index = backward.predecessors[index]) {
+                predecessorKeys.put(keys[index], keys[previous]);
+                distances.put(keys[index], best - backward.distance[index]);
+                previous = index;
+            }
+        }
+
+        /**
+         * Breadth first traversal which leaves the visited indices in visiting order in {@link #order}.
+         * @param listener told of each visited node, or null
+         * @return number of visited indices
+         */
+        int traverse(Nodes nodes, int start, IntTraversalListener listener) {
+            int head = 0;
+            int tail = 0;
+
+            begin(start);
+            order[tail++] = start;
+
+            while (head < tail) {
+                int current = order[head++];
+                Edges edges = nodes.edges.get(current);
+
+                if(listener != null) {
+                    listener.onVisit(nodes.keys[current], distance[current]);
+                }
+
+                for (int i = 0; i < edges.degree; i++) {
+                    int vertex = edges.targets[i];
+
+                    if(!isReached(vertex)) {
+                        reach(vertex, distance[current] + edges.weights[i], current);
+                        order[tail++] = vertex;
+                    }
+                }
+            }
+
+            return tail;
+        }
+
+        /**
+         * @return distance of each reached node, by key
+         */
+        Map<Integer, Integer> distances(int[] keys) {
+            Map<Integer, Integer> result = new HashMap<>(reachedCount * 4 / 3 + 1);
+
+            for (int i = 0; i < reachedCount; i++) {
+                result.put(keys[reached[i]], distance[reached[i]]);
+            }
+
+            return result;
+        }
+
+        /**
+         * @return predecessor of each reached node but the start, by key
+         */
+        Map<Integer, Integer> predecessors(int[] keys) {
+            Map<Integer, Integer> result = new HashMap<>(reachedCount * 4 / 3 + 1);
+
+            for (int i = 0; i < reachedCount; i++) {
+                int index = reached[i];
+
+                if(predecessors[index] != NO_NODE) {
+                    result.put(keys[index], keys[predecessors[index]]);
+                }
+            }
+
+            return result;
+        }
+    }
+}
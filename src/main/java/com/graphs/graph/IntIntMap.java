@@ -0,0 +1,124 @@
+package com.graphs.graph;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Open addressing hash map from int keys to non negative int values, with linear probing.
+ * Nothing is boxed and lookups allocate nothing. Puts must not run concurrently, lookups may run
+ * concurrently with a put and take no lock: a key is written before its value is published and the
+ * table is only replaced once it is fully rehashed.
+ */
+class IntIntMap {
+    static final int MISSING = -1;
+
+    private static final int EMPTY = 0;
+    private static final int MIN_CAPACITY = 16;
+
+    private volatile Table table;
+    private int size;
+
+    IntIntMap() {
+        this(MIN_CAPACITY);
+    }
+
+    IntIntMap(int expectedSize) {
+        table = new Table(tableSizeFor(expectedSize));
+    }
+
+    int get(int key) {
+        Table current = table;
+        int slot = current.slot(key);
+        int value;
+
+        while ((value = current.values.get(slot)) != EMPTY) {
+            if (current.keys[slot] == key) {
+                return value - 1;
+            }
+
+            slot = (slot + 1) & current.mask;
+        }
+
+        return MISSING;
+    }
+
+    void put(int key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Only non negative values are supported.");
+        }
+
+        Table current = table;
+
+        if (current.put(key, value) && ++size > (current.mask + 1) * 3 / 4) {
+            rehash(current);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void rehash(Table current) {
+        Table grown = new Table((current.mask + 1) * 2);
+
+        for (int slot = 0; slot <= current.mask; slot++) {
+            int value = current.values.get(slot);
+
+            if (value != EMPTY) {
+                grown.put(current.keys[slot], value - 1);
+            }
+        }
+
+        table = grown;
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+
+        while (capacity * 3 / 4 < expectedSize) {
+            capacity <<= 1;
+        }
+
+        return capacity;
+    }
+
+    private static class Table {
+        final int[] keys;
+        /**
+         * Stored value plus one, so that {@link #EMPTY} marks a free slot. Set after the key of the slot.
+         */
+        final AtomicIntegerArray values;
+        final int mask;
+
+        Table(int capacity) {
+            keys = new int[capacity];
+            values = new AtomicIntegerArray(capacity);
+            mask = capacity - 1;
+        }
+
+        int slot(int key) {
+            int hash = key * 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+
+        /**
+         * @return whether the key was not present before
+         */
+        boolean put(int key, int value) {
+            int slot = slot(key);
+
+            while (values.get(slot) != EMPTY) {
+                if (keys[slot] == key) {
+                    values.set(slot, value + 1);
+                    return false;
+                }
+
+                slot = (slot + 1) & mask;
+            }
+
+            keys[slot] = key;
+            values.set(slot, value + 1);
+
+            return true;
+        }
+    }
+}
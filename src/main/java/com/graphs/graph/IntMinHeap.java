@@ -0,0 +1,155 @@
+package com.graphs.graph;
+
+import java.util.Arrays;
+
+/**
+ * Indexed binary min heap over dense int ids with decrease-key support.
+ * Each id is present at most once and keyed by an int priority.
+ */
+class IntMinHeap {
+    private static final int ABSENT = -1;
+
+    private final int[] heap;
+    private final int[] keys;
+    /**
+     * Position of each id inside {@link #heap}, or {@link #ABSENT} when it is not queued.
+     */
+    private final int[] positions;
+    private int size;
+
+    IntMinHeap(int capacity) {
+        heap = new int[capacity];
+        keys = new int[capacity];
+        positions = new int[capacity];
+        Arrays.fill(positions, ABSENT);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(int id) {
+        return positions[id] != ABSENT;
+    }
+
+    /**
+     * Queues the id with the given key or lowers its key when it is already queued with a
+     * greater one.
+     */
+    void insertOrDecrease(int id, int key) {
+        int position = positions[id];
+
+        if (position == ABSENT) {
+            position = size++;
+            heap[position] = id;
+            positions[id] = position;
+        } else if (key >= keys[id]) {
+            return;
+        }
+
+        keys[id] = key;
+        siftUp(position);
+    }
+
+    /**
+     * Queues the id with the given key or changes its key when it is already queued.
+     */
+    void update(int id, int key) {
+        int position = positions[id];
+
+        if (position == ABSENT || key <= keys[id]) {
+            insertOrDecrease(id, key);
+            return;
+        }
+
+        keys[id] = key;
+        siftDown(position);
+    }
+
+    int peekKey() {
+        return keys[heap[0]];
+    }
+
+    /**
+     * Removes the id with the lowest key.
+     * @return removed id
+     */
+    int poll() {
+        int min = heap[0];
+        int last = heap[--size];
+
+        positions[min] = ABSENT;
+
+        if (size > 0) {
+            heap[0] = last;
+            positions[last] = 0;
+            siftDown(0);
+        }
+
+        return min;
+    }
+
+    /**
+     * Empties the heap. Costs only as much as the number of ids still queued.
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = ABSENT;
+        }
+
+        size = 0;
+    }
+
+    private void siftUp(int position) {
+        int id = heap[position];
+        int key = keys[id];
+
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            int parentId = heap[parent];
+
+            if (keys[parentId] <= key) {
+                break;
+            }
+
+            heap[position] = parentId;
+            positions[parentId] = position;
+            position = parent;
+        }
+
+        heap[position] = id;
+        positions[id] = position;
+    }
+
+    private void siftDown(int position) {
+        int id = heap[position];
+        int key = keys[id];
+        int half = size >>> 1;
+
+        while (position < half) {
+            int child = 2 * position + 1;
+            int right = child + 1;
+
+            if (right < size && keys[heap[right]] < keys[heap[child]]) {
+                child = right;
+            }
+
+            int childId = heap[child];
+
+            if (key <= keys[childId]) {
+                break;
+            }
+
+            heap[position] = childId;
+            positions[childId] = position;
+            position = child;
+        }
+
+        heap[position] = id;
+        positions[id] = position;
+    }
+}
@@ -0,0 +1,259 @@
+package com.graphs.graph;
+
+import java.util.*;
+
+/**
+ * Lowest costs and routes from one source to all nodes of an {@link IntGraph}, kept up to date as edges
+ * change. Obtained from {@link IntGraph#trackShortestPaths(int)}.
+ * <p>
+ * Changes are repaired like in {@link ShortestPathTree}, over int arrays indexed like the nodes of the graph
+ * and an int heap. Instances are thread safe.
+ */
+public class IntShortestPathTree {
+    private static final int UNREACHED = Integer.MAX_VALUE;
+
+    private final IntGraph graph;
+    private final int source;
+    /**
+     * Index of the source, {@link IntGraph#NO_NODE} while it is not in the graph, e.g. after it was cleared.
+     */
+    private int sourceIndex;
+    private int[] distance = new int[0];
+    private int[] predecessors = new int[0];
+    /**
+     * Marks the nodes detached by the repair whose generation it is.
+     */
+    private int[] marks = new int[0];
+    private int generation;
+    private int[] affected = new int[0];
+    private IntMinHeap heap = new IntMinHeap(0);
+    private int lastRepairSize;
+
+    IntShortestPathTree(IntGraph graph, int source) {
+        this.graph = graph;
+        this.source = source;
+        recompute();
+    }
+
+    public int getSource() {
+        return source;
+    }
+
+    /**
+     * @return lowest cost from the source to the node, or {@link Integer#MAX_VALUE} if it is unreachable
+     */
+    public synchronized int getDistance(int node) {
+        if(node == source) {
+            return 0;
+        }
+
+        int index = graph.findIndex(node);
+        return index == IntIntMap.MISSING || index >= distance.length ? UNREACHED : distance[index];
+    }
+
+    /**
+     * @return the same result as {@link IntGraph#shortestPath(int, int, boolean)} with full search
+     */
+    public synchronized ShortestPath<Integer> shortestPathTo(int dest) {
+        Map<Integer, Integer> lowestCosts = new HashMap<>();
+        Map<Integer, Integer> predecessorNodes = new HashMap<>();
+
+        lowestCosts.put(source, 0);
+
+        for (int index = 0; index < distance.length; index++) {
+            if(distance[index] != UNREACHED && index != sourceIndex) {
+                lowestCosts.put(graph.keyOf(index), distance[index]);
+                predecessorNodes.put(graph.keyOf(index), graph.keyOf(predecessors[index]));
+            }
+        }
+
+        ShortestPath<Integer> shortestPath = new ShortestPath<>();
+        shortestPath.setCost(lowestCosts.getOrDefault(dest, UNREACHED));
+        shortestPath.setLowestCosts(lowestCosts);
+        shortestPath.setPredecessors(dest, predecessorNodes);
+
+        return shortestPath;
+    }
+
+    /**
+     * @return number of nodes whose distance was recomputed by the last change
+     */
+    public synchronized int getLastRepairSize() {
+        return lastRepairSize;
+    }
+
+    /**
+     * Computes the whole tree from scratch. Called under the update lock of the graph.
+     */
+    synchronized void recompute() {
+        int capacity = graph.capacity();
+
+        distance = new int[capacity];
+        predecessors = new int[capacity];
+        marks = new int[capacity];
+        affected = new int[capacity];
+        heap = new IntMinHeap(capacity);
+        generation = 0;
+        Arrays.fill(distance, UNREACHED);
+        sourceIndex = graph.findIndex(source);
+
+        if(sourceIndex == IntIntMap.MISSING) {
+            lastRepairSize = 1;
+            return;
+        }
+
+        distance[sourceIndex] = 0;
+        predecessors[sourceIndex] = IntGraph.NO_NODE;
+        heap.insertOrDecrease(sourceIndex, 0);
+        lastRepairSize = propagate();
+    }
+
+    /**
+     * Repairs the tree after the weight of the edge changed. The graph must already hold the new weight.
+     * Called under the update lock of the graph.
+     * @param oldWeight weight before the change, or {@link IntGraph#NO_EDGE} if the edge was added
+     * @param newWeight weight after the change, or {@link IntGraph#NO_EDGE} if the edge was removed
+     */
+    synchronized void edgeChanged(int from, int to, int oldWeight, int newWeight) {
+        ensureCapacity();
+
+        if(sourceIndex == IntIntMap.MISSING) {
+            // The source comes back with its first edge after the graph was cleared
+            sourceIndex = graph.findIndex(source);
+
+            if(sourceIndex == IntIntMap.MISSING) {
+                lastRepairSize = 0;
+                return;
+            }
+
+            distance[sourceIndex] = 0;
+            predecessors[sourceIndex] = IntGraph.NO_NODE;
+        }
+
+        if(newWeight != IntGraph.NO_EDGE && (oldWeight == IntGraph.NO_EDGE || newWeight < oldWeight)) {
+            relax(from, to, newWeight);
+            relax(to, from, newWeight);
+            lastRepairSize = propagate();
+        } else if(oldWeight != IntGraph.NO_EDGE && oldWeight != newWeight) {
+            if(distance[to] != UNREACHED && predecessors[to] == from) {
+                lastRepairSize = repairSubtree(to);
+            } else if(distance[from] != UNREACHED && predecessors[from] == to) {
+                lastRepairSize = repairSubtree(from);
+            } else {
+                lastRepairSize = 0;
+            }
+        } else {
+            lastRepairSize = 0;
+        }
+    }
+
+    /**
+     * Detaches the nodes routed through the given node, offers each of them its best distance over
+     * a neighbour outside the subtree and settles them again.
+     * @return number of detached nodes
+     */
+    private int repairSubtree(int root) {
+        int count = 0;
+
+        if(++generation == Integer.MAX_VALUE) {
+            Arrays.fill(marks, 0);
+            generation = 1;
+        }
+
+        marks[root] = generation;
+        affected[count++] = root;
+
+        // The affected nodes double as the queue of a breadth first search over the subtree
+        for (int head = 0; head < count; head++) {
+            int current = affected[head];
+            IntGraph.Edges edges = graph.edgesOf(current);
+
+            for (int i = 0; i < edges.degree; i++) {
+                int child = edges.targets[i];
+
+                if(marks[child] != generation && distance[child] != UNREACHED && predecessors[child] == current) {
+                    marks[child] = generation;
+                    affected[count++] = child;
+                }
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            distance[affected[i]] = UNREACHED;
+        }
+
+        for (int i = 0; i < count; i++) {
+            int node = affected[i];
+            IntGraph.Edges edges = graph.edgesOf(node);
+
+            for (int edge = 0; edge < edges.degree; edge++) {
+                if(marks[edges.targets[edge]] != generation) {
+                    relax(edges.targets[edge], node, edges.weights[edge]);
+                }
+            }
+        }
+
+        propagate();
+
+        return count;
+    }
+
+    /**
+     * Lowers the distance of {@code to} when it is shorter through {@code from}, queueing it.
+     */
+    private void relax(int from, int to, int weight) {
+        if(distance[from] == UNREACHED) {
+            return;
+        }
+
+        int alternate = distance[from] + weight;
+
+        if(alternate < distance[to]) {
+            distance[to] = alternate;
+            predecessors[to] = from;
+            heap.insertOrDecrease(to, alternate);
+        }
+    }
+
+    /**
+     * Dijkstra's algorithm from the queued nodes with their current distances, which only goes on through
+     * nodes whose distance it lowers.
+     * @return number of settled nodes
+     */
+    private int propagate() {
+        int settled = 0;
+
+        while (!heap.isEmpty()) {
+            int current = heap.poll();
+            IntGraph.Edges edges = graph.edgesOf(current);
+
+            settled++;
+
+            for (int i = 0; i < edges.degree; i++) {
+                relax(current, edges.targets[i], edges.weights[i]);
+            }
+        }
+
+        return settled;
+    }
+
+    /**
+     * Grows the arrays to the capacity of the graph, which grows as nodes are added.
+     */
+    private void ensureCapacity() {
+        int capacity = graph.capacity();
+
+        if(distance.length >= capacity) {
+            return;
+        }
+
+        int known = distance.length;
+
+        distance = Arrays.copyOf(distance, capacity);
+        predecessors = Arrays.copyOf(predecessors, capacity);
+        marks = Arrays.copyOf(marks, capacity);
+        affected = new int[capacity];
+        heap = new IntMinHeap(capacity);
+        Arrays.fill(distance, known, capacity, UNREACHED);
+    }
+}
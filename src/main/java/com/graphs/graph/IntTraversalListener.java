@@ -0,0 +1,20 @@
+package com.graphs.graph;
+
+/**
+ * Receives the nodes of an {@link IntGraph} traversal in the order they are visited, without boxing them.
+ */
+@FunctionalInterface
+public interface IntTraversalListener {
+    /**
+     * @param node visited node
+     * @param distance weighted distance from the start node along the traversal
+     */
+    void onVisit(int node, int distance);
+
+    /**
+     * @return listener which ignores all events
+     */
+    static IntTraversalListener none() {
+        return (node, distance) -> { };
+    }
+}
@@ -0,0 +1,86 @@
+package com.graphs.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link ShardTransport} to shards held in this process, standing in for remote shards e.g. in tests.
+ * Counts the queries sent to each shard, as a remote transport would count requests.
+ * @param <N> the generic type of nodes.
+ */
+public class LocalShardTransport<N> implements ShardTransport<N> {
+    private final List<CountingShard> shards = new ArrayList<>();
+
+    public LocalShardTransport(List<? extends Shard<N>> shards) {
+        for (int id = 0; id < shards.size(); id++) {
+            if(shards.get(id).getId() != id) {
+                throw new IllegalArgumentException("Shard " + shards.get(id).getId() + " found at index " + id + ".");
+            }
+
+            this.shards.add(new CountingShard(shards.get(id)));
+        }
+    }
+
+    @Override
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    @Override
+    public Shard<N> shard(int id) {
+        return shards.get(id);
+    }
+
+    /**
+     * @return number of queries sent to the shard so far
+     */
+    public long getRequestCount(int id) {
+        return shards.get(id).requests.get();
+    }
+
+    private class CountingShard implements Shard<N> {
+        private final Shard<N> shard;
+        private final AtomicLong requests = new AtomicLong();
+
+        CountingShard(Shard<N> shard) {
+            this.shard = shard;
+        }
+
+        @Override
+        public int getId() {
+            return shard.getId();
+        }
+
+        @Override
+        public List<N> getBoundaryNodes() {
+            requests.incrementAndGet();
+            return shard.getBoundaryNodes();
+        }
+
+        @Override
+        public DistanceMatrix<N> getBoundaryDistances() {
+            requests.incrementAndGet();
+            return shard.getBoundaryDistances();
+        }
+
+        @Override
+        public Map<N, Map<N, Integer>> getCutEdges() {
+            requests.incrementAndGet();
+            return shard.getCutEdges();
+        }
+
+        @Override
+        public int[] distancesToBoundary(N node) {
+            requests.incrementAndGet();
+            return shard.distancesToBoundary(node);
+        }
+
+        @Override
+        public ShortestPath<N> shortestPath(N from, N to) {
+            requests.incrementAndGet();
+            return shard.shortestPath(from, to);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.graphs.graph;
+
+import java.nio.IntBuffer;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Assignment of each node of a snapshot to one of a number of parts, computed by {@link GraphPartitioner}.
+ * Each part can be cut out as a {@link GraphShard} holding its nodes and the edges between them.
+ * @param <N> the generic type of nodes.
+ */
+public class Partition<N> {
+    private final CsrGraph<N> graph;
+    private final int parts;
+    private final int[] partOf;
+
+    Partition(CsrGraph<N> graph, int parts, int[] partOf) {
+        this.graph = graph;
+        this.parts = parts;
+        this.partOf = partOf;
+    }
+
+    public int getPartCount() {
+        return parts;
+    }
+
+    public int partOf(N node) {
+        return partOf[graph.idOf(node)];
+    }
+
+    public List<N> getNodes(int part) {
+        List<N> result = new ArrayList<>();
+
+        for (int id = 0; id < partOf.length; id++) {
+            if(partOf[id] == part) {
+                result.add(graph.nodeOf(id));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return number of nodes in each part, by part
+     */
+    public int[] getPartSizes() {
+        int[] sizes = new int[parts];
+
+        for (int part : partOf) {
+            sizes[part]++;
+        }
+
+        return sizes;
+    }
+
+    /**
+     * @return number of edges between nodes of different parts
+     */
+    public int getCutEdgeCount() {
+        IntBuffer offsets = graph.offsets();
+        IntBuffer targets = graph.targets();
+        int cut = 0;
+
+        for (int id = 0; id < partOf.length; id++) {
+            for (int edge = offsets.get(id); edge < offsets.get(id + 1); edge++) {
+                if(partOf[targets.get(edge)] != partOf[id]) {
+                    cut++;
+                }
+            }
+        }
+
+        return cut / 2;
+    }
+
+    /**
+     * Cuts out the part with the edges between its nodes and precomputes the lowest costs between its
+     * boundary nodes, those with an edge to another part, on the pool.
+     */
+    public GraphShard<N> shard(int part, ForkJoinPool pool) {
+        if(part < 0 || part >= parts) {
+            throw new IllegalArgumentException("Part " + part + " does not exist.");
+        }
+
+        IntBuffer offsets = graph.offsets();
+        IntBuffer targets = graph.targets();
+        IntBuffer weights = graph.weights();
+        List<N> nodes = getNodes(part);
+        Map<N, Integer> ids = new HashMap<>(nodes.size() * 4 / 3 + 1);
+        List<N> boundary = new ArrayList<>();
+        Map<N, Map<N, Integer>> cutEdges = new HashMap<>();
+        int[] shardOffsets = new int[nodes.size() + 1];
+
+        for (int i = 0; i < nodes.size(); i++) {
+            ids.put(nodes.get(i), i);
+        }
+
+        for (int i = 0; i < nodes.size(); i++) {
+            int id = graph.idOf(nodes.get(i));
+            shardOffsets[i + 1] = shardOffsets[i];
+
+            for (int edge = offsets.get(id); edge < offsets.get(id + 1); edge++) {
+                int target = targets.get(edge);
+
+                if(partOf[target] == part) {
+                    shardOffsets[i + 1]++;
+                } else {
+                    cutEdges.computeIfAbsent(nodes.get(i), __ -> new HashMap<>())
+                            .put(graph.nodeOf(target), weights.get(edge));
+                }
+            }
+
+            if(cutEdges.containsKey(nodes.get(i))) {
+                boundary.add(nodes.get(i));
+            }
+        }
+
+        int[] shardTargets = new int[shardOffsets[nodes.size()]];
+        int[] shardWeights = new int[shardTargets.length];
+        int fill = 0;
+
+        for (N node : nodes) {
+            int id = graph.idOf(node);
+
+            for (int edge = offsets.get(id); edge < offsets.get(id + 1); edge++) {
+                if(partOf[targets.get(edge)] == part) {
+                    shardTargets[fill] = ids.get(graph.nodeOf(targets.get(edge)));
+                    shardWeights[fill++] = weights.get(edge);
+                }
+            }
+        }
+
+        CsrGraph<N> subgraph = new CsrGraph<>(nodes, ids, IntBuffer.wrap(shardOffsets), IntBuffer.wrap(shardTargets),
+                IntBuffer.wrap(shardWeights));
+
+        return new GraphShard<>(part, subgraph, boundary, cutEdges, pool);
+    }
+
+    /**
+     * @return the shards of all parts, see {@link #shard(int, ForkJoinPool)}
+     */
+    public List<GraphShard<N>> shards(ForkJoinPool pool) {
+        List<GraphShard<N>> shards = new ArrayList<>(parts);
+
+        for (int part = 0; part < parts; part++) {
+            shards.add(shard(part, pool));
+        }
+
+        return shards;
+    }
+}
@@ -0,0 +1,166 @@
+package com.graphs.graph;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link GraphMetrics} aggregating query costs into latency histograms and totals, per query type and
+ * overall, and remembering the slowest query. The overall figures can be published over JMX.
+ * @param <N> the generic type of nodes.
+ */
+public class QueryMetrics<N> implements GraphMetrics<N>, QueryMetricsMXBean {
+    private static final double NANOS_PER_MICRO = 1000.0;
+
+    private final Histogram latency = new Histogram();
+    private final Map<QueryType, Histogram> latencyByType = new EnumMap<>(QueryType.class);
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder settledNodes = new LongAdder();
+    private final LongAdder relaxedEdges = new LongAdder();
+    private final LongAdder heapOperations = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final AtomicReference<QueryStats<N>> slowest = new AtomicReference<>();
+    private volatile boolean allocationsUnknown;
+
+    public QueryMetrics() {
+        for (QueryType type : QueryType.values()) {
+            latencyByType.put(type, new Histogram());
+        }
+    }
+
+    @Override
+    public void onQuery(QueryStats<N> stats) {
+        latency.record(stats.getLatencyNanos());
+        latencyByType.get(stats.getType()).record(stats.getLatencyNanos());
+        settledNodes.add(stats.getSettledNodes());
+        relaxedEdges.add(stats.getRelaxedEdges());
+        heapOperations.add(stats.getHeapOperations());
+
+        if(stats.isCacheHit()) {
+            cacheHits.increment();
+        }
+
+        if(stats.getAllocatedBytes() < 0) {
+            allocationsUnknown = true;
+        } else {
+            allocatedBytes.add(stats.getAllocatedBytes());
+        }
+
+        slowest.accumulateAndGet(stats, (current, next) ->
+                current == null || next.getLatencyNanos() > current.getLatencyNanos() ? next : current);
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server under {@code com.graphs:type=QueryMetrics,name=<name>}.
+     * @return name of the registered MBean, to unregister it
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName("com.graphs:type=QueryMetrics,name=" + ObjectName.quote(name));
+
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    /**
+     * @return histogram of the latencies in nanoseconds of all queries
+     */
+    public Histogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return histogram of the latencies in nanoseconds of the queries of the given type
+     */
+    public Histogram getLatency(QueryType type) {
+        return latencyByType.get(type);
+    }
+
+    /**
+     * @return the slowest query since the last reset, or null
+     */
+    public QueryStats<N> getSlowest() {
+        return slowest.get();
+    }
+
+    @Override
+    public long getQueryCount() {
+        return latency.getCount();
+    }
+
+    @Override
+    public long getCacheHitCount() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public double getMeanLatencyMicros() {
+        return latency.getMean() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getP50LatencyMicros() {
+        return latency.getValueAtPercentile(50) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getP99LatencyMicros() {
+        return latency.getValueAtPercentile(99) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getP999LatencyMicros() {
+        return latency.getValueAtPercentile(99.9) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getMaxLatencyMicros() {
+        return latency.getMax() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getMeanSettledNodes() {
+        return perQuery(settledNodes);
+    }
+
+    @Override
+    public double getMeanRelaxedEdges() {
+        return perQuery(relaxedEdges);
+    }
+
+    @Override
+    public double getMeanHeapOperations() {
+        return perQuery(heapOperations);
+    }
+
+    @Override
+    public double getMeanAllocatedBytes() {
+        return allocationsUnknown ? -1 : perQuery(allocatedBytes);
+    }
+
+    @Override
+    public String getSlowestQuery() {
+        QueryStats<N> stats = slowest.get();
+        return stats == null ? "" : stats.toString();
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        latencyByType.values().forEach(Histogram::reset);
+        cacheHits.reset();
+        settledNodes.reset();
+        relaxedEdges.reset();
+        heapOperations.reset();
+        allocatedBytes.reset();
+        slowest.set(null);
+    }
+
+    private double perQuery(LongAdder total) {
+        long count = latency.getCount();
+        return count == 0 ? 0 : (double) total.sum() / count;
+    }
+}
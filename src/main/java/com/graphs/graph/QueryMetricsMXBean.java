@@ -0,0 +1,38 @@
+package com.graphs.graph;
+
+/**
+ * Management interface of {@link QueryMetrics}, covering queries of all types.
+ */
+public interface QueryMetricsMXBean {
+    long getQueryCount();
+
+    long getCacheHitCount();
+
+    double getMeanLatencyMicros();
+
+    double getP50LatencyMicros();
+
+    double getP99LatencyMicros();
+
+    double getP999LatencyMicros();
+
+    double getMaxLatencyMicros();
+
+    double getMeanSettledNodes();
+
+    double getMeanRelaxedEdges();
+
+    double getMeanHeapOperations();
+
+    /**
+     * @return mean bytes allocated per query, or -1 when the JVM cannot tell
+     */
+    double getMeanAllocatedBytes();
+
+    /**
+     * @return description of the slowest query since the last reset
+     */
+    String getSlowestQuery();
+
+    void reset();
+}
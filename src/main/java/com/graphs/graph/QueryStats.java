@@ -0,0 +1,118 @@
+package com.graphs.graph;
+
+/**
+ * Cost of a single graph query, created only for queries of a graph with {@link GraphMetrics} attached.
+ * @param <N> the generic type of nodes.
+ */
+public class QueryStats<N> {
+    private final QueryType type;
+    private final SearchStrategy strategy;
+    private final N source;
+    private final N dest;
+    int settledNodes;
+    int relaxedEdges;
+    int heapOperations;
+    boolean cacheHit;
+    long latencyNanos;
+    long allocatedBytes = -1;
+    private long startNanos;
+    private long allocatedBefore;
+
+    QueryStats(QueryType type, SearchStrategy strategy, N source, N dest) {
+        this.type = type;
+        this.strategy = strategy;
+        this.source = source;
+        this.dest = dest;
+    }
+
+    /**
+     * Starts timing the query and counting the bytes it allocates.
+     */
+    void start() {
+        allocatedBefore = ThreadAllocations.current();
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Records the latency and allocations of the query since {@link #start()}.
+     */
+    void stop() {
+        latencyNanos = System.nanoTime() - startNanos;
+        allocatedBytes = allocatedBefore < 0 ? -1 : ThreadAllocations.current() - allocatedBefore;
+    }
+
+    /**
+     * Adds the steps counted by a search of the query.
+     */
+    void addSteps(int settledNodes, int relaxedEdges, int heapOperations) {
+        this.settledNodes += settledNodes;
+        this.relaxedEdges += relaxedEdges;
+        this.heapOperations += heapOperations;
+    }
+
+    public QueryType getType() {
+        return type;
+    }
+
+    public SearchStrategy getStrategy() {
+        return strategy;
+    }
+
+    public N getSource() {
+        return source;
+    }
+
+    /**
+     * @return destination of the query, or null for queries without one
+     */
+    public N getDest() {
+        return dest;
+    }
+
+    /**
+     * @return number of times a node was taken from the heap and expanded
+     */
+    public int getSettledNodes() {
+        return settledNodes;
+    }
+
+    /**
+     * @return number of edges looked at from expanded nodes
+     */
+    public int getRelaxedEdges() {
+        return relaxedEdges;
+    }
+
+    /**
+     * @return number of heap insertions and removals
+     */
+    public int getHeapOperations() {
+        return heapOperations;
+    }
+
+    /**
+     * @return whether the result came from the attached {@link ShortestPathCache} without searching
+     */
+    public boolean isCacheHit() {
+        return cacheHit;
+    }
+
+    public long getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    /**
+     * @return bytes allocated by the querying thread during the query, or -1 when the JVM cannot tell
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + strategy + " from " + source + (dest != null ? " to " + dest : "")
+                + (cacheHit ? " (cached)" : "") + ": " + latencyNanos / 1000 + " us, " + settledNodes
+                + " settled, " + relaxedEdges + " relaxed, " + heapOperations + " heap operations, "
+                + allocatedBytes + " bytes allocated";
+    }
+}
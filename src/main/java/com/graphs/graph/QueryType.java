@@ -0,0 +1,23 @@
+package com.graphs.graph;
+
+/**
+ * Kinds of {@link Graph} queries reported to {@link GraphMetrics}.
+ */
+public enum QueryType {
+    /**
+     * {@link Graph#shortestPath(Object, Object, SearchStrategy)}, or without full search.
+     */
+    SHORTEST_PATH,
+    /**
+     * {@link Graph#shortestPath(Object, Object, boolean)} with full search.
+     */
+    FULL_SEARCH,
+    /**
+     * {@link Graph#nodesWithinRangeOf(Object, int)}.
+     */
+    NODES_WITHIN_RANGE,
+    /**
+     * {@link Graph#nearestNodes(Object, int, java.util.function.Predicate)}.
+     */
+    NEAREST_NODES
+}
@@ -0,0 +1,50 @@
+package com.graphs.graph;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Search working states owned by a snapshot, lent to one query at a time and taken back when it is done.
+ * Concurrent queries each borrow their own state and later queries reuse them. Unlike thread locals, the
+ * states are dropped together with the snapshot instead of staying with every thread which queried it.
+ * @param <T> the type of working state
+ */
+class ScratchPool<T> {
+    private final Supplier<T> factory;
+    /**
+     * Idle states, null for empty slots.
+     */
+    private final AtomicReferenceArray<T> idle;
+
+    ScratchPool(Supplier<T> factory) {
+        this.factory = factory;
+        this.idle = new AtomicReferenceArray<>(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    /**
+     * @return an idle state, or a new one when all of them are lent
+     */
+    T borrow() {
+        for (int i = 0; i < idle.length(); i++) {
+            T state = idle.get(i);
+
+            if(state != null && idle.compareAndSet(i, state, null)) {
+                return state;
+            }
+        }
+
+        return factory.get();
+    }
+
+    /**
+     * Takes back a state borrowed by a query which is done with it. States beyond the capacity of the
+     * pool are dropped.
+     */
+    void release(T state) {
+        for (int i = 0; i < idle.length(); i++) {
+            if(idle.get(i) == null && idle.compareAndSet(i, null, state)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.graphs.graph;
+
+/**
+ * Algorithms available for point to point shortest path searches.
+ */
+public enum SearchStrategy {
+    /**
+     * Dijkstra's algorithm growing a single search from the source until the destination is settled.
+     */
+    DIJKSTRA,
+    /**
+     * Two Dijkstra searches, one from the source and one from the destination, which stop once they
+     * meet in the middle. Usually settles far fewer nodes on long routes.
+     */
+    BIDIRECTIONAL,
+    /**
+     * A* search guided by the {@link Heuristic} of the graph, see {@link Graph#setHeuristic(Heuristic)}.
+     * Settles fewer nodes the closer the estimates are to the real costs.
+     */
+    A_STAR
+}
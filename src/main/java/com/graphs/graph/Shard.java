@@ -0,0 +1,41 @@
+package com.graphs.graph;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Queries answered by one part of a partitioned graph, see {@link ShardedRouter}. A shard only knows the
+ * nodes of its part, the edges between them and the edges leaving the part from its boundary nodes.
+ * Shards may live in other processes and be reached through a {@link ShardTransport}, so results are
+ * kept small and never hold more than the shard's own nodes.
+ * @param <N> the generic type of nodes.
+ */
+public interface Shard<N> {
+    int getId();
+
+    /**
+     * @return nodes of the shard with an edge to another shard, in a fixed order
+     */
+    List<N> getBoundaryNodes();
+
+    /**
+     * @return lowest costs between the boundary nodes along edges within the shard
+     */
+    DistanceMatrix<N> getBoundaryDistances();
+
+    /**
+     * @return edges leaving the shard, from each boundary node to the nodes of other shards with their weights
+     */
+    Map<N, Map<N, Integer>> getCutEdges();
+
+    /**
+     * @return lowest cost along edges within the shard from the node to each boundary node, in the order of
+     *         {@link #getBoundaryNodes()}, {@link DistanceMatrix#UNREACHABLE} where there is none
+     */
+    int[] distancesToBoundary(N node);
+
+    /**
+     * @return lowest cost route along edges within the shard, with the lowest costs of the nodes on it
+     */
+    ShortestPath<N> shortestPath(N from, N to);
+}
@@ -0,0 +1,16 @@
+package com.graphs.graph;
+
+/**
+ * Reaches the shards of a partitioned graph for a {@link ShardedRouter}, e.g. over the network when each
+ * shard is served by its own process.
+ * @param <N> the generic type of nodes.
+ */
+public interface ShardTransport<N> {
+    int getShardCount();
+
+    /**
+     * @param id id of the shard, between 0 and the number of shards
+     * @return the shard, or a stub forwarding its queries
+     */
+    Shard<N> shard(int id);
+}
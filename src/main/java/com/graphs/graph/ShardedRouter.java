@@ -0,0 +1,305 @@
+package com.graphs.graph;
+
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+/**
+ * Answers shortest path queries over a graph split into {@link Shard}s, holding only the boundary nodes of
+ * all shards itself.
+ * <p>
+ * When created, the router fetches from every shard the lowest costs between its boundary nodes and the
+ * edges leaving it, and joins them into an overlay graph over all boundary nodes. A query asks the shard of
+ * the source for the costs from the source to its boundary nodes and the shard of the destination for the
+ * costs from its boundary nodes to the destination, then runs Dijkstra's algorithm over the overlay. Since
+ * every route leaving a shard does so through its boundary nodes, the result is exact; routes which stay in
+ * a single shard are asked from the shard directly. Only the shards along the route are asked for their
+ * parts of it.
+ * @param <N> the generic type of nodes.
+ */
+public class ShardedRouter<N> {
+    /**
+     * Shard of an overlay edge which is an edge between two shards.
+     */
+    private static final int CUT_EDGE = -1;
+    private static final int NO_EDGE = -1;
+
+    private final ShardTransport<N> transport;
+    private final ToIntFunction<N> shardOf;
+    private final List<N> overlayNodes = new ArrayList<>();
+    private final Map<N, Integer> overlayIds = new HashMap<>();
+    /**
+     * Overlay ids of the boundary nodes of each shard, in the order the shard lists them.
+     */
+    private final int[][] boundaryIds;
+    private final int[] offsets;
+    private final int[] sources;
+    private final int[] targets;
+    private final int[] weights;
+    /**
+     * Shard whose inside each overlay edge stands for, or {@link #CUT_EDGE}.
+     */
+    private final int[] edgeShards;
+    private volatile GraphMetrics<N> metrics;
+
+    /**
+     * @param shardOf id of the shard holding each node
+     */
+    public ShardedRouter(ShardTransport<N> transport, ToIntFunction<N> shardOf) {
+        this.transport = transport;
+        this.shardOf = shardOf;
+
+        int shardCount = transport.getShardCount();
+        List<DistanceMatrix<N>> tables = new ArrayList<>(shardCount);
+        List<Map<N, Map<N, Integer>>> cutEdges = new ArrayList<>(shardCount);
+        boundaryIds = new int[shardCount][];
+
+        for (int shard = 0; shard < shardCount; shard++) {
+            Shard<N> remote = transport.shard(shard);
+            List<N> boundary = remote.getBoundaryNodes();
+
+            boundaryIds[shard] = new int[boundary.size()];
+
+            for (int i = 0; i < boundary.size(); i++) {
+                boundaryIds[shard][i] = overlayIds.size();
+                overlayIds.put(boundary.get(i), overlayIds.size());
+                overlayNodes.add(boundary.get(i));
+            }
+
+            tables.add(remote.getBoundaryDistances());
+            cutEdges.add(remote.getCutEdges());
+        }
+
+        int size = overlayNodes.size();
+        offsets = new int[size + 1];
+
+        // Count the edges of each overlay node, then fill them in the same order
+        forEachOverlayEdge(tables, cutEdges, (from, to, weight, shard) -> offsets[from + 1]++);
+
+        for (int id = 0; id < size; id++) {
+            offsets[id + 1] += offsets[id];
+        }
+
+        sources = new int[offsets[size]];
+        targets = new int[offsets[size]];
+        weights = new int[offsets[size]];
+        edgeShards = new int[offsets[size]];
+        int[] fill = Arrays.copyOf(offsets, size);
+
+        forEachOverlayEdge(tables, cutEdges, (from, to, weight, shard) -> {
+            sources[fill[from]] = from;
+            targets[fill[from]] = to;
+            weights[fill[from]] = weight;
+            edgeShards[fill[from]++] = shard;
+        });
+    }
+
+    /**
+     * @return number of boundary nodes over all shards
+     */
+    public int getOverlaySize() {
+        return overlayNodes.size();
+    }
+
+    /**
+     * @return lowest cost route from source to destination across shards, with the lowest costs of the nodes
+     *         on it; no nodes and a cost of {@link DistanceMatrix#UNREACHABLE} when there is none
+     */
+    public ShortestPath<N> shortestPath(N source, N dest) {
+        if(metrics == null) {
+            return route(source, dest, null);
+        }
+
+        QueryStats<N> stats = new QueryStats<>(QueryType.SHORTEST_PATH, SearchStrategy.DIJKSTRA, source, dest);
+        stats.start();
+        ShortestPath<N> shortestPath = route(source, dest, stats);
+        stats.stop();
+
+        GraphMetrics<N> currentMetrics = metrics;
+
+        if(currentMetrics != null) {
+            currentMetrics.onQuery(stats);
+        }
+
+        return shortestPath;
+    }
+
+    /**
+     * Reports each query with the wall time spent in the shards and the steps of the search over the overlay.
+     * @param metrics the metrics, or null to stop reporting
+     */
+    public void setMetrics(GraphMetrics<N> metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * @param stats stats counting the steps of the overlay search, or null when the query is not measured
+     */
+    private ShortestPath<N> route(N source, N dest, QueryStats<N> stats) {
+        int sourceShard = shardOf.applyAsInt(source);
+        int destShard = shardOf.applyAsInt(dest);
+        Shard<N> first = transport.shard(sourceShard);
+        Shard<N> last = transport.shard(destShard);
+
+        ShortestPath<N> direct = sourceShard == destShard ? first.shortestPath(source, dest) : null;
+        int best = direct != null ? direct.getCost() : DistanceMatrix.UNREACHABLE;
+
+        int size = overlayNodes.size();
+        int[] distance = new int[size];
+        int[] predecessorEdges = new int[size];
+        int[] exitCosts = new int[size];
+        boolean[] settled = new boolean[size];
+        IntMinHeap heap = new IntMinHeap(size);
+
+        Arrays.fill(distance, DistanceMatrix.UNREACHABLE);
+        Arrays.fill(predecessorEdges, NO_EDGE);
+        Arrays.fill(exitCosts, DistanceMatrix.UNREACHABLE);
+
+        int settledNodes = 0;
+        int relaxedEdges = 0;
+        int heapOperations = 0;
+        int[] fromSource = boundaryIds[sourceShard].length == 0 ? new int[0] : first.distancesToBoundary(source);
+        int[] toDest = boundaryIds[destShard].length == 0 ? new int[0] : last.distancesToBoundary(dest);
+
+        for (int i = 0; i < toDest.length; i++) {
+            exitCosts[boundaryIds[destShard][i]] = toDest[i];
+        }
+
+        for (int i = 0; i < fromSource.length; i++) {
+            if(fromSource[i] != DistanceMatrix.UNREACHABLE) {
+                distance[boundaryIds[sourceShard][i]] = fromSource[i];
+                heap.insertOrDecrease(boundaryIds[sourceShard][i], fromSource[i]);
+                heapOperations++;
+            }
+        }
+
+        int exit = DijkstraSearch.NO_NODE;
+
+        // Costs only grow from here, so stop once they cannot beat the best route found
+        while (!heap.isEmpty() && heap.peekKey() < best) {
+            int current = heap.poll();
+            settled[current] = true;
+            settledNodes++;
+            heapOperations++;
+            relaxedEdges += offsets[current + 1] - offsets[current];
+
+            if(exitCosts[current] != DistanceMatrix.UNREACHABLE && distance[current] + exitCosts[current] < best) {
+                best = distance[current] + exitCosts[current];
+                exit = current;
+            }
+
+            for (int edge = offsets[current]; edge < offsets[current + 1]; edge++) {
+                int child = targets[edge];
+                int alternate = distance[current] + weights[edge];
+
+                if(!settled[child] && alternate < distance[child]) {
+                    distance[child] = alternate;
+                    predecessorEdges[child] = edge;
+                    heap.insertOrDecrease(child, alternate);
+                    heapOperations++;
+                }
+            }
+        }
+
+        if(stats != null) {
+            stats.addSteps(settledNodes, relaxedEdges, heapOperations);
+        }
+
+        if(exit == DijkstraSearch.NO_NODE) {
+            return direct != null ? direct : unreachable();
+        }
+
+        return unpack(source, dest, exit, distance, predecessorEdges, best);
+    }
+
+    /**
+     * Asks the shards along the overlay route for their parts of the full route.
+     */
+    private ShortestPath<N> unpack(N source, N dest, int exit, int[] distance, int[] predecessorEdges, int cost) {
+        Deque<Integer> edges = new ArrayDeque<>();
+        int entry = exit;
+
+        while (predecessorEdges[entry] != NO_EDGE) {
+            edges.addFirst(predecessorEdges[entry]);
+            entry = sources[predecessorEdges[entry]];
+        }
+
+        List<N> route = new ArrayList<>();
+        Map<N, Integer> lowestCosts = new HashMap<>();
+
+        append(route, lowestCosts, transport.shard(shardOf.applyAsInt(source)).shortestPath(source,
+                overlayNodes.get(entry)), 0);
+
+        for (int edge : edges) {
+            int from = sources[edge];
+            N to = overlayNodes.get(targets[edge]);
+
+            if(edgeShards[edge] == CUT_EDGE) {
+                route.add(to);
+                lowestCosts.put(to, distance[targets[edge]]);
+            } else {
+                append(route, lowestCosts, transport.shard(edgeShards[edge]).shortestPath(overlayNodes.get(from), to),
+                        distance[from]);
+            }
+        }
+
+        append(route, lowestCosts, transport.shard(shardOf.applyAsInt(dest)).shortestPath(overlayNodes.get(exit),
+                dest), distance[exit]);
+
+        ShortestPath<N> shortestPath = new ShortestPath<>();
+        shortestPath.setCost(cost);
+        shortestPath.setLowestCosts(lowestCosts);
+        shortestPath.setNodes(route);
+
+        return shortestPath;
+    }
+
+    /**
+     * Appends the part of the route found within a shard, whose first node ends the route so far.
+     */
+    private void append(List<N> route, Map<N, Integer> lowestCosts, ShortestPath<N> part, int offset) {
+        for (N node : part.getNodes()) {
+            if(route.isEmpty() || !route.get(route.size() - 1).equals(node)) {
+                route.add(node);
+            }
+
+            lowestCosts.put(node, offset + part.getLowestCosts().get(node));
+        }
+    }
+
+    private ShortestPath<N> unreachable() {
+        ShortestPath<N> shortestPath = new ShortestPath<>();
+        shortestPath.setCost(DistanceMatrix.UNREACHABLE);
+        shortestPath.setLowestCosts(new HashMap<>());
+        shortestPath.setNodes(List.of());
+
+        return shortestPath;
+    }
+
+    /**
+     * Reports the edges between the boundary nodes of each shard, where the shard connects them, and the
+     * edges between shards.
+     */
+    private void forEachOverlayEdge(List<DistanceMatrix<N>> tables, List<Map<N, Map<N, Integer>>> cutEdges,
+                                    OverlayEdgeConsumer consumer) {
+        for (int shard = 0; shard < tables.size(); shard++) {
+            DistanceMatrix<N> table = tables.get(shard);
+            int[] ids = boundaryIds[shard];
+
+            for (int row = 0; row < ids.length; row++) {
+                for (int column = 0; column < ids.length; column++) {
+                    if(row != column && table.get(row, column) != DistanceMatrix.UNREACHABLE) {
+                        consumer.accept(ids[row], ids[column], table.get(row, column), shard);
+                    }
+                }
+            }
+
+            cutEdges.get(shard).forEach((from, neighbours) -> neighbours.forEach((to, weight) ->
+                    consumer.accept(overlayIds.get(from), overlayIds.get(to), weight, CUT_EDGE)));
+        }
+    }
+
+    @FunctionalInterface
+    private interface OverlayEdgeConsumer {
+        void accept(int from, int to, int weight, int shard);
+    }
+}
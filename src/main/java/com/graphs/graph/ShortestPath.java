@@ -1,6 +1,8 @@
 package com.graphs.graph;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
@@ -9,6 +11,12 @@ public class ShortestPath<N> {
     private final Set<N> nodes = new LinkedHashSet<>();
     private int cost;
     private Map<N, Integer> lowestCosts;
+    /**
+     * Predecessor of each node reached by the search. The route is only rebuilt from it
+     * when the nodes are requested.
+     */
+    private Map<N, N> predecessors;
+    private N dest;
 
     public void addNode(N node) {
         if(node == null) {
@@ -24,11 +32,38 @@ public class ShortestPath<N> {
         }
 
         nodes.clear();
+        predecessors = null;
 
         nodes.addAll(nodesss);
     }
 
+    /**
+     * Sets the predecessors recorded by the search, from which the route from source to
+     * destination is rebuilt on demand.
+     * @param dest destination node of the route
+     * @param predecessors mapping from each reached node to the node it was reached from;
+     *                     the source node has no predecessor
+     */
+    public void setPredecessors(N dest, Map<N, N> predecessors) {
+        if(predecessors == null) {
+            throw new NullPointerException("No null predecessors allowed");
+        }
+
+        nodes.clear();
+        this.dest = dest;
+        this.predecessors = predecessors;
+    }
+
+    /**
+     * @return nodes of the route in order from source to destination, or no nodes when the
+     *         destination was not reached
+     */
     public Set<N> getNodes() {
+        if(predecessors != null) {
+            nodes.addAll(rebuildRoute());
+            predecessors = null;
+        }
+
         return nodes;
     }
 
@@ -47,4 +82,18 @@ public class ShortestPath<N> {
     public void setLowestCosts(Map<N, Integer> lowestCosts) {
         this.lowestCosts = lowestCosts;
     }
+
+    private Deque<N> rebuildRoute() {
+        Deque<N> route = new ArrayDeque<>();
+
+        if(lowestCosts == null || !lowestCosts.containsKey(dest)) {
+            return route;
+        }
+
+        for(N node = dest; node != null; node = predecessors.get(node)) {
+            route.addFirst(node);
+        }
+
+        return route;
+    }
 }
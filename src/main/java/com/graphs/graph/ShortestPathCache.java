@@ -0,0 +1,180 @@
+package com.graphs.graph;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded cache of shortest path search results. Holds routes between pairs of nodes and full single
+ * source searches, evicting the least recently used entry once full and expiring entries after a
+ * fixed time. The {@link Graph} it is attached to invalidates it whenever the graph changes.
+ * Safe for use from many threads.
+ * @param <N> the generic type of nodes.
+ */
+public class ShortestPathCache<N> {
+    private final int maxSize;
+    private final long expireAfterNanos;
+    private final LongSupplier ticker;
+    private final Map<Key<N>, CachedSearch<N>> entries;
+
+    /**
+     * Incremented on each invalidation, so that results of searches which started before it are
+     * not cached.
+     */
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param maxSize maximum number of cached results
+     * @param expireAfter time after which a cached result is discarded
+     */
+    public ShortestPathCache(int maxSize, Duration expireAfter) {
+        this(maxSize, expireAfter, System::nanoTime);
+    }
+
+    ShortestPathCache(int maxSize, Duration expireAfter, LongSupplier ticker) {
+        if(maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive.");
+        }
+
+        this.maxSize = maxSize;
+        this.expireAfterNanos = expireAfter.toNanos();
+        this.ticker = ticker;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key<N>, CachedSearch<N>> eldest) {
+                if(size() > ShortestPathCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * @return ratio of lookups answered from the cache, or 0 when there were no lookups yet
+     */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Drops all cached results.
+     */
+    public synchronized void invalidate() {
+        entries.clear();
+        generation++;
+    }
+
+    synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Looks up the result of a search from source which stopped at dest, falling back to a full
+     * search from source.
+     * @param dest destination of the search, or null to only look for a full search
+     * @return the cached result or null
+     */
+    synchronized CachedSearch<N> get(N source, N dest) {
+        CachedSearch<N> entry = dest == null ? null : lookup(new Key<>(source, dest));
+
+        if(entry == null) {
+            entry = lookup(new Key<>(source, null));
+        }
+
+        if(entry == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+
+        return entry;
+    }
+
+    /**
+     * Caches a result unless the cache was invalidated since the search started. The maps must not
+     * be modified afterwards.
+     * @param dest destination at which the search stopped, or null for a full search
+     * @param generation {@link #generation()} at the start of the search
+     */
+    synchronized void put(N source, N dest, Map<N, Integer> distance, Map<N, N> predecessors, long generation) {
+        if(generation == this.generation) {
+            entries.put(new Key<>(source, dest),
+                    new CachedSearch<>(distance, predecessors, ticker.getAsLong()));
+        }
+    }
+
+    private CachedSearch<N> lookup(Key<N> key) {
+        CachedSearch<N> entry = entries.get(key);
+
+        if(entry != null && ticker.getAsLong() - entry.createdAt >= expireAfterNanos) {
+            entries.remove(key);
+            return null;
+        }
+
+        return entry;
+    }
+
+    static final class CachedSearch<N> {
+        final Map<N, Integer> distance;
+        final Map<N, N> predecessors;
+        private final long createdAt;
+
+        private CachedSearch(Map<N, Integer> distance, Map<N, N> predecessors, long createdAt) {
+            this.distance = distance;
+            this.predecessors = predecessors;
+            this.createdAt = createdAt;
+        }
+    }
+
+    private static final class Key<N> {
+        private final N source;
+        private final N dest;
+
+        private Key(N source, N dest) {
+            this.source = source;
+            this.dest = dest;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) {
+                return true;
+            }
+
+            if(!(o instanceof Key)) {
+                return false;
+            }
+
+            Key<?> other = (Key<?>) o;
+            return source.equals(other.source) && Objects.equals(dest, other.dest);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * source.hashCode() + Objects.hashCode(dest);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.graphs.graph;
+
+import java.util.*;
+
+import static java.util.Collections.emptyMap;
+
+/**
+ * Lowest costs and routes from one source to all nodes of a {@link Graph}, kept up to date as edges change.
+ * Obtained from {@link Graph#trackShortestPaths(Object)}.
+ * <p>
+ * Changes are repaired in the style of Ramalingam and Reps. When an edge gets shorter or is added, a Dijkstra
+ * search starts from its end which it brings closer and only goes on through nodes it brings closer too. When
+ * an edge of the tree gets longer or is removed, only the nodes whose route led through it lose their
+ * distance; each takes the best offer of its unaffected neighbours and a Dijkstra search among the affected
+ * nodes settles them again. Changes of edges outside the tree which do not shorten them cost nothing.
+ * Instances are thread safe.
+ * @param <N> the generic type of nodes.
+ */
+public class ShortestPathTree<N> {
+    private final Map<N, Map<N, Integer>> nodes;
+    private final N source;
+    private final Map<N, Integer> distance = new HashMap<>();
+    private final Map<N, N> predecessors = new HashMap<>();
+    private int lastRepairSize;
+
+    ShortestPathTree(Map<N, Map<N, Integer>> nodes, N source) {
+        this.nodes = nodes;
+        this.source = source;
+        recompute();
+    }
+
+    public N getSource() {
+        return source;
+    }
+
+    /**
+     * @return lowest cost from the source to the node, or {@link Integer#MAX_VALUE} if it is unreachable
+     */
+    public synchronized int getDistance(N node) {
+        return distance.getOrDefault(node, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return the same result as {@link Graph#shortestPath(Object, Object, boolean)} with full search
+     */
+    public synchronized ShortestPath<N> shortestPathTo(N dest) {
+        ShortestPath<N> shortestPath = new ShortestPath<>();
+        shortestPath.setCost(getDistance(dest));
+        shortestPath.setLowestCosts(new HashMap<>(distance));
+        shortestPath.setPredecessors(dest, new HashMap<>(predecessors));
+
+        return shortestPath;
+    }
+
+    /**
+     * @return number of nodes whose distance was recomputed by the last change
+     */
+    public synchronized int getLastRepairSize() {
+        return lastRepairSize;
+    }
+
+    /**
+     * Computes the whole tree from scratch.
+     */
+    synchronized void recompute() {
+        distance.clear();
+        predecessors.clear();
+        distance.put(source, 0);
+        lastRepairSize = propagate(new ArrayDeque<>(List.of(source)));
+    }
+
+    /**
+     * Repairs the tree after the weight of the edge changed. The graph must already hold the new weight.
+     * @param oldWeight weight before the change, or null if the edge was added
+     * @param newWeight weight after the change, or null if the edge was removed
+     */
+    synchronized void edgeChanged(N from, N to, Integer oldWeight, Integer newWeight) {
+        if(newWeight != null && (oldWeight == null || newWeight < oldWeight)) {
+            Deque<N> improved = new ArrayDeque<>();
+
+            relax(from, to, newWeight, improved);
+            relax(to, from, newWeight, improved);
+            lastRepairSize = propagate(improved);
+        } else if(oldWeight != null && !oldWeight.equals(newWeight)) {
+            if(from.equals(predecessors.get(to))) {
+                lastRepairSize = repairSubtree(to);
+            } else if(to.equals(predecessors.get(from))) {
+                lastRepairSize = repairSubtree(from);
+            } else {
+                lastRepairSize = 0;
+            }
+        } else {
+            lastRepairSize = 0;
+        }
+    }
+
+    /**
+     * Detaches the nodes routed through the given node, offers each of them its best distance over
+     * a neighbour outside the subtree and settles them again.
+     * @return number of detached nodes
+     */
+    private int repairSubtree(N root) {
+        Set<N> affected = new LinkedHashSet<>();
+        Deque<N> queue = new ArrayDeque<>();
+
+        affected.add(root);
+        queue.add(root);
+
+        while (!queue.isEmpty()) {
+            N current = queue.pollFirst();
+
+            for (N child : adjacency(current).keySet()) {
+                if(current.equals(predecessors.get(child)) && affected.add(child)) {
+                    queue.add(child);
+                }
+            }
+        }
+
+        for (N node : affected) {
+            distance.remove(node);
+            predecessors.remove(node);
+        }
+
+        Deque<N> offered = new ArrayDeque<>();
+
+        for (N node : affected) {
+            adjacency(node).forEach((neighbour, weight) -> {
+                if(!affected.contains(neighbour)) {
+                    relax(neighbour, node, weight, offered);
+                }
+            });
+        }
+
+        propagate(offered);
+
+        return affected.size();
+    }
+
+    /**
+     * Lowers the distance of {@code to} when it is shorter through {@code from}.
+     */
+    private void relax(N from, N to, int weight, Deque<N> improved) {
+        Integer fromDistance = distance.get(from);
+
+        if(fromDistance == null) {
+            return;
+        }
+
+        int alternate = fromDistance + weight;
+        Integer known = distance.get(to);
+
+        if(known == null || alternate < known) {
+            distance.put(to, alternate);
+            predecessors.put(to, from);
+            improved.add(to);
+        }
+    }
+
+    /**
+     * Dijkstra's algorithm from the given nodes with their current distances, which only goes on through
+     * nodes whose distance it lowers.
+     * @return number of settled nodes
+     */
+    private int propagate(Collection<N> starts) {
+        final PriorityQueue<Map.Entry<N, Integer>> queue = new PriorityQueue<>(Map.Entry.comparingByValue());
+        final Set<N> visited = new HashSet<>();
+
+        for (N start : starts) {
+            queue.add(Map.entry(start, distance.get(start)));
+        }
+
+        while (!queue.isEmpty()) {
+            Map.Entry<N, Integer> next = queue.poll();
+            N current = next.getKey();
+
+            // The heap keeps outdated entries instead of decreasing keys, skip them
+            if(next.getValue() > distance.get(current) || !visited.add(current)) {
+                continue;
+            }
+
+            Deque<N> improved = new ArrayDeque<>();
+
+            adjacency(current).forEach((child, weight) -> relax(current, child, weight, improved));
+
+            for (N child : improved) {
+                queue.add(Map.entry(child, distance.get(child)));
+            }
+        }
+
+        return visited.size();
+    }
+
+    private Map<N, Integer> adjacency(N node) {
+        return nodes.getOrDefault(node, emptyMap());
+    }
+}
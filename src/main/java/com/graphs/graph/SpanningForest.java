@@ -0,0 +1,105 @@
+package com.graphs.graph;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Kruskal's algorithm over a graph in compressed sparse row layout with both directions of each edge present.
+ * <p>
+ * Each edge is taken once, packed with its weight into a single long and the longs are sorted, in parallel
+ * if asked to, so the sort needs no objects and memory grows by a few longs per edge. The edges are then
+ * joined in order of increasing weight whenever they connect two different trees, tracked by a union-find
+ * over the node ids.
+ */
+class SpanningForest {
+    private SpanningForest() {
+    }
+
+    /**
+     * @param parallel whether the edges are sorted in parallel on the common pool
+     * @return indices into {@code targets} of the edges of a minimum spanning forest, one per tree edge
+     *         and leading from the lower to the higher node id
+     */
+    static int[] select(IntBuffer offsets, IntBuffer targets, IntBuffer weights, boolean parallel) {
+        int size = offsets.limit() - 1;
+        long[] edges = new long[targets.limit() / 2];
+        int edgeCount = 0;
+
+        for (int id = 0; id < size; id++) {
+            for (int edge = offsets.get(id); edge < offsets.get(id + 1); edge++) {
+                if(targets.get(edge) > id) {
+                    // Weights are positive, so the longs sort by weight and then by edge index
+                    edges[edgeCount++] = (long) weights.get(edge) << 32 | edge;
+                }
+            }
+        }
+
+        if(parallel) {
+            Arrays.parallelSort(edges, 0, edgeCount);
+        } else {
+            Arrays.sort(edges, 0, edgeCount);
+        }
+
+        int[] parents = new int[size];
+        int[] sizes = new int[size];
+        int[] selected = new int[Math.max(0, size - 1)];
+        int selectedCount = 0;
+
+        for (int id = 0; id < size; id++) {
+            parents[id] = id;
+            sizes[id] = 1;
+        }
+
+        for (int i = 0; i < edgeCount && selectedCount < selected.length; i++) {
+            int edge = (int) edges[i];
+            int fromRoot = find(parents, sourceOf(offsets, edge));
+            int toRoot = find(parents, targets.get(edge));
+
+            if(fromRoot == toRoot) {
+                continue;
+            }
+
+            if(sizes[fromRoot] < sizes[toRoot]) {
+                int swap = fromRoot;
+                fromRoot = toRoot;
+                toRoot = swap;
+            }
+
+            parents[toRoot] = fromRoot;
+            sizes[fromRoot] += sizes[toRoot];
+            selected[selectedCount++] = edge;
+        }
+
+        return Arrays.copyOf(selected, selectedCount);
+    }
+
+    /**
+     * @return id of the node whose edges hold the given edge index
+     */
+    static int sourceOf(IntBuffer offsets, int edge) {
+        int low = 0;
+        int high = offsets.limit() - 2;
+
+        // Last id whose first edge is not after the edge, skipping nodes without edges
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+
+            if(offsets.get(middle) <= edge) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return low;
+    }
+
+    private static int find(int[] parents, int id) {
+        while (parents[id] != id) {
+            parents[id] = parents[parents[id]];
+            id = parents[id];
+        }
+
+        return id;
+    }
+}
@@ -0,0 +1,34 @@
+package com.graphs.graph;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Reads the number of bytes allocated by the current thread, when the JVM keeps track of it.
+ */
+final class ThreadAllocations {
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    private ThreadAllocations() {
+    }
+
+    /**
+     * @return bytes allocated by the current thread so far, or -1 when unsupported
+     */
+    static long current() {
+        return THREADS == null ? -1 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        if(threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean extended = (com.sun.management.ThreadMXBean) threads;
+
+            if(extended.isThreadAllocatedMemorySupported() && extended.isThreadAllocatedMemoryEnabled()) {
+                return extended;
+            }
+        }
+
+        return null;
+    }
+}
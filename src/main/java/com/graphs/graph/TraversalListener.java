@@ -0,0 +1,21 @@
+package com.graphs.graph;
+
+/**
+ * Receives the nodes of a traversal in the order they are visited.
+ * @param <N> the generic type of nodes.
+ */
+@FunctionalInterface
+public interface TraversalListener<N> {
+    /**
+     * @param node visited node
+     * @param distance weighted distance from the start node along the traversal
+     */
+    void onVisit(N node, int distance);
+
+    /**
+     * @return listener which ignores all events
+     */
+    static <N> TraversalListener<N> none() {
+        return (node, distance) -> { };
+    }
+}
@@ -0,0 +1,19 @@
+package com.graphs.road;
+
+/**
+ * Receives the progress of a {@link RoadNetworkImporter} while it reads a file.
+ */
+@FunctionalInterface
+public interface ImportListener {
+    /**
+     * Called after each batch of records is added to the network, and once when the file is done.
+     */
+    void onProgress(ImportProgress progress);
+
+    /**
+     * @return listener which ignores all events
+     */
+    static ImportListener none() {
+        return progress -> { };
+    }
+}
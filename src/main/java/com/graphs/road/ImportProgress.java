@@ -0,0 +1,71 @@
+package com.graphs.road;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Snapshot of how far an import has read through a file.
+ */
+public class ImportProgress {
+    private final Path file;
+    private final long bytesRead;
+    private final long totalBytes;
+    private final long records;
+    private final Duration elapsed;
+
+    ImportProgress(Path file, long bytesRead, long totalBytes, long records, Duration elapsed) {
+        this.file = file;
+        this.bytesRead = bytesRead;
+        this.totalBytes = totalBytes;
+        this.records = records;
+        this.elapsed = elapsed;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * @return number of towns or roads added so far
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * @return share of the file read so far, between 0 and 1
+     */
+    public double getFraction() {
+        return totalBytes == 0 ? 1 : (double) bytesRead / totalBytes;
+    }
+
+    public double getRecordsPerSecond() {
+        return records / seconds();
+    }
+
+    public double getBytesPerSecond() {
+        return bytesRead / seconds();
+    }
+
+    private double seconds() {
+        return Math.max(elapsed.toNanos(), 1) / 1e9;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %.1f%% read, %d records, %.0f records/s, %.1f MB/s", file.getFileName(),
+                100 * getFraction(), records, getRecordsPerSecond(), getBytesPerSecond() / (1 << 20));
+    }
+}
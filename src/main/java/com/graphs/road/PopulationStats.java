@@ -0,0 +1,75 @@
+package com.graphs.road;
+
+import com.graphs.graph.Histogram;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running aggregates of the populations of the towns in a {@link TownRoadNetwork}, updated as towns are
+ * added so that reading them never walks the towns. Percentiles come from a log-linear histogram and are
+ * within about 3% of the exact values. Instances are thread safe.
+ */
+public class PopulationStats {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+    private final Histogram histogram = new Histogram();
+
+    PopulationStats() {
+    }
+
+    void add(int population) {
+        count.increment();
+        total.add(population);
+        min.accumulate(population);
+        max.accumulate(population);
+        // The histogram only holds non negative values
+        histogram.record(Math.max(0, population));
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotal() {
+        return total.sum();
+    }
+
+    /**
+     * @return the smallest population, or 0 when there are no towns
+     */
+    public int getMin() {
+        return getCount() == 0 ? 0 : (int) min.get();
+    }
+
+    /**
+     * @return the largest population, or 0 when there are no towns
+     */
+    public int getMax() {
+        return getCount() == 0 ? 0 : (int) max.get();
+    }
+
+    /**
+     * @return the mean population, or 0 when there are no towns
+     */
+    public double getAverage() {
+        long towns = count.sum();
+        return towns == 0 ? 0 : (double) total.sum() / towns;
+    }
+
+    /**
+     * @param percentile between 0 and 100, e.g. 50 for the median
+     * @return approximate population below which the given percentile of towns lie, 0 when there are no towns
+     */
+    public int getPercentile(double percentile) {
+        return (int) histogram.getValueAtPercentile(percentile);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("towns=%d total=%d min=%d avg=%.1f p50=%d p90=%d max=%d", getCount(), getTotal(),
+                getMin(), getAverage(), getPercentile(50), getPercentile(90), getMax());
+    }
+}
@@ -0,0 +1,251 @@
+package com.graphs.road;
+
+import com.graphs.graph.GraphBuilder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Streams towns and roads from comma separated files into a {@link TownRoadNetwork}.
+ * <p>
+ * Town files hold a {@code name,population} or {@code name,population,x,y} line per town and road files
+ * a {@code townA,townB,length} line per road, referring to towns by name, so imported towns must not share
+ * a name with any town of the network. Values are not quoted, blank lines and lines starting with {@code #}
+ * are skipped. Files are read through a fixed buffer and parsed records are collected in a
+ * {@link GraphBuilder} which is added to the network every batch, so reading never gets ahead of the network
+ * and memory use does not depend on the size of the file. Towns go straight into the {@link TownRegistry} of
+ * the network as they are read, so no {@link Town} is created on the way.
+ * <p>
+ * A malformed line stops the import with an {@link IOException}. The batches added before it stay in the
+ * network, while the towns of the batch being read are unregistered again, so the registry holds no town
+ * which is not in the network. Towns registered by others meanwhile stay registered.
+ */
+public class RoadNetworkImporter {
+    private static final int BUFFER_BYTES = 1 << 16;
+    private static final int DEFAULT_BATCH_SIZE = 1 << 20;
+
+    private final TownRoadNetwork network;
+    private final TownRegistry towns;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private ImportListener listener = ImportListener.none();
+
+    /**
+     * @param network network to add to, roads may refer to the towns it already holds
+     */
+    public RoadNetworkImporter(TownRoadNetwork network) {
+        this.network = network;
+        this.towns = network.getRegistry();
+    }
+
+    /**
+     * @param batchSize number of records added to the network at once
+     */
+    public RoadNetworkImporter setBatchSize(int batchSize) {
+        if(batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive.");
+        }
+
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public RoadNetworkImporter setListener(ImportListener listener) {
+        this.listener = Objects.requireNonNull(listener);
+        return this;
+    }
+
+    /**
+     * @return progress at the end of the file
+     * @throws IOException on a malformed line; the towns of earlier batches stay in the network
+     */
+    public ImportProgress importTowns(Path file) throws IOException {
+        return read(file, (fields, builder, pending) -> {
+            if(fields.length != 2 && fields.length != 4) {
+                throw new IllegalArgumentException("expected name,population[,x,y]");
+            }
+
+            int population = Integer.parseInt(fields[1]);
+            double x = fields.length == 2 ? Double.NaN : Double.parseDouble(fields[2]);
+            double y = fields.length == 2 ? Double.NaN : Double.parseDouble(fields[3]);
+
+            if(towns.idOf(fields[0]) != TownRegistry.NO_TOWN) {
+                throw new IllegalArgumentException("duplicate town " + fields[0]);
+            }
+
+            int id = towns.register(fields[0], population, x, y);
+
+            pending.add(id);
+            builder.addNode(towns.key(id));
+        });
+    }
+
+    /**
+     * @return progress at the end of the file
+     * @throws IOException on a malformed line; the roads of earlier batches stay in the network
+     */
+    public ImportProgress importRoads(Path file) throws IOException {
+        return read(file, (fields, builder, pending) -> {
+            if(fields.length != 3) {
+                throw new IllegalArgumentException("expected townA,townB,length");
+            }
+
+            builder.addEdge(town(fields[0]), town(fields[1]), Integer.parseInt(fields[2]));
+        });
+    }
+
+    private Integer town(String name) {
+        int[] ids = towns.idsOf(name);
+
+        if(ids.length == 0) {
+            throw new IllegalArgumentException("unknown town " + name);
+        }
+
+        // Towns added to the network by other means may share a name
+        if(ids.length > 1) {
+            throw new IllegalArgumentException("ambiguous town " + name);
+        }
+
+        return towns.key(ids[0]);
+    }
+
+    private ImportProgress read(Path file, RecordParser parser) throws IOException {
+        long start = System.nanoTime();
+        PendingTowns pending = new PendingTowns();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long totalBytes = channel.size();
+            // Lines take a few dozen bytes, do not presize batches of small files for a full batch
+            int expectedRecords = (int) Math.min(batchSize, totalBytes / 16 + 1);
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+            byte[] bytes = buffer.array();
+            byte[] line = new byte[256];
+            int length = 0;
+            long lineNumber = 0;
+            long bytesRead = 0;
+            long records = 0;
+            long added = 0;
+            GraphBuilder<Integer> batch = new GraphBuilder<>(expectedRecords, expectedRecords);
+
+            while (channel.read(buffer) != -1) {
+                int limit = buffer.position();
+
+                for (int i = 0; i < limit; i++) {
+                    if(bytes[i] != '\n') {
+                        if(length == line.length) {
+                            line = Arrays.copyOf(line, length * 2);
+                        }
+
+                        line[length++] = bytes[i];
+                        continue;
+                    }
+
+                    if(parse(file, ++lineNumber, line, length, batch, pending, parser)) {
+                        records++;
+                    }
+
+                    length = 0;
+
+                    if(records - added == batchSize) {
+                        network.addAll(batch);
+                        pending.clear();
+                        added = records;
+                        batch = new GraphBuilder<>(expectedRecords, expectedRecords);
+                        listener.onProgress(progress(file, bytesRead + i + 1, totalBytes, records, start));
+                    }
+                }
+
+                bytesRead += limit;
+                buffer.clear();
+            }
+
+            // The last line may not end with a line break
+            if(length > 0 && parse(file, ++lineNumber, line, length, batch, pending, parser)) {
+                records++;
+            }
+
+            network.addAll(batch);
+            pending.clear();
+
+            ImportProgress done = progress(file, bytesRead, totalBytes, records, start);
+            listener.onProgress(done);
+
+            return done;
+        } catch (IOException | RuntimeException e) {
+            towns.unregister(pending.ids());
+            throw e;
+        }
+    }
+
+    /**
+     * @return whether the line held a record
+     */
+    private boolean parse(Path file, long lineNumber, byte[] line, int length, GraphBuilder<Integer> batch,
+                          PendingTowns pending, RecordParser parser) throws IOException {
+        if(length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+
+        String text = new String(line, 0, length, StandardCharsets.UTF_8).trim();
+
+        if(text.isEmpty() || text.startsWith("#")) {
+            return false;
+        }
+
+        try {
+            String[] fields = text.split(",", -1);
+
+            for (int i = 0; i < fields.length; i++) {
+                fields[i] = fields[i].trim();
+            }
+
+            parser.parse(fields, batch, pending);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(file + ":" + lineNumber + ": " + e.getMessage(), e);
+        }
+
+        return true;
+    }
+
+    private ImportProgress progress(Path file, long bytesRead, long totalBytes, long records, long start) {
+        return new ImportProgress(file, bytesRead, totalBytes, records, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * Adds the record held by the fields of a line to the batch, recording the towns it registers.
+     */
+    @FunctionalInterface
+    private interface RecordParser {
+        void parse(String[] fields, GraphBuilder<Integer> batch, PendingTowns pending);
+    }
+
+    /**
+     * Ids of the towns registered for the batch which has not been added to the network yet.
+     */
+    private static final class PendingTowns {
+        private int[] ids = new int[16];
+        private int count;
+
+        void add(int id) {
+            if(count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+            }
+
+            ids[count++] = id;
+        }
+
+        void clear() {
+            count = 0;
+        }
+
+        int[] ids() {
+            return Arrays.copyOf(ids, count);
+        }
+    }
+}
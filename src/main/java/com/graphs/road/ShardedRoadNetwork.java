@@ -0,0 +1,68 @@
+package com.graphs.road;
+
+import com.graphs.graph.GraphMetrics;
+import com.graphs.graph.LocalShardTransport;
+import com.graphs.graph.Partition;
+import com.graphs.graph.ShardTransport;
+import com.graphs.graph.ShardedRouter;
+import com.graphs.graph.ShortestPath;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ToIntFunction;
+
+/**
+ * Road network split into regions served as separate shards, e.g. by other processes when the whole
+ * network does not fit one heap. Roads between towns of any regions are found through the boundary
+ * towns of the regions, see {@link ShardedRouter}.
+ */
+public class ShardedRoadNetwork {
+    private final ShardedRouter<Integer> router;
+    private final TownRegistry towns;
+
+    /**
+     * @param transport shards holding the roads between town ids
+     * @param regionOf id of the shard serving the region of each town id
+     * @param towns registry the ids of the shards belong to
+     */
+    public ShardedRoadNetwork(ShardTransport<Integer> transport, ToIntFunction<Integer> regionOf,
+                              TownRegistry towns) {
+        this.router = new ShardedRouter<>(transport, regionOf);
+        this.towns = towns;
+    }
+
+    /**
+     * Splits the network into the given number of regions, see {@link TownRoadNetwork#partition(int)}, and
+     * serves each of them from a shard in this process.
+     */
+    public static ShardedRoadNetwork inProcess(TownRoadNetwork network, int regions) {
+        Partition<Integer> partition = network.partition(regions);
+
+        return new ShardedRoadNetwork(new LocalShardTransport<>(partition.shards(ForkJoinPool.commonPool())),
+                partition::partOf, network.getRegistry());
+    }
+
+    /**
+     * Reports the cost of {@link #roadTo(Town, Town)}, see {@link ShardedRouter#setMetrics(GraphMetrics)}. Towns
+     * are reported by id.
+     * @param metrics the metrics, or null to stop reporting
+     */
+    public void setQueryMetrics(GraphMetrics<Integer> metrics) {
+        router.setMetrics(metrics);
+    }
+
+    /**
+     * @return the same road as {@link TownRoadNetwork#roadTo(Town, Town)} on the whole network, or another
+     *         one of the same length
+     */
+    public FullRoad roadTo(Town from, Town to) {
+        ShortestPath<Integer> shortestPath = router.shortestPath(towns.keyOf(from), towns.keyOf(to));
+        return new FullRoad(towns.towns(shortestPath.getNodes()), shortestPath.getCost());
+    }
+
+    /**
+     * @return number of towns with a road into another region
+     */
+    public int getBoundaryTownCount() {
+        return router.getOverlaySize();
+    }
+}
@@ -1,20 +1,88 @@
 package com.graphs.road;
 
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * A town of a {@link TownRoadNetwork}. Towns are identified by instance: two towns of the same name are
+ * different towns, e.g. two villages of the same name in different regions.
+ * <p>
+ * A town carries the id it was first registered under, so that networks find it without hashing.
+ */
 public class Town {
+    private static final AtomicIntegerFieldUpdater<Town> IDS = AtomicIntegerFieldUpdater.newUpdater(Town.class, "id");
+
     public Town(String name, int population) {
+        this(name, population, Double.NaN, Double.NaN);
+    }
+
+    /**
+     * @param x position of the town along the west-east axis of a planar map, in road length units
+     * @param y position of the town along the south-north axis of a planar map, in road length units
+     */
+    public Town(String name, int population, double x, double y) {
         this.name = name;
         this.population = population;
+        this.x = x;
+        this.y = y;
     }
 
     private final String name;
     private final int population;
+    private final double x;
+    private final double y;
+    /**
+     * Id of the town in the first {@link TownRegistry} which registered or created it. Only a hint: the
+     * registry checks that it still holds the town under the id.
+     */
+    private volatile int id = TownRegistry.NO_TOWN;
 
     @Override
     public String toString() {
         return name;
     }
 
+    public String getName() {
+        return name;
+    }
+
     public int getPopulation() {
         return population;
     }
+
+    public boolean hasCoordinates() {
+        return !Double.isNaN(x) && !Double.isNaN(y);
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    int getId() {
+        return id;
+    }
+
+    /**
+     * Sets the id unless the town already has one.
+     * @return whether the id was set
+     */
+    boolean claimId(int id) {
+        return IDS.compareAndSet(this, TownRegistry.NO_TOWN, id);
+    }
+
+    /**
+     * Lower bound of the road distance to the other town, as roads are never shorter than the
+     * straight line between their towns.
+     * @return straight line distance to the other town, or 0 when either town has no coordinates
+     */
+    public int straightLineDistanceTo(Town other) {
+        if(!hasCoordinates() || !other.hasCoordinates()) {
+            return 0;
+        }
+
+        return (int) Math.hypot(x - other.x, y - other.y);
+    }
 }
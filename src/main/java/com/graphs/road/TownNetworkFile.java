@@ -0,0 +1,181 @@
+package com.graphs.road;
+
+import com.graphs.graph.CsrGraph;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Binary file holding a frozen town road network, read by mapping it into memory.
+ * <p>
+ * The file is little endian and laid out as a header of four ints (magic, version, number of towns and
+ * number of adjacency entries), followed by the town columns {@code x} and {@code y} as doubles and
+ * {@code population} as ints, the offsets of each town name into the name bytes, the adjacency as written
+ * by {@link CsrGraph#writeAdjacency(ByteBuffer)} and finally the UTF-8 bytes of all names. Every column
+ * starts aligned to the size of its values. The town columns are those of a {@link TownRegistry}, in the
+ * order of the adjacency, so a read file registers town {@code i} under id {@code i}.
+ */
+class TownNetworkFile {
+    private static final int MAGIC = 0x54524E31;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 * Integer.BYTES;
+
+    private TownNetworkFile() {
+    }
+
+    /**
+     * Writes a temporary file next to the path and moves it over the path once complete. The graph may be
+     * mapped from the file at the path, which then stays intact until it is unmapped.
+     * @param graph snapshot of the roads between the ids of the registered towns
+     */
+    static void write(CsrGraph<Integer> graph, TownRegistry towns, Path path) throws IOException {
+        List<Integer> ids = graph.getNodeList();
+        int size = ids.size();
+        long nameBytes = 0;
+
+        for (int id : ids) {
+            nameBytes += towns.getNameLength(id);
+        }
+
+        long fileBytes = HEADER_BYTES + (2L * Double.BYTES + Integer.BYTES) * size + Integer.BYTES * (size + 1L)
+                + graph.getAdjacencyBytes() + nameBytes;
+
+        if(fileBytes > Integer.MAX_VALUE) {
+            throw new IOException("Network of " + size + " towns is too large to be mapped from a single file.");
+        }
+
+        Path target = path.toAbsolutePath();
+        Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+
+        try {
+            write(graph, towns, temporary, fileBytes);
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static void write(CsrGraph<Integer> graph, TownRegistry towns, Path path, long fileBytes)
+            throws IOException {
+        List<Integer> ids = graph.getNodeList();
+        int size = ids.size();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileBytes);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(graph.getEdgeCount());
+
+            for (int id : ids) {
+                buffer.putDouble(towns.getX(id));
+            }
+
+            for (int id : ids) {
+                buffer.putDouble(towns.getY(id));
+            }
+
+            for (int id : ids) {
+                buffer.putInt(towns.getPopulation(id));
+            }
+
+            int nameOffset = 0;
+            buffer.putInt(nameOffset);
+
+            for (int id : ids) {
+                nameOffset += towns.getNameLength(id);
+                buffer.putInt(nameOffset);
+            }
+
+            graph.writeAdjacency(buffer);
+
+            for (int id : ids) {
+                towns.putName(id, buffer);
+            }
+
+            buffer.force();
+        }
+    }
+
+    /**
+     * Maps the file and reads the adjacency in place, after checking it. The town columns are copied into
+     * the registry.
+     * @param towns empty registry to register the towns of the file in
+     * @return snapshot of the roads between the ids of the towns
+     */
+    static CsrGraph<Integer> read(Path path, TownRegistry towns) throws IOException {
+        ByteBuffer buffer;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if(channel.size() > Integer.MAX_VALUE || channel.size() < HEADER_BYTES) {
+                throw new IOException(path + " is not a town network file.");
+            }
+
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        if(buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException(path + " is not a town network file.");
+        }
+
+        int size = buffer.getInt();
+        int arcs = buffer.getInt();
+        // Computed in long, so that corrupt counts can neither overflow nor get the columns allocated
+        long namesStart = HEADER_BYTES + (2L * Double.BYTES + Integer.BYTES) * size + Integer.BYTES * (size + 1L)
+                + Integer.BYTES * (size + 1L + 2L * arcs);
+
+        if(size < 0 || arcs < 0 || namesStart > buffer.capacity()) {
+            throw new IOException(path + " is corrupt: " + size + " towns and " + arcs
+                    + " adjacency entries do not fit " + buffer.capacity() + " bytes.");
+        }
+
+        try {
+            int columns = buffer.position();
+            int populations = columns + 2 * Double.BYTES * size;
+            int nameOffsets = populations + Integer.BYTES * size;
+            int adjacency = nameOffsets + Integer.BYTES * (size + 1);
+            int names = (int) namesStart;
+            double[] x = new double[size];
+            double[] y = new double[size];
+            int[] townPopulations = new int[size];
+            int[] townNameOffsets = new int[size + 1];
+
+            for (int id = 0; id < size; id++) {
+                x[id] = buffer.getDouble(columns + Double.BYTES * id);
+                y[id] = buffer.getDouble(columns + Double.BYTES * (size + id));
+                townPopulations[id] = buffer.getInt(populations + Integer.BYTES * id);
+            }
+
+            for (int id = 0; id <= size; id++) {
+                townNameOffsets[id] = buffer.getInt(nameOffsets + Integer.BYTES * id);
+            }
+
+            if(townNameOffsets[size] < 0 || names + (long) townNameOffsets[size] != buffer.capacity()) {
+                throw new IOException(path + " is corrupt: expected " + townNameOffsets[size] + " name bytes.");
+            }
+
+            byte[] nameBytes = new byte[townNameOffsets[size]];
+            buffer.duplicate().position(names).get(nameBytes);
+            towns.registerAll(x, y, townPopulations, townNameOffsets, nameBytes);
+            buffer.position(adjacency);
+
+            if(buffer.getInt(adjacency + Integer.BYTES * size) != arcs) {
+                throw new IOException(path + " is corrupt: expected " + arcs + " adjacency entries.");
+            }
+
+            return CsrGraph.mapAdjacency(towns.keys(), buffer);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | BufferUnderflowException
+                 | NegativeArraySizeException e) {
+            throw new IOException(path + " is corrupt.", e);
+        }
+    }
+}
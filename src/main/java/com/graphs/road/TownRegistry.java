@@ -0,0 +1,536 @@
+package com.graphs.road;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Dense int ids for the towns of a {@link TownRoadNetwork}, handed out in the order towns are registered.
+ * Each {@link Town} instance gets its own id, so different towns may share a name.
+ * <p>
+ * The data of all towns is kept in primitive columns indexed by id: the UTF-8 bytes of all names back to
+ * back with their offsets, the populations and the coordinates. An open addressing table over the name bytes
+ * indexes the ids of every name. Towns registered from their data alone, e.g. read from a file, get a
+ * {@link Town} the first time one is handed out, which then stands for the id.
+ * <p>
+ * A town carries the id it was first registered or created under, which is checked against the town held
+ * for that id, so queries neither hash names nor towns. Only towns registered in several registries, or
+ * again after they were unregistered, are looked up in a map by identity.
+ * <p>
+ * Registering is synchronized. Lookups and handing out towns take no lock and see every town registered
+ * before they started.
+ */
+public class TownRegistry {
+    /**
+     * Id of a town which is not registered.
+     */
+    public static final int NO_TOWN = -1;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /**
+     * Replaced whenever a column grows, while towns are written into the spare capacity of the current one.
+     * Readers read {@link #size} first, so the columns they read hold every town below it.
+     */
+    private volatile Columns columns = new Columns(null, 0, INITIAL_CAPACITY, INITIAL_CAPACITY * 16);
+    private volatile int size;
+    /**
+     * Chunk {@code i} holds the towns of the ids from {@code i * CHUNK_SIZE}: the {@link Town} standing for
+     * the id, or a placeholder of its registration until one is created. Chunks are only added, never copied,
+     * so a town created into one is never lost.
+     */
+    private volatile AtomicReferenceArray<Object>[] towns;
+    /**
+     * Id of the registered towns whose {@link Town#getId()} is not theirs in this registry. Towns have no
+     * equals, so they are keyed by identity.
+     */
+    private final Map<Town, Integer> ids;
+
+    TownRegistry() {
+        this(new ConcurrentHashMap<>(), newChunks(0));
+    }
+
+    private TownRegistry(Map<Town, Integer> ids, AtomicReferenceArray<Object>[] towns) {
+        this.ids = ids;
+        this.towns = towns;
+    }
+
+    /**
+     * @return number of ids handed out, the ids of the registered towns run from 0 up to it
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return id of the first registered town with the given name, or {@link #NO_TOWN}
+     */
+    public int idOf(String name) {
+        int[] found = idsOf(name);
+        return found.length == 0 ? NO_TOWN : found[0];
+    }
+
+    /**
+     * @return ids of all towns with the given name, in the order they were registered
+     */
+    public int[] idsOf(String name) {
+        int known = size;
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+
+        return find(known, bytes, hash(bytes));
+    }
+
+    /**
+     * @return id of the town, or {@link #NO_TOWN} if it is not registered
+     */
+    int idOf(Town town) {
+        if(town == null) {
+            return NO_TOWN;
+        }
+
+        int known = size;
+        int id = town.getId();
+
+        if(id >= 0 && id < known && towns[id >>> CHUNK_BITS].get(id & CHUNK_MASK) == town) {
+            return id;
+        }
+
+        Integer registered = ids.get(town);
+        return registered == null || registered >= known ? NO_TOWN : registered;
+    }
+
+    /**
+     * @return the town registered under the id. Towns registered from their data alone are created from the
+     *         columns the first time, and the same town is returned from then on.
+     */
+    public Town town(int id) {
+        columns(id);
+
+        AtomicReferenceArray<Object> chunk = towns[id >>> CHUNK_BITS];
+        Object town = chunk.get(id & CHUNK_MASK);
+
+        return town instanceof Town ? (Town) town : createTown(id, chunk, town);
+    }
+
+    public String getName(int id) {
+        return name(columns(id), id);
+    }
+
+    public int getPopulation(int id) {
+        return columns(id).populations[id];
+    }
+
+    /**
+     * Same estimate as {@link Town#straightLineDistanceTo(Town)}, read from the columns.
+     */
+    int straightLineDistance(int from, int to) {
+        Columns current = columns;
+        double fromX = current.x[from];
+        double fromY = current.y[from];
+        double toX = current.x[to];
+        double toY = current.y[to];
+
+        if(Double.isNaN(fromX) || Double.isNaN(fromY) || Double.isNaN(toX) || Double.isNaN(toY)) {
+            return 0;
+        }
+
+        return (int) Math.hypot(fromX - toX, fromY - toY);
+    }
+
+    /**
+     * @return the boxed id shared by every collection holding the town
+     */
+    Integer key(int id) {
+        return columns(id).keys[id];
+    }
+
+    /**
+     * @return the boxed id of the town, for the graph of a network holding it
+     * @throws IllegalArgumentException if the town is not registered
+     */
+    Integer keyOf(Town town) {
+        return key(requireId(town));
+    }
+
+    /**
+     * @return the id of the town, by which the graph of a network holding it knows it
+     * @throws IllegalArgumentException if the town is not registered
+     */
+    int requireId(Town town) {
+        int id = idOf(town);
+
+        if(id == NO_TOWN) {
+            throw new IllegalArgumentException("Town " + town + " is not part of the network.");
+        }
+
+        return id;
+    }
+
+    /**
+     * @return the towns of the given ids, in the same order
+     */
+    List<Town> towns(Collection<Integer> ids) {
+        List<Town> result = new ArrayList<>(ids.size());
+
+        for (Integer id : ids) {
+            result.add(town(id));
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the towns of the given ids, in the same order
+     */
+    List<Town> towns(int[] ids) {
+        List<Town> result = new ArrayList<>(ids.length);
+
+        for (int id : ids) {
+            result.add(town(id));
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the boxed ids of all registered towns, in order
+     */
+    List<Integer> keys() {
+        int known = size;
+        return Arrays.asList(columns.keys).subList(0, known);
+    }
+
+    int getNameLength(int id) {
+        Columns current = columns(id);
+        return current.nameOffsets[id + 1] - current.nameOffsets[id];
+    }
+
+    void putName(int id, ByteBuffer buffer) {
+        Columns current = columns(id);
+        buffer.put(current.names, current.nameOffsets[id], current.nameOffsets[id + 1] - current.nameOffsets[id]);
+    }
+
+    double getX(int id) {
+        return columns(id).x[id];
+    }
+
+    double getY(int id) {
+        return columns(id).y[id];
+    }
+
+    /**
+     * @return id of the town, registered unless it already was
+     */
+    int register(Town town) {
+        int known = idOf(town);
+
+        if(known != NO_TOWN) {
+            return known;
+        }
+
+        if(town.getName() == null) {
+            throw new IllegalArgumentException("Town names cannot be null.");
+        }
+
+        synchronized (this) {
+            known = idOf(town);
+
+            if(known != NO_TOWN) {
+                return known;
+            }
+
+            int id = register(town.getName().getBytes(StandardCharsets.UTF_8), town.getPopulation(), town.getX(),
+                    town.getY(), town);
+
+            if(!town.claimId(id) && town.getId() != id) {
+                ids.put(town, id);
+            }
+
+            return id;
+        }
+    }
+
+    /**
+     * Registers a town from its data alone, as a new town even if another one has the same name.
+     * @return id of the town
+     */
+    synchronized int register(String name, int population, double x, double y) {
+        return register(name.getBytes(StandardCharsets.UTF_8), population, x, y, null);
+    }
+
+    /**
+     * Registers the towns of the columns in order, e.g. as read from a {@link TownNetworkFile}, under the
+     * ids that follow the ones registered so far.
+     * @param nameOffsets start of each name in the name bytes, followed by the end of the last one
+     */
+    synchronized void registerAll(double[] x, double[] y, int[] populations, int[] nameOffsets, byte[] names) {
+        for (int i = 0; i < populations.length; i++) {
+            if(nameOffsets[i] < 0 || nameOffsets[i] > nameOffsets[i + 1] || nameOffsets[i + 1] > names.length) {
+                throw new IllegalArgumentException("Name of town " + i + " is out of bounds.");
+            }
+        }
+
+        for (int i = 0; i < populations.length; i++) {
+            register(Arrays.copyOfRange(names, nameOffsets[i], nameOffsets[i + 1]), populations[i], x[i], y[i], null);
+        }
+    }
+
+    /**
+     * @return a registry of the same towns under the same ids, registering further towns on its own
+     */
+    synchronized TownRegistry copy() {
+        AtomicReferenceArray<Object>[] copiedTowns = newChunks(size);
+
+        for (int id = 0; id < size; id++) {
+            copiedTowns[id >>> CHUNK_BITS].set(id & CHUNK_MASK, towns[id >>> CHUNK_BITS].get(id & CHUNK_MASK));
+        }
+
+        TownRegistry copy = new TownRegistry(new ConcurrentHashMap<>(ids), copiedTowns);
+        Columns current = columns;
+
+        copy.columns = new Columns(current, size, current.populations.length, current.names.length);
+        copy.size = size;
+
+        return copy;
+    }
+
+    /**
+     * Unregisters the towns of the given ids, e.g. the towns of an import which failed before they were
+     * added to the network. Towns registered by others meanwhile stay registered. The ids after the last
+     * registered town are handed out again, the others are left unused.
+     */
+    synchronized void unregister(int... unregistered) {
+        for (int id : unregistered) {
+            columns(id);
+        }
+
+        for (int id : unregistered) {
+            Object town = towns[id >>> CHUNK_BITS].getAndSet(id & CHUNK_MASK, null);
+
+            if(town instanceof Town) {
+                ids.remove(town);
+            }
+        }
+
+        int end = size;
+
+        while (end > 0 && towns[(end - 1) >>> CHUNK_BITS].get((end - 1) & CHUNK_MASK) == null) {
+            end--;
+        }
+
+        if(end < size) {
+            Columns current = columns;
+
+            // Lowered first, so that lookups starting from now on never reach the dropped ids
+            size = end;
+            columns = new Columns(current, end, current.populations.length, current.names.length);
+        }
+    }
+
+    /**
+     * Creates the town of an id registered from its data alone. Threads creating it at once agree on the
+     * town which replaces the placeholder first.
+     * @param registration placeholder of the registration of the id, replaced only while the id keeps it
+     */
+    private Town createTown(int id, AtomicReferenceArray<Object> chunk, Object registration) {
+        Object current = registration;
+
+        while (!(current instanceof Town)) {
+            if(current == null) {
+                throw new IllegalArgumentException("Town " + id + " is not registered.");
+            }
+
+            Columns data = columns(id);
+            Town town = new Town(name(data, id), data.populations[id], data.x[id], data.y[id]);
+
+            town.claimId(id);
+
+            if(chunk.compareAndSet(id & CHUNK_MASK, current, town)) {
+                return town;
+            }
+
+            current = chunk.get(id & CHUNK_MASK);
+        }
+
+        return (Town) current;
+    }
+
+    /**
+     * @param town the town standing for the id, or null to create it when first asked for
+     */
+    private synchronized int register(byte[] name, int population, double x, double y, Town town) {
+        int hash = hash(name);
+        Columns current = columns;
+        int id = size;
+        int nameEnd = current.nameOffsets[id] + name.length;
+
+        if(id + 1 > current.populations.length || nameEnd > current.names.length) {
+            current = new Columns(current, id, Math.max(current.populations.length, (id + 1) * 2),
+                    Math.max(current.names.length, nameEnd * 2));
+            columns = current;
+        }
+
+        System.arraycopy(name, 0, current.names, current.nameOffsets[id], name.length);
+        current.nameOffsets[id + 1] = nameEnd;
+        current.nameHashes[id] = hash;
+        current.populations[id] = population;
+        current.x[id] = x;
+        current.y[id] = y;
+        current.keys[id] = id;
+        current.slots[emptySlot(current.slots, hash)] = id + 1;
+        townChunkFor(id).set(id & CHUNK_MASK, town != null ? town : new Object());
+        size = id + 1;
+
+        return id;
+    }
+
+    /**
+     * Adds the chunk of the id unless it is present. Called under the lock of the registry.
+     */
+    private AtomicReferenceArray<Object> townChunkFor(int id) {
+        int index = id >>> CHUNK_BITS;
+        AtomicReferenceArray<Object>[] current = towns;
+
+        if(index >= current.length) {
+            AtomicReferenceArray<Object>[] grown = Arrays.copyOf(current, Math.max(index + 1, current.length * 2));
+
+            for (int i = current.length; i < grown.length; i++) {
+                grown[i] = new AtomicReferenceArray<>(CHUNK_SIZE);
+            }
+
+            towns = grown;
+            current = grown;
+        }
+
+        return current[index];
+    }
+
+    /**
+     * @return empty chunks for the given number of towns
+     */
+    @SuppressWarnings("unchecked")
+    private static AtomicReferenceArray<Object>[] newChunks(int size) {
+        AtomicReferenceArray<Object>[] chunks = new AtomicReferenceArray[(size + CHUNK_MASK) >>> CHUNK_BITS];
+
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = new AtomicReferenceArray<>(CHUNK_SIZE);
+        }
+
+        return chunks;
+    }
+
+    private Columns columns(int id) {
+        int known = size;
+
+        if(id < 0 || id >= known || towns[id >>> CHUNK_BITS].get(id & CHUNK_MASK) == null) {
+            throw new IllegalArgumentException("Town " + id + " is not registered.");
+        }
+
+        return columns;
+    }
+
+    private static String name(Columns columns, int id) {
+        return new String(columns.names, columns.nameOffsets[id], columns.nameOffsets[id + 1] - columns.nameOffsets[id],
+                StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param known number of towns to consider, slots of later towns are skipped
+     * @return ids of the registered towns of the given name, in the order they were registered
+     */
+    private int[] find(int known, byte[] name, int hash) {
+        Columns columns = this.columns;
+        AtomicReferenceArray<Object>[] registered = towns;
+        int[] slots = columns.slots;
+        int mask = slots.length - 1;
+        int[] found = new int[0];
+
+        // Towns of the same name are inserted along the same probe sequence, in the order of their ids
+        for (int slot = hash & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+
+            if(id < known && columns.nameHashes[id] == hash && Arrays.equals(columns.names, columns.nameOffsets[id],
+                    columns.nameOffsets[id + 1], name, 0, name.length)
+                    && registered[id >>> CHUNK_BITS].get(id & CHUNK_MASK) != null) {
+                found = Arrays.copyOf(found, found.length + 1);
+                found[found.length - 1] = id;
+            }
+        }
+
+        return found;
+    }
+
+    private static int emptySlot(int[] slots, int hash) {
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    private static int hash(byte[] bytes) {
+        int hash = 0;
+
+        for (byte value : bytes) {
+            hash = 31 * hash + value;
+        }
+
+        // Spread the high bits, the table only looks at the low ones
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Columns of a given capacity, filled from a previous set of columns. The slots are at most half full.
+     */
+    private static class Columns {
+        final byte[] names;
+        final int[] nameOffsets;
+        final int[] nameHashes;
+        final int[] populations;
+        final double[] x;
+        final double[] y;
+        final Integer[] keys;
+        /**
+         * Id plus one of the town in each slot, 0 for empty slots.
+         */
+        final int[] slots;
+
+        Columns(Columns from, int size, int capacity, int nameCapacity) {
+            names = new byte[nameCapacity];
+            nameOffsets = new int[capacity + 1];
+            nameHashes = new int[capacity];
+            populations = new int[capacity];
+            x = new double[capacity];
+            y = new double[capacity];
+            keys = new Integer[capacity];
+            slots = new int[Integer.highestOneBit(capacity) * 4];
+
+            if(from == null) {
+                return;
+            }
+
+            System.arraycopy(from.names, 0, names, 0, from.nameOffsets[size]);
+            System.arraycopy(from.nameOffsets, 0, nameOffsets, 0, size + 1);
+            System.arraycopy(from.nameHashes, 0, nameHashes, 0, size);
+            System.arraycopy(from.populations, 0, populations, 0, size);
+            System.arraycopy(from.x, 0, x, 0, size);
+            System.arraycopy(from.y, 0, y, 0, size);
+            System.arraycopy(from.keys, 0, keys, 0, size);
+
+            for (int id = 0; id < size; id++) {
+                slots[emptySlot(slots, nameHashes[id])] = id + 1;
+            }
+        }
+    }
+}
@@ -1,45 +1,471 @@
 package com.graphs.road;
 
-import com.graphs.graph.Graph;
+import com.graphs.graph.ContractionHierarchy;
+import com.graphs.graph.CsrGraph;
+import com.graphs.graph.DistanceMatrix;
+import com.graphs.graph.GraphBuilder;
+import com.graphs.graph.GraphMetrics;
+import com.graphs.graph.GraphPartitioner;
+import com.graphs.graph.IntGraph;
+import com.graphs.graph.IntShortestPathTree;
+import com.graphs.graph.IntTraversalListener;
+import com.graphs.graph.Partition;
+import com.graphs.graph.SearchStrategy;
 import com.graphs.graph.ShortestPath;
+import com.graphs.graph.ShortestPathCache;
+import com.graphs.graph.TraversalListener;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 
+/**
+ * Towns and the roads between them. Towns are registered once in a {@link TownRegistry} under dense int
+ * ids and the roads are kept in an {@link IntGraph} over the ids, so searches run on int arrays without
+ * hashing or boxing towns and the names and data of towns stay in primitive columns. Each town added is a
+ * town of its own, even if another one has the same name. Results hand out the towns that were added; towns
+ * loaded or imported are created from the columns the first time they are handed out.
+ * <p>
+ * Queries are safe from many threads while towns and roads are added, they take no lock and only wait for
+ * the graph of a loaded network to be filled the first time it changes.
+ */
 public class TownRoadNetwork {
-    private final Graph<Town> townGraph = new Graph<>();
+    private final TownRegistry towns;
+    private final IntGraph townGraph = new IntGraph();
+    private volatile SearchStrategy routeStrategy = SearchStrategy.DIJKSTRA;
+    /**
+     * Counts the changes of the network, each counted before it is made.
+     */
+    private final AtomicLong changes = new AtomicLong();
+    /**
+     * Prepared by {@link #prepareRouting()}, used while the network has not changed since.
+     */
+    private volatile PreparedRouting prepared;
+    /**
+     * Mapped from a file by {@link #load(Path)} or computed by {@link #getBackbone()}. Answers queries until
+     * the network is first changed, which fills the graph from it.
+     */
+    private volatile CsrGraph<Integer> mapped;
+    private volatile GraphMetrics<Integer> metrics;
+    private final PopulationStats populations = new PopulationStats();
+
+    public TownRoadNetwork() {
+        this(new TownRegistry());
+    }
+
+    private TownRoadNetwork(TownRegistry towns) {
+        this.towns = towns;
+        this.townGraph.setHeuristic(towns::straightLineDistance);
+    }
+
+    /**
+     * Loads a network saved by {@link #save(Path)}. The roads are mapped from the file rather than read,
+     * so the network answers queries right away; the towns are copied into the columns of the registry
+     * without creating any of them.
+     */
+    public static TownRoadNetwork load(Path path) throws IOException {
+        TownRegistry towns = new TownRegistry();
+        return of(TownNetworkFile.read(path, towns), towns);
+    }
+
+    private static TownRoadNetwork of(CsrGraph<Integer> snapshot, TownRegistry towns) {
+        TownRoadNetwork network = new TownRoadNetwork(towns);
+        network.mapped = snapshot;
+
+        for (Integer id : snapshot.getNodeList()) {
+            network.populations.add(towns.getPopulation(id));
+        }
+
+        return network;
+    }
+
+    /**
+     * Saves the towns and roads in a compact binary file, to be mapped back by {@link #load(Path)}.
+     */
+    public void save(Path path) throws IOException {
+        CsrGraph<Integer> loaded = mapped;
+        TownNetworkFile.write(loaded != null ? loaded : townGraph.freeze(), towns, path);
+    }
+
+    /**
+     * @return the ids and data of the towns, by which the graph, route cache and query metrics know them
+     */
+    public TownRegistry getRegistry() {
+        return towns;
+    }
+
+    /**
+     * Caches the results of {@link #roadTo(Town, Town)}, see {@link IntGraph#setCache(ShortestPathCache)}. The
+     * mapped roads of a loaded network use the cache too, until the network first changes and invalidates it.
+     * @param cache the cache keyed by town id, or null to stop caching
+     */
+    public void setRouteCache(ShortestPathCache<Integer> cache) {
+        CsrGraph<Integer> loaded = mapped;
+
+        if(loaded != null) {
+            loaded.setCache(cache);
+        }
+
+        townGraph.setCache(cache);
+    }
+
+    /**
+     * Reports the cost of route and range queries, see {@link IntGraph#setMetrics(GraphMetrics)}, including
+     * those answered by the mapped roads of a loaded network or by the prepared hierarchy. Towns are reported
+     * by id, see {@link #getRegistry()}.
+     * @param metrics the metrics, or null to stop reporting
+     */
+    public void setQueryMetrics(GraphMetrics<Integer> metrics) {
+        this.metrics = metrics;
+        townGraph.setMetrics(metrics);
+
+        CsrGraph<Integer> loaded = mapped;
+        PreparedRouting routing = prepared;
+
+        if(loaded != null) {
+            loaded.setMetrics(metrics);
+        }
+
+        if(routing != null) {
+            routing.hierarchy.setMetrics(metrics);
+        }
+    }
+
+    /**
+     * @param routeStrategy algorithm used by {@link #roadTo(Town, Town)}. {@link SearchStrategy#A_STAR}
+     *                      is guided by the straight line distance between towns with coordinates. A loaded
+     *                      network routes with {@link SearchStrategy#DIJKSTRA} over the mapped roads until it
+     *                      first changes, the strategy only applies from then on.
+     */
+    public void setRouteStrategy(SearchStrategy routeStrategy) {
+        this.routeStrategy = Objects.requireNonNull(routeStrategy);
+    }
+
+    /**
+     * Preprocesses the current network into a contraction hierarchy, which then answers
+     * {@link #roadTo(Town, Town)} until the network changes. Changes made while it is built leave it unused.
+     * @return the hierarchy, reporting its build time and memory footprint
+     */
+    public ContractionHierarchy<Integer> prepareRouting() {
+        // Taken before the snapshot, so a change made while building leaves the hierarchy unused
+        long taken = changes.get();
+        CsrGraph<Integer> loaded = mapped;
+        ContractionHierarchy<Integer> hierarchy =
+                ContractionHierarchy.build(loaded != null ? loaded : townGraph.freeze());
+        prepared = new PreparedRouting(taken, hierarchy);
+        // Read after publishing the hierarchy, so metrics set meanwhile reach it either way
+        hierarchy.setMetrics(metrics);
+        return hierarchy;
+    }
 
     public void addTown(Town t) {
-        townGraph.addNode(t);
+        IntGraph graph = graph();
+        int id = register(t);
+
+        changes.incrementAndGet();
+        addTown(graph, id);
     }
 
     public void addConnection(Road road) {
-        townGraph.addEdge(road.getTownA(), road.getTownB(), road.getLength());
+        IntGraph graph = graph();
+        int a = register(road.getTownA());
+        int b = register(road.getTownB());
+
+        changes.incrementAndGet();
+
+        // Add the towns first to learn which of them are new, unless the graph is going to reject the road
+        if(a != b && road.getLength() > 0) {
+            addTown(graph, a);
+            addTown(graph, b);
+        }
+
+        graph.addEdge(a, b, road.getLength());
+    }
+
+    private void addTown(IntGraph graph, int id) {
+        if(graph.addNode(id)) {
+            populations.add(towns.getPopulation(id));
+        }
+    }
+
+    /**
+     * @return the id of the town, registered first unless it already is
+     */
+    private int register(Town town) {
+        if(town == null) {
+            throw new IllegalArgumentException("No null towns allowed.");
+        }
+
+        return towns.register(town);
+    }
+
+    /**
+     * Closes the road between both towns, keeping the towns.
+     * @return whether there was such a road
+     */
+    public boolean closeRoad(Town a, Town b) {
+        IntGraph graph = graph();
+        int first = towns.requireId(a);
+        int second = towns.requireId(b);
+
+        changes.incrementAndGet();
+        return graph.removeEdge(first, second);
+    }
+
+    /**
+     * Changes the length of the existing road between both towns, e.g. to account for roadworks.
+     */
+    public void updateRoadLength(Town a, Town b, int length) {
+        IntGraph graph = graph();
+        int first = towns.requireId(a);
+        int second = towns.requireId(b);
+
+        changes.incrementAndGet();
+        graph.updateWeight(first, second, length);
+    }
+
+    /**
+     * Keeps the roads from the town to all other towns up to date as roads change, see
+     * {@link IntGraph#trackShortestPaths(int)}.
+     */
+    public TrackedRoads trackRoadsFrom(Town from) {
+        IntShortestPathTree tree = graph().trackShortestPaths(towns.requireId(from));
+        return new TrackedRoads(tree, towns);
+    }
+
+    /**
+     * Adds many roads at once, much faster than adding them one by one with {@link #addConnection(Road)}.
+     */
+    public void addConnections(Collection<Road> roads) {
+        addAll(new GraphBuilder<Integer>(roads.size(), roads.size())
+                .addEdges(roads.stream(), road -> towns.key(register(road.getTownA())),
+                        road -> towns.key(register(road.getTownB())), Road::getLength));
+    }
+
+    /**
+     * Adds the towns and roads collected by the builder, holding ids of registered towns.
+     */
+    void addAll(GraphBuilder<Integer> builder) {
+        IntGraph graph = graph();
+
+        changes.incrementAndGet();
+
+        for (int id : graph.addAll(builder)) {
+            populations.add(towns.getPopulation(id));
+        }
+    }
+
+    /**
+     * Computes the road backbone: the roads of least total length which keep every pair of towns connected
+     * that is connected now. Towns without a road to each other stay apart, each group getting its own tree.
+     * @return a network of all towns holding only the backbone roads
+     */
+    public TownRoadNetwork getBackbone() {
+        CsrGraph<Integer> loaded = mapped;
+        return of(loaded != null ? loaded.minimumSpanningForest(true) : townGraph.minimumSpanningForest(),
+                towns.copy());
+    }
+
+    /**
+     * Splits the towns into regions of about equal size with few roads between them, e.g. to serve each
+     * region from its own {@link ShardedRoadNetwork} shard.
+     * @return the region of each town id
+     */
+    public Partition<Integer> partition(int regions) {
+        CsrGraph<Integer> loaded = mapped;
+        return new GraphPartitioner().partition(loaded != null ? loaded : townGraph.freeze(), regions);
     }
 
     public int getAvgPopulation() {
-        double avg = townGraph.getNodes().stream()
-                .mapToInt(Town::getPopulation)
-                .average()
-                .orElse(Double.NaN);
+        return (int) populations.getAverage();
+    }
 
-        return (int) avg;
+    /**
+     * @return aggregates of the populations of all towns, kept up to date as towns are added
+     */
+    public PopulationStats getPopulationStats() {
+        return populations;
+    }
+
+    /**
+     * @return total population of the town and all towns within range of it by road, summed up
+     *         in a single traversal of the neighbourhood
+     */
+    public long getPopulationWithinRange(Town of, int range) {
+        CsrGraph<Integer> loaded = mapped;
+        int id = towns.requireId(of);
+        long[] total = new long[1];
+
+        if(loaded != null) {
+            TraversalListener<Integer> sum = (town, __) -> total[0] += towns.getPopulation(town);
+            loaded.visitWithinRange(towns.key(id), range, sum);
+        } else {
+            IntTraversalListener sum = (town, __) -> total[0] += towns.getPopulation(town);
+            townGraph.visitWithinRange(id, range, sum);
+        }
+
+        return total[0];
     }
 
     public boolean areAllTownsConnected() {
-        return townGraph.isConnected();
+        CsrGraph<Integer> loaded = mapped;
+        return loaded != null ? loaded.isConnected() : townGraph.isConnected();
+    }
+
+    public boolean areConnected(Town a, Town b) {
+        CsrGraph<Integer> loaded = mapped;
+        int first = towns.requireId(a);
+        int second = towns.requireId(b);
+
+        return loaded != null
+                ? loaded.areConnected(towns.key(first), towns.key(second))
+                : townGraph.areConnected(first, second);
+    }
+
+    /**
+     * @return groups of towns connected by roads, largest first
+     */
+    public List<Set<Town>> getRegions() {
+        CsrGraph<Integer> loaded = mapped;
+        List<Set<Town>> regions = new ArrayList<>();
+
+        if(loaded != null) {
+            for (Set<Integer> ids : loaded.getComponents()) {
+                regions.add(new HashSet<>(towns.towns(ids)));
+            }
+        } else {
+            for (int[] ids : townGraph.getComponents()) {
+                regions.add(new HashSet<>(towns.towns(ids)));
+            }
+        }
+
+        return regions;
     }
 
     public FullRoad roadTo(Town from, Town to) {
-        ShortestPath<Town> shortestPath = townGraph.shortestPath(from, to, false);
-        return new FullRoad(shortestPath.getNodes(), shortestPath.getCost());
+        PreparedRouting routing = prepared;
+        CsrGraph<Integer> loaded = mapped;
+        int source = towns.requireId(from);
+        int dest = towns.requireId(to);
+        ShortestPath<Integer> shortestPath;
+
+        if(routing != null && routing.changes == changes.get()) {
+            shortestPath = routing.hierarchy.shortestPath(towns.key(source), towns.key(dest));
+        } else if(loaded != null) {
+            shortestPath = loaded.shortestPath(towns.key(source), towns.key(dest), false);
+        } else {
+            shortestPath = townGraph.shortestPath(source, dest, routeStrategy);
+        }
+
+        return new FullRoad(towns.towns(shortestPath.getNodes()), shortestPath.getCost());
+    }
+
+    /**
+     * @return road distances from every town in {@code from} to every town in {@code to},
+     *         computed in parallel
+     */
+    public DistanceMatrix<Town> distanceMatrix(List<Town> from, List<Town> to) {
+        CsrGraph<Integer> loaded = mapped;
+        List<Integer> sources = keysOf(from);
+        List<Integer> targets = keysOf(to);
+        DistanceMatrix<Integer> matrix = loaded != null
+                ? loaded.distanceMatrix(sources, targets, ForkJoinPool.commonPool())
+                : townGraph.distanceMatrix(sources, targets);
+
+        return matrix.withNodes(from, to);
     }
 
     public List<Town> getTownsWithinRange(Town of, int range) {
-        return townGraph.nodesWithinRangeOf(of, range);
+        CsrGraph<Integer> loaded = mapped;
+        int id = towns.requireId(of);
+
+        return loaded != null
+                ? towns.towns(loaded.nodesWithinRangeOf(towns.key(id), range))
+                : towns.towns(townGraph.nodesWithinRangeOf(id, range));
+    }
+
+    /**
+     * @return the given number of towns nearest to the town by road, without the town itself, mapped to
+     *         their road distance in increasing order
+     */
+    public Map<Town, Integer> getNearestTowns(Town of, int count) {
+        return getNearestTowns(of, count, __ -> true);
+    }
+
+    /**
+     * Finds the nearest towns which satisfy the filter, e.g. the nearest town with more than a given population.
+     * The search stops as soon as the last of them is found; the filter is handed each town it settles.
+     * @return at most the given number of towns accepted by the filter, without the town itself, mapped to
+     *         their road distance in increasing order
+     */
+    public Map<Town, Integer> getNearestTowns(Town of, int count, Predicate<? super Town> filter) {
+        CsrGraph<Integer> loaded = mapped;
+        int id = towns.requireId(of);
+        Map<Integer, Integer> nearest = loaded != null
+                ? loaded.nearestNodes(towns.key(id), count, town -> filter.test(towns.town(town)))
+                : townGraph.nearestNodes(id, count, town -> filter.test(towns.town(town)));
+        Map<Town, Integer> result = new LinkedHashMap<>(nearest.size() * 4 / 3 + 1);
+
+        nearest.forEach((town, distance) -> result.put(towns.town(town), distance));
+
+        return result;
     }
 
     public Set<Town> getTowns() {
-        return townGraph.getNodes();
+        CsrGraph<Integer> loaded = mapped;
+
+        return new HashSet<>(loaded != null ? towns.towns(loaded.getNodes()) : towns.towns(townGraph.getNodes()));
+    }
+
+    private List<Integer> keysOf(List<Town> list) {
+        List<Integer> ids = new ArrayList<>(list.size());
+
+        for (Town town : list) {
+            ids.add(towns.keyOf(town));
+        }
+
+        return ids;
+    }
+
+    /**
+     * @return the graph of the network, first filled from the mapped file when the network was loaded
+     */
+    private IntGraph graph() {
+        if(mapped != null) {
+            synchronized (this) {
+                CsrGraph<Integer> loaded = mapped;
+
+                if(loaded != null) {
+                    townGraph.addAll(new GraphBuilder<Integer>(loaded.getSize(), loaded.getEdgeCount() / 2)
+                            .addGraph(loaded));
+                    mapped = null;
+                }
+            }
+        }
+
+        return townGraph;
+    }
+
+    /**
+     * Hierarchy prepared when the network had seen the given number of changes.
+     */
+    private static final class PreparedRouting {
+        final long changes;
+        final ContractionHierarchy<Integer> hierarchy;
+
+        PreparedRouting(long changes, ContractionHierarchy<Integer> hierarchy) {
+            this.changes = changes;
+            this.hierarchy = hierarchy;
+        }
     }
 }
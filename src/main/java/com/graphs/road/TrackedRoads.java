@@ -0,0 +1,34 @@
+package com.graphs.road;
+
+import com.graphs.graph.IntShortestPathTree;
+import com.graphs.graph.ShortestPath;
+
+/**
+ * Roads from a town to all other towns, kept up to date as roads change, see
+ * {@link TownRoadNetwork#trackRoadsFrom(Town)}.
+ */
+public class TrackedRoads {
+    private final IntShortestPathTree tree;
+    private final TownRegistry towns;
+
+    TrackedRoads(IntShortestPathTree tree, TownRegistry towns) {
+        this.tree = tree;
+        this.towns = towns;
+    }
+
+    public Town getFrom() {
+        return towns.town(tree.getSource());
+    }
+
+    /**
+     * @return length of the shortest road to the town, see {@link IntShortestPathTree#getDistance(int)}
+     */
+    public int getDistance(Town to) {
+        return tree.getDistance(towns.requireId(to));
+    }
+
+    public FullRoad roadTo(Town to) {
+        ShortestPath<Integer> shortestPath = tree.shortestPathTo(towns.requireId(to));
+        return new FullRoad(towns.towns(shortestPath.getNodes()), shortestPath.getCost());
+    }
+}
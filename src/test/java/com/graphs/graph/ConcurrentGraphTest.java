@@ -0,0 +1,190 @@
+package com.graphs.graph;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentGraphTest {
+    private static final int WRITERS = 4;
+    private static final int NODES_PER_WRITER = 2000;
+
+    @Test
+    public void testConcurrentWritesAndQueries() throws Exception {
+        ConcurrentGraph<Integer> graph = new ConcurrentGraph<>();
+        graph.addNode(0);
+
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + 2);
+        AtomicInteger failedQueries = new AtomicInteger();
+        CountDownLatch writersDone = new CountDownLatch(WRITERS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // Each writer extends its own chain hanging off node 0
+        for (int writer = 0; writer < WRITERS; writer++) {
+            int offset = writer * NODES_PER_WRITER;
+
+            futures.add(executor.submit(() -> {
+                int previous = 0;
+
+                for (int node = offset + 1; node <= offset + NODES_PER_WRITER; node++) {
+                    graph.addEdge(previous, node, 1);
+                    previous = node;
+                }
+
+                writersDone.countDown();
+            }));
+        }
+
+        for (int reader = 0; reader < 2; reader++) {
+            futures.add(executor.submit(() -> {
+                while (writersDone.getCount() > 0) {
+                    try {
+                        graph.nodesWithinRangeOf(0, 50);
+                        graph.shortestPath(0, 1, false);
+                    } catch (RuntimeException e) {
+                        failedQueries.incrementAndGet();
+                    }
+                }
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+
+        executor.shutdown();
+
+        assertEquals(0, failedQueries.get());
+        assertEquals(WRITERS * NODES_PER_WRITER + 1, graph.getSize());
+        assertTrue(graph.isConnected());
+        assertEquals(NODES_PER_WRITER, graph.shortestPath(0, NODES_PER_WRITER, false).getCost());
+    }
+
+    @Test
+    public void testConcurrentWritersAndConnectivityQueries() throws Exception {
+        ConcurrentGraph<Integer> graph = new ConcurrentGraph<>();
+        graph.addNode(0);
+
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + 2);
+        AtomicIntegerArray connected = new AtomicIntegerArray(WRITERS);
+        AtomicInteger wrongAnswers = new AtomicInteger();
+        CountDownLatch writersDone = new CountDownLatch(WRITERS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // Each writer extends its own chain hanging off node 0 and keeps adding and removing a shortcut back
+        // to node 0, so the components are rebuilt while other chains grow
+        for (int writer = 0; writer < WRITERS; writer++) {
+            int index = writer;
+            int offset = writer * NODES_PER_WRITER;
+
+            futures.add(executor.submit(() -> {
+                int previous = 0;
+
+                for (int node = offset + 1; node <= offset + NODES_PER_WRITER; node++) {
+                    graph.addEdge(previous, node, 1);
+                    connected.set(index, node);
+
+                    if(node % 10 == 0) {
+                        graph.addEdge(0, node, 1);
+                        graph.removeEdge(0, node);
+                    }
+
+                    previous = node;
+                }
+
+                writersDone.countDown();
+            }));
+        }
+
+        for (int reader = 0; reader < 2; reader++) {
+            futures.add(executor.submit(() -> {
+                while (writersDone.getCount() > 0) {
+                    for (int writer = 0; writer < WRITERS; writer++) {
+                        int node = connected.get(writer);
+
+                        if(node != 0 && !graph.areConnected(0, node)) {
+                            wrongAnswers.incrementAndGet();
+                        }
+                    }
+
+                    if(graph.getComponentCount() != 1) {
+                        wrongAnswers.incrementAndGet();
+                    }
+                }
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+
+        executor.shutdown();
+
+        assertEquals(0, wrongAnswers.get());
+        assertTrue(graph.isConnected());
+        assertEquals(WRITERS * NODES_PER_WRITER + 1, graph.getComponentSize(0));
+        assertEquals(List.of(graph.getNodes()), graph.getComponents());
+    }
+
+    @Test
+    public void testOppositeUpdatesKeepEdgesSymmetric() throws Exception {
+        ConcurrentGraph<Integer> graph = new ConcurrentGraph<>(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        Future<?> forward = executor.submit(() -> {
+            for (int i = 1; i <= 10000; i++) {
+                graph.addEdge(1, 2, i);
+            }
+        });
+        Future<?> backward = executor.submit(() -> {
+            for (int i = 1; i <= 10000; i++) {
+                graph.addEdge(2, 1, 20000 - i);
+            }
+        });
+
+        forward.get(30, TimeUnit.SECONDS);
+        backward.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertEquals(graph.shortestPath(1, 2, false).getCost(), graph.shortestPath(2, 1, false).getCost());
+    }
+
+    @Test
+    public void testBulkLoadDuringEdgeUpdates() throws Exception {
+        ConcurrentGraph<Integer> graph = new ConcurrentGraph<>();
+        int leaves = 5000;
+        GraphBuilder<Integer> builder = new GraphBuilder<>();
+
+        // A star around node 0, so the only route to each leaf is its edge
+        for (int leaf = 1; leaf <= leaves; leaf++) {
+            builder.addEdge(0, leaf, 5);
+            graph.addEdge(leaf, 0, 7);
+        }
+
+        ShortestPathTree<Integer> tree = graph.trackShortestPaths(0);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        Future<?> load = executor.submit(() -> builder.addTo(graph, true));
+        Future<?> updates = executor.submit(() -> {
+            for (int leaf = leaves; leaf >= 1; leaf--) {
+                graph.updateWeight(leaf, 0, 1 + leaf % 3);
+            }
+        });
+
+        load.get(30, TimeUnit.SECONDS);
+        updates.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        for (int leaf = 1; leaf <= leaves; leaf++) {
+            int cost = graph.shortestPath(0, leaf, false).getCost();
+
+            assertEquals(cost, graph.shortestPath(leaf, 0, false).getCost());
+            assertEquals(cost, tree.getDistance(leaf));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.graphs.graph;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ContractionHierarchyTest {
+
+    @Test
+    public void testShortestPath() {
+        Graph<Integer> graph = new Graph<>();
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(0, 2, 2);
+        graph.addEdge(1, 2, 3);
+        graph.addEdge(2, 3, 50);
+        graph.addEdge(4,5,6);
+        graph.addEdge(5,6,20);
+        graph.addEdge(2, 6, 1);
+        graph.addEdge(6, 3, 1);
+
+        ContractionHierarchy<Integer> hierarchy = ContractionHierarchy.build(graph.freeze());
+        ShortestPath<Integer> shortestPath = hierarchy.shortestPath(0, 3);
+
+        assertEquals(4, shortestPath.getCost());
+        assertEquals(List.of(0, 2, 6, 3), new ArrayList<>(shortestPath.getNodes()));
+        assertEquals(0, hierarchy.distance(4, 4));
+    }
+
+    @Test
+    public void testUnreachableDestination() {
+        Graph<Integer> graph = new Graph<>();
+        graph.addEdge(0, 1, 3);
+        graph.addEdge(2, 3, 4);
+
+        ContractionHierarchy<Integer> hierarchy = ContractionHierarchy.build(graph.freeze());
+
+        assertEquals(Integer.MAX_VALUE, hierarchy.distance(0, 3));
+        assertTrue(hierarchy.shortestPath(0, 3).getNodes().isEmpty());
+    }
+
+    @Test
+    public void testMatchesDijkstraOnRandomGraphs() {
+        Random random = new Random(5);
+
+        for (int i = 0; i < 30; i++) {
+            Graph<Integer> graph = new Graph<>();
+            int size = 2 + random.nextInt(400);
+
+            for (int edge = 0; edge < size * 2; edge++) {
+                int from = random.nextInt(size);
+                int to = random.nextInt(size);
+
+                if (from != to) {
+                    graph.addEdge(from, to, 1 + random.nextInt(100));
+                }
+            }
+
+            if (graph.isEmpty()) {
+                continue;
+            }
+
+            CsrGraph<Integer> frozen = graph.freeze();
+            ContractionHierarchy<Integer> hierarchy = ContractionHierarchy.build(frozen);
+            List<Integer> nodes = new ArrayList<>(graph.getNodes());
+
+            for (int query = 0; query < 20; query++) {
+                Integer source = nodes.get(random.nextInt(nodes.size()));
+                Integer dest = nodes.get(random.nextInt(nodes.size()));
+
+                ShortestPath<Integer> expected = graph.shortestPath(source, dest, false);
+                ShortestPath<Integer> actual = hierarchy.shortestPath(source, dest);
+
+                assertEquals(expected.getCost(), actual.getCost());
+                assertEquals(expected.getCost(), hierarchy.distance(source, dest));
+
+                if (expected.getCost() != Integer.MAX_VALUE) {
+                    List<Integer> route = new ArrayList<>(actual.getNodes());
+
+                    assertEquals(source, route.get(0));
+                    assertEquals(dest, route.get(route.size() - 1));
+
+                    for (int step = 1; step < route.size(); step++) {
+                        assertTrue(graph.getNeighboringNodes(route.get(step - 1)).contains(route.get(step)));
+                    }
+                }
+            }
+        }
+    }
+}
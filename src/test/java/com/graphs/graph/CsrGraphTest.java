@@ -0,0 +1,351 @@
+package com.graphs.graph;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class CsrGraphTest {
+    Graph<Integer> graph = new Graph<>();
+
+    @Before
+    public void init() {
+        graph.clear();
+    }
+
+    @Test
+    public void testFreeze_KeepsNodesAndEdges() {
+        graph.addEdge(1,2,10);
+        graph.addEdge(1,3,10);
+        graph.addEdge(2,3,10);
+        graph.addEdge(3,4,10);
+
+        CsrGraph<Integer> frozen = graph.freeze();
+
+        assertEquals(4, frozen.getSize());
+        assertEquals(8, frozen.getEdgeCount());
+        assertEquals(graph.getNodes(), frozen.getNodes());
+        assertEquals(Set.of(2,3), frozen.getNeighboringNodes(1));
+    }
+
+    @Test
+    public void testFreeze_IsNotAffectedByLaterChanges() {
+        graph.addEdge(1,2,10);
+
+        CsrGraph<Integer> frozen = graph.freeze();
+        graph.addEdge(2,3,10);
+
+        assertEquals(2, frozen.getSize());
+        assertTrue(frozen.isConnected());
+    }
+
+    @Test
+    public void testFreeze_IsReusedUntilTheGraphChanges() {
+        graph.addEdge(1,2,10);
+
+        CsrGraph<Integer> frozen = graph.freeze();
+
+        assertSame(frozen, graph.freeze());
+        assertEquals(10, graph.distanceMatrix(List.of(1), List.of(2)).get(0, 0));
+        assertSame(frozen, graph.freeze());
+
+        graph.updateWeight(1, 2, 5);
+        CsrGraph<Integer> changed = graph.freeze();
+
+        assertNotSame(frozen, changed);
+        assertEquals(5, changed.shortestPath(1, 2, false).getCost());
+        assertSame(changed, graph.freeze());
+
+        graph.addNode(3);
+
+        assertEquals(3, graph.freeze().getSize());
+    }
+
+    @Test
+    public void testGraph_IsNOT_Connected() {
+        graph.addEdge(1,2,10);
+        graph.addEdge(1,3,10);
+        graph.addEdge(8, 5, 10);
+
+        assertFalse(graph.freeze().isConnected());
+    }
+
+    @Test
+    public void testComponents_MatchGraphOnRandomGraphs() {
+        Random random = new Random(7);
+
+        for (int i = 0; i < 50; i++) {
+            graph.clear();
+            int size = 2 + random.nextInt(200);
+
+            for (int node = 0; node < size; node++) {
+                graph.addNode(node);
+            }
+
+            for (int edge = 0; edge < size * 3 / 4; edge++) {
+                int from = random.nextInt(size);
+                int to = random.nextInt(size);
+
+                if (from != to) {
+                    graph.addEdge(from, to, 1 + random.nextInt(100));
+                }
+            }
+
+            CsrGraph<Integer> frozen = graph.freeze();
+
+            assertEquals(new HashSet<>(graph.getComponents()), new HashSet<>(frozen.getComponents()));
+            assertEquals(graph.isConnected(), frozen.isConnected());
+
+            for (int check = 0; check < 20; check++) {
+                int first = random.nextInt(size);
+                int second = random.nextInt(size);
+
+                assertEquals(graph.areConnected(first, second), frozen.areConnected(first, second));
+            }
+        }
+    }
+
+    @Test
+    public void testShortestPath() {
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(0, 2, 2);
+        graph.addEdge(1, 2, 3);
+        graph.addEdge(2, 3, 50);
+        graph.addEdge(4,5,6);
+        graph.addEdge(5,6,20);
+        graph.addEdge(2, 6, 1);
+        graph.addEdge(6, 3, 1);
+
+        ShortestPath<Integer> shortestPath = graph.freeze().shortestPath(0, 3, false);
+
+        assertEquals(4, shortestPath.getCost());
+        assertEquals(List.of(0, 2, 6, 3), new ArrayList<>(shortestPath.getNodes()));
+    }
+
+    @Test
+    public void testNodesWithinRangeOf() {
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(0, 2, 2);
+        graph.addEdge(1, 2, 3);
+        graph.addEdge(1, 3, 50);
+        graph.addEdge(1,5,6);
+        graph.addEdge(2,4,20);
+        graph.addEdge(4,6,100);
+        graph.addEdge(2, 6, 1);
+        graph.addEdge(1, 4, 2);
+
+        List<Integer> actual = graph.freeze().nodesWithinRangeOf(1,3);
+
+        assertEquals(Set.of(0,2,4), new HashSet<>(actual));
+    }
+
+    @Test
+    public void testBreadthFirstTraversal_MatchesGraph() {
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(0, 2, 2);
+        graph.addEdge(1, 2, 2);
+        graph.addEdge(2, 3, 1);
+
+        assertEquals(graph.breadthFirstTraversal(2), graph.freeze().breadthFirstTraversal(2));
+    }
+
+    @Test
+    public void testDistanceMatrix_MatchesShortestPath() {
+        Random random = new Random(9);
+
+        for (int i = 0; i < 300; i++) {
+            int from = random.nextInt(100);
+            int to = random.nextInt(100);
+
+            if (from != to) {
+                graph.addEdge(from, to, 1 + random.nextInt(100));
+            }
+        }
+
+        graph.addNode(1000);
+
+        List<Integer> sources = List.of(0, 5, 17, 1000);
+        List<Integer> destinations = List.of(3, 5, 3, 99, 1000);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        DistanceMatrix<Integer> matrix = graph.freeze().distanceMatrix(sources, destinations, pool);
+        pool.shutdown();
+
+        assertEquals(4, matrix.getRowCount());
+        assertEquals(5, matrix.getColumnCount());
+
+        for (int row = 0; row < sources.size(); row++) {
+            for (int column = 0; column < destinations.size(); column++) {
+                assertEquals(graph.shortestPath(sources.get(row), destinations.get(column), false).getCost(),
+                        matrix.get(row, column));
+            }
+        }
+
+        assertEquals(DistanceMatrix.UNREACHABLE, matrix.get(0, 4));
+    }
+
+    @Test
+    public void testFullSearch_MatchesGraphOnRandomGraphs() {
+        Random random = new Random(3);
+
+        for (int i = 0; i < 50; i++) {
+            graph.clear();
+            int size = 2 + random.nextInt(300);
+
+            for (int edge = 0; edge < size * 3; edge++) {
+                int from = random.nextInt(size);
+                int to = random.nextInt(size);
+
+                if (from != to) {
+                    graph.addEdge(from, to, 1 + random.nextInt(100));
+                }
+            }
+
+            if (graph.isEmpty()) {
+                continue;
+            }
+
+            CsrGraph<Integer> frozen = graph.freeze();
+            Integer source = graph.getNodes().iterator().next();
+
+            assertEquals(graph.shortestPath(source, source, true).getLowestCosts(),
+                    frozen.shortestPath(source, source, true).getLowestCosts());
+            assertEquals(new ArrayList<>(graph.nearestNodes(source, 5, node -> node % 3 == 0).values()),
+                    new ArrayList<>(frozen.nearestNodes(source, 5, node -> node % 3 == 0).values()));
+        }
+    }
+
+    @Test
+    public void testDeltaStepping_MatchesDijkstraOnRandomGraphs() {
+        Random random = new Random(5);
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            for (int i = 0; i < 20; i++) {
+                graph.clear();
+                // Some graphs are large enough for frontiers to be split across tasks
+                int size = 2 + random.nextInt(i % 4 == 0 ? 5000 : 300);
+
+                for (int edge = 0; edge < size * 3; edge++) {
+                    int from = random.nextInt(size);
+                    int to = random.nextInt(size);
+
+                    if (from != to) {
+                        graph.addEdge(from, to, 1 + random.nextInt(100));
+                    }
+                }
+
+                if (graph.isEmpty()) {
+                    continue;
+                }
+
+                CsrGraph<Integer> frozen = graph.freeze();
+                Integer source = graph.getNodes().iterator().next();
+                Integer dest = frozen.getNodeList().get(random.nextInt(frozen.getSize()));
+                ShortestPath<Integer> expected = graph.shortestPath(source, dest, true);
+
+                for (int delta : new int[] {1, 30, 1000}) {
+                    ShortestPath<Integer> actual = frozen.shortestPath(source, dest, delta, pool);
+
+                    assertEquals(expected.getLowestCosts(), actual.getLowestCosts());
+                    assertEquals(expected.getCost(), actual.getCost());
+                    assertRouteFollowsLowestCosts(actual, source, dest);
+                }
+
+                assertEquals(expected.getLowestCosts(), graph.shortestPath(source, dest, pool).getLowestCosts());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testMinimumSpanningForest_MatchesReferenceOnRandomGraphs() {
+        Random random = new Random(11);
+
+        for (int i = 0; i < 30; i++) {
+            graph.clear();
+            int size = 2 + random.nextInt(300);
+            Map<List<Integer>, Integer> edges = new HashMap<>();
+
+            for (int edge = 0; edge < size * 2; edge++) {
+                int from = random.nextInt(size);
+                int to = random.nextInt(size);
+
+                if (from != to) {
+                    int weight = 1 + random.nextInt(20);
+                    graph.addEdge(from, to, weight);
+                    edges.put(List.of(Math.min(from, to), Math.max(from, to)), weight);
+                }
+            }
+
+            if (graph.isEmpty()) {
+                continue;
+            }
+
+            CsrGraph<Integer> forest = graph.freeze().minimumSpanningForest(i % 2 == 0);
+            Graph<Integer> forestGraph = new GraphBuilder<Integer>().addGraph(forest).build(false);
+
+            assertEquals(graph.getSize(), forest.getSize());
+            assertEquals(2 * (graph.getSize() - graph.getComponentCount()), forest.getEdgeCount());
+            assertEquals(graph.getComponentCount(), forestGraph.getComponentCount());
+            assertEquals(referenceForestWeight(edges), forest.getTotalWeight());
+        }
+    }
+
+    /**
+     * Kruskal's algorithm over boxed edges with a plain union-find.
+     */
+    private static long referenceForestWeight(Map<List<Integer>, Integer> edges) {
+        List<Map.Entry<List<Integer>, Integer>> sorted = new ArrayList<>(edges.entrySet());
+        sorted.sort(Map.Entry.comparingByValue());
+        Map<Integer, Integer> parents = new HashMap<>();
+        long total = 0;
+
+        for (Map.Entry<List<Integer>, Integer> edge : sorted) {
+            int from = root(parents, edge.getKey().get(0));
+            int to = root(parents, edge.getKey().get(1));
+
+            if (from != to) {
+                parents.put(from, to);
+                total += edge.getValue();
+            }
+        }
+
+        return total;
+    }
+
+    private static int root(Map<Integer, Integer> parents, int node) {
+        while (parents.containsKey(node)) {
+            node = parents.get(node);
+        }
+
+        return node;
+    }
+
+    /**
+     * Checks that the route leads along edges whose weights add up to the lowest costs.
+     */
+    private void assertRouteFollowsLowestCosts(ShortestPath<Integer> path, Integer source, Integer dest) {
+        List<Integer> route = new ArrayList<>(path.getNodes());
+
+        if (path.getCost() == Integer.MAX_VALUE) {
+            assertTrue(route.isEmpty());
+            return;
+        }
+
+        assertEquals(source, route.get(0));
+        assertEquals(dest, route.get(route.size() - 1));
+
+        for (int i = 1; i < route.size(); i++) {
+            Integer previous = route.get(i - 1);
+            Integer next = route.get(i);
+
+            assertTrue(graph.getNeighboringNodes(previous).contains(next));
+            assertEquals(path.getLowestCosts().get(next) - path.getLowestCosts().get(previous),
+                    graph.shortestPath(previous, next, false).getCost());
+        }
+    }
+}
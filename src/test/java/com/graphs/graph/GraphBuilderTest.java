@@ -0,0 +1,69 @@
+package com.graphs.graph;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class GraphBuilderTest {
+
+    @Test
+    public void testBuild_MatchesAddEdge() {
+        Random random = new Random(5);
+        Graph<Integer> expected = new Graph<>();
+        GraphBuilder<Integer> builder = new GraphBuilder<>(100, 400);
+
+        for (int i = 0; i < 400; i++) {
+            int from = random.nextInt(100);
+            int to = random.nextInt(100);
+            int weight = 1 + random.nextInt(50);
+
+            if (from != to) {
+                expected.addEdge(from, to, weight);
+                builder.addEdge(from, to, weight);
+            }
+        }
+
+        for (boolean parallel : new boolean[] {false, true}) {
+            Graph<Integer> built = builder.build(parallel);
+
+            assertEquals(expected.getNodes(), built.getNodes());
+            assertEquals(expected.getComponents(), built.getComponents());
+
+            for (int node : expected.getNodes()) {
+                assertEquals(expected.getNeighboringNodes(node), built.getNeighboringNodes(node));
+                assertEquals(expected.shortestPath(node, 0, true).getLowestCosts(),
+                        built.shortestPath(node, 0, true).getLowestCosts());
+            }
+        }
+    }
+
+    @Test
+    public void testAddTo_KeepsExistingEdgesAndLastWeightWins() {
+        Graph<String> graph = new Graph<>();
+        graph.addEdge("A", "B", 5);
+        graph.addNode("E");
+
+        new GraphBuilder<String>()
+                .addEdges(new String[] {"B", "C", "B"}, new String[] {"C", "D", "C"}, new int[] {7, 3, 2})
+                .addEdges(Stream.of("A:B:9"), edge -> edge.split(":")[0], edge -> edge.split(":")[1],
+                        edge -> Integer.parseInt(edge.split(":")[2]))
+                .addTo(graph, false);
+
+        assertEquals(Set.of("A", "B", "C", "D", "E"), graph.getNodes());
+        assertEquals(14, graph.shortestPath("A", "D", false).getCost());
+        assertEquals(List.of("A", "B", "C", "D"), new ArrayList<>(graph.shortestPath("A", "D", false).getNodes()));
+        assertEquals(2, graph.getComponentCount());
+        assertTrue(graph.areConnected("A", "D"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddEdge_RejectsLoops() {
+        new GraphBuilder<Integer>().addEdge(1, 1, 3);
+    }
+}
@@ -95,6 +95,89 @@ public class GraphTest {
         assertFalse(graph.isConnected());
     }
 
+    @Test
+    public void testComponents() {
+        graph.addEdge(1, 2, 10);
+        graph.addEdge(2, 3, 10);
+        graph.addEdge(8, 5, 10);
+        graph.addNode(7);
+
+        assertEquals(3, graph.getComponentCount());
+        assertTrue(graph.areConnected(1, 3));
+        assertFalse(graph.areConnected(1, 5));
+        assertEquals(graph.componentOf(1), graph.componentOf(3));
+        assertEquals(3, graph.getComponentSize(2));
+        assertEquals(List.of(Set.of(1, 2, 3), Set.of(5, 8), Set.of(7)), graph.getComponents());
+
+        graph.addEdge(3, 5, 1);
+        graph.addEdge(7, 8, 1);
+
+        assertEquals(1, graph.getComponentCount());
+        assertTrue(graph.isConnected());
+        assertEquals(6, graph.getComponentSize(7));
+
+        graph.clear();
+
+        assertFalse(graph.isConnected());
+        assertEquals(0, graph.getComponentCount());
+    }
+
+    @Test
+    public void testComponentSizes_MatchReachableNodesOnRandomGraphs() {
+        Random random = new Random(13);
+
+        for (int i = 0; i < 20; i++) {
+            graph.clear();
+            int size = 2 + random.nextInt(500);
+
+            for (int edge = 0; edge < size; edge++) {
+                int from = random.nextInt(size);
+                int to = random.nextInt(size);
+
+                if (from != to) {
+                    graph.addEdge(from, to, 1);
+                }
+            }
+
+            if (i % 2 == 0 && !graph.isEmpty()) {
+                Integer node = graph.getNodes().iterator().next();
+                graph.removeEdge(node, graph.getNeighboringNodes(node).iterator().next());
+            }
+
+            for (Integer node : graph.getNodes()) {
+                assertEquals(graph.countReachable(node), graph.getComponentSize(node));
+            }
+        }
+    }
+
+    @Test
+    public void testRemoveEdgeAndUpdateWeight() {
+        graph.addEdge(1, 2, 10);
+        graph.addEdge(2, 3, 10);
+        graph.addEdge(1, 3, 30);
+
+        graph.updateWeight(3, 1, 5);
+
+        assertEquals(5, graph.shortestPath(1, 3, false).getCost());
+        assertTrue(graph.removeEdge(1, 3));
+        assertFalse(graph.removeEdge(3, 1));
+        assertEquals(20, graph.shortestPath(1, 3, false).getCost());
+
+        graph.removeEdge(2, 3);
+
+        assertFalse(graph.isConnected());
+        assertEquals(2, graph.getComponentCount());
+        assertEquals(Set.of(1, 2, 3), graph.getNodes());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUpdateWeight_RequiresEdge() {
+        graph.addEdge(1, 2, 10);
+        graph.addNode(3);
+
+        graph.updateWeight(1, 3, 5);
+    }
+
     @Test
     public void testNodesWithinRangeOf() {
         graph.addEdge(0, 1, 1);
@@ -115,6 +198,35 @@ public class GraphTest {
         assertTrue(actual.containsAll(expected));
     }
 
+    @Test
+    public void testNodesWithinRangeOf_OrderedByDistance() {
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(0, 2, 2);
+        graph.addEdge(1, 2, 3);
+        graph.addEdge(1, 4, 2);
+        graph.addEdge(2, 6, 1);
+        graph.addEdge(6, 7, 1);
+
+        assertEquals(List.of(0, 4, 2, 6), graph.nodesWithinRangeOf(1, 4));
+        assertEquals(List.of(), graph.nodesWithinRangeOf(7, 0));
+    }
+
+    @Test
+    public void testNearestNodes() {
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(0, 2, 2);
+        graph.addEdge(1, 2, 3);
+        graph.addEdge(1, 4, 2);
+        graph.addEdge(2, 6, 1);
+        graph.addEdge(6, 7, 1);
+
+        assertEquals(List.of(0, 4, 2), new ArrayList<>(graph.nearestNodes(1, 3, node -> true).keySet()));
+        assertEquals(List.of(1, 2, 3), new ArrayList<>(graph.nearestNodes(1, 3, node -> true).values()));
+        assertEquals(Map.of(6, 4, 4, 2), graph.nearestNodes(1, 2, node -> node > 3 && node % 2 == 0));
+        assertEquals(5, graph.nearestNodes(1, 10, node -> true).size());
+        assertTrue(graph.nearestNodes(1, 0, node -> true).isEmpty());
+    }
+
     @Test
     public void testBreadthFirstTraversal() {
         graph.addEdge(0, 1, 1);
@@ -134,6 +246,31 @@ public class GraphTest {
         assertEquals(3, resultList.get(3).intValue());
     }
 
+    @Test
+    public void testBreadthFirstTraversal_NotifiesListener() {
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(0, 2, 2);
+        graph.addEdge(2, 3, 1);
+
+        Map<Integer, Integer> visits = new LinkedHashMap<>();
+
+        Map<Integer, Integer> traversalResult = graph.breadthFirstTraversal(0, visits::put);
+
+        assertEquals(traversalResult, visits);
+        assertEquals(List.of(0, 1, 2, 3), new ArrayList<>(visits.keySet()));
+        assertEquals(3, visits.get(3).intValue());
+    }
+
+    @Test
+    public void testCountReachable() {
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, 2);
+        graph.addEdge(4, 5, 1);
+
+        assertEquals(3, graph.countReachable(0));
+        assertEquals(2, graph.countReachable(5));
+    }
+
     @Test
     public void testShortestPath() {
         graph.addEdge(0, 1, 1);
@@ -145,7 +282,7 @@ public class GraphTest {
         graph.addEdge(2, 6, 1);
         graph.addEdge(6, 3, 1);
 
-        //Path should be : 0 -> 1 -> 2 -> 6 -> 3
+        //Path should be : 0 -> 2 -> 6 -> 3
         ShortestPath<Integer> shortestPath = graph.shortestPath(0, 3, false);
 
         String actualNodesInOrder = shortestPath.getNodes().stream()
@@ -154,7 +291,6 @@ public class GraphTest {
 
         Set<Integer> expectedNodesSet = new LinkedHashSet<>();
         expectedNodesSet.add(0);
-        expectedNodesSet.add(1);
         expectedNodesSet.add(2);
         expectedNodesSet.add(6);
         expectedNodesSet.add(3);
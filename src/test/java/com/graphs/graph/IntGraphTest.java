@@ -0,0 +1,543 @@
+package com.graphs.graph;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class IntGraphTest {
+    IntGraph graph = new IntGraph();
+
+    @Before
+    public void init() {
+        graph.clear();
+    }
+
+    @Test
+    public void testAddEdge_Bidirectional() {
+        graph.addEdge(1,2,1);
+
+        assertEquals(2, graph.getSize());
+        assertArrayEquals(new int[] {1, 2}, graph.getNodes());
+        assertArrayEquals(new int[] {1}, graph.getNeighboringNodes(2));
+    }
+
+    @Test
+    public void testAddEdge_ReplacesWeight() {
+        graph.addEdge(1,2,10);
+        graph.addEdge(2,1,3);
+
+        assertArrayEquals(new int[] {2}, graph.getNeighboringNodes(1));
+        assertEquals(3, graph.distance(1, 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddEdge_ZeroWeightNotAllowed() {
+        graph.addEdge(1, 2, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddEdge_SameNodeNotAllowed() {
+        graph.addEdge(1, 1, 2);
+    }
+
+    @Test
+    public void testAddNode_KeepsEdges() {
+        graph.addEdge(1, 2, 1);
+
+        assertFalse(graph.addNode(1));
+        assertTrue(graph.addNode(3));
+        assertArrayEquals(new int[] {2}, graph.getNeighboringNodes(1));
+        assertArrayEquals(new int[0], graph.getNeighboringNodes(3));
+        assertArrayEquals(new int[0], graph.getNeighboringNodes(4));
+    }
+
+    @Test
+    public void testGraph_IsNOT_Connected() {
+        graph.addEdge(1,2,10);
+        graph.addEdge(1,3,10);
+        graph.addEdge(8, 5, 10);
+
+        assertFalse(graph.isConnected());
+
+        graph.addEdge(3, 8, 1);
+
+        assertTrue(graph.isConnected());
+    }
+
+    @Test
+    public void testComponents() {
+        graph.addEdge(1, 2, 10);
+        graph.addEdge(2, 3, 10);
+        graph.addEdge(8, 5, 10);
+        graph.addNode(7);
+
+        assertEquals(3, graph.getComponentCount());
+        assertTrue(graph.areConnected(1, 3));
+        assertFalse(graph.areConnected(1, 5));
+        assertEquals(graph.componentOf(1), graph.componentOf(3));
+        assertEquals(3, graph.getComponentSize(2));
+        assertArrayEquals(new int[] {1, 2, 3}, graph.getComponents().get(0));
+        assertArrayEquals(new int[] {8, 5}, graph.getComponents().get(1));
+        assertArrayEquals(new int[] {7}, graph.getComponents().get(2));
+
+        graph.addEdge(3, 5, 1);
+        graph.addEdge(7, 8, 1);
+
+        assertEquals(1, graph.getComponentCount());
+        assertEquals(6, graph.getComponentSize(7));
+
+        graph.clear();
+
+        assertFalse(graph.isConnected());
+        assertEquals(0, graph.getComponentCount());
+    }
+
+    @Test
+    public void testRemoveEdgeAndUpdateWeight() {
+        graph.addEdge(1, 2, 10);
+        graph.addEdge(2, 3, 10);
+        graph.addEdge(1, 3, 30);
+
+        graph.updateWeight(3, 1, 5);
+
+        assertEquals(5, graph.shortestPath(1, 3, false).getCost());
+        assertTrue(graph.removeEdge(1, 3));
+        assertFalse(graph.removeEdge(3, 1));
+        assertFalse(graph.removeEdge(1, 9));
+        assertEquals(20, graph.shortestPath(1, 3, false).getCost());
+
+        graph.removeEdge(2, 3);
+
+        assertFalse(graph.isConnected());
+        assertEquals(2, graph.getComponentCount());
+        assertEquals(1, graph.getComponentSize(3));
+        assertArrayEquals(new int[] {1, 2, 3}, graph.getNodes());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUpdateWeight_RequiresEdge() {
+        graph.addEdge(1, 2, 10);
+        graph.addNode(3);
+
+        graph.updateWeight(1, 3, 5);
+    }
+
+    @Test
+    public void testNodesWithinRangeOf_OrderedByDistance() {
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(0, 2, 2);
+        graph.addEdge(1, 2, 3);
+        graph.addEdge(1, 3, 50);
+        graph.addEdge(1,5,6);
+        graph.addEdge(2,4,20);
+        graph.addEdge(4,6,100);
+        graph.addEdge(2, 6, 1);
+        graph.addEdge(1, 4, 2);
+
+        assertArrayEquals(new int[] {0, 4, 2}, graph.nodesWithinRangeOf(1, 3));
+        assertArrayEquals(new int[0], graph.nodesWithinRangeOf(1, 0));
+        assertArrayEquals(new int[0], graph.nodesWithinRangeOf(1, -1));
+    }
+
+    @Test
+    public void testVisitWithinRange_StartsWithTheNode() {
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, 2);
+        graph.addEdge(2, 3, 5);
+
+        Map<Integer, Integer> visits = new LinkedHashMap<>();
+
+        graph.visitWithinRange(1, 3, visits::put);
+
+        assertEquals(List.of(1, 0, 2), new ArrayList<>(visits.keySet()));
+        assertEquals(List.of(0, 1, 2), new ArrayList<>(visits.values()));
+    }
+
+    @Test
+    public void testNearestNodes() {
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(0, 2, 2);
+        graph.addEdge(1, 2, 3);
+        graph.addEdge(1, 4, 2);
+        graph.addEdge(2, 6, 1);
+        graph.addEdge(6, 7, 1);
+
+        assertEquals(List.of(0, 4, 2), new ArrayList<>(graph.nearestNodes(1, 3, node -> true).keySet()));
+        assertEquals(List.of(1, 2, 3), new ArrayList<>(graph.nearestNodes(1, 3, node -> true).values()));
+        assertEquals(Map.of(6, 4, 4, 2), graph.nearestNodes(1, 2, node -> node > 3 && node % 2 == 0));
+        assertEquals(5, graph.nearestNodes(1, 10, node -> true).size());
+        assertTrue(graph.nearestNodes(1, 0, node -> true).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNearestNodes_NegativeCountNotAllowed() {
+        graph.addEdge(0, 1, 1);
+
+        graph.nearestNodes(0, -1, node -> true);
+    }
+
+    @Test
+    public void testBreadthFirstTraversal() {
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(0, 2, 2);
+        graph.addEdge(1, 2, 2);
+        graph.addEdge(2, 3, 1);
+        graph.addEdge(5, 6, 1);
+
+        Map<Integer, Integer> visits = new LinkedHashMap<>();
+
+        assertArrayEquals(new int[] {2, 0, 1, 3}, graph.breadthFirstTraversal(2));
+        assertArrayEquals(new int[] {0, 1, 2, 3}, graph.breadthFirstTraversal(0, visits::put));
+        assertEquals(3, visits.get(3).intValue());
+        assertEquals(4, graph.countReachable(3));
+        assertEquals(2, graph.countReachable(6));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testShortestPath_UnknownSourceNotAllowed() {
+        graph.addEdge(0, 1, 1);
+
+        graph.shortestPath(7, 1, false);
+    }
+
+    @Test
+    public void testShortestPath() {
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(0, 2, 2);
+        graph.addEdge(1, 2, 3);
+        graph.addEdge(2, 3, 50);
+        graph.addEdge(4,5,6);
+        graph.addEdge(5,6,20);
+        graph.addEdge(2, 6, 1);
+        graph.addEdge(6, 3, 1);
+
+        ShortestPath<Integer> shortestPath = graph.shortestPath(0, 3, false);
+
+        assertEquals(4, shortestPath.getCost());
+        assertEquals(List.of(0, 2, 6, 3), new ArrayList<>(shortestPath.getNodes()));
+        assertEquals(23, graph.distance(0, 5));
+
+        graph.addNode(9);
+
+        assertEquals(Integer.MAX_VALUE, graph.distance(0, 9));
+        assertEquals(Integer.MAX_VALUE, graph.distance(0, 10));
+
+        for (SearchStrategy strategy : SearchStrategy.values()) {
+            assertEquals(Integer.MAX_VALUE, graph.shortestPath(0, 9, strategy).getCost());
+            assertTrue(graph.shortestPath(0, 9, strategy).getNodes().isEmpty());
+            assertEquals(0, graph.shortestPath(0, 0, strategy).getCost());
+        }
+    }
+
+    @Test
+    public void testMatchesGraphOnRandomGraphs() {
+        Random random = new Random(11);
+        ForkJoinPool pool = new ForkJoinPool(2);
+
+        for (int i = 0; i < 50; i++) {
+            Graph<Integer> reference = new Graph<>();
+            graph.clear();
+            int size = 2 + random.nextInt(300);
+
+            for (int edge = 0; edge < size * 2; edge++) {
+                int from = random.nextInt(size);
+                int to = random.nextInt(size);
+                int weight = 1 + random.nextInt(100);
+
+                if (from != to) {
+                    reference.addEdge(from, to, weight);
+                    graph.addEdge(from, to, weight);
+                }
+            }
+
+            if (reference.isEmpty()) {
+                continue;
+            }
+
+            if (i % 2 == 0) {
+                int node = graph.getNodes()[0];
+                int neighbour = graph.getNeighboringNodes(node)[0];
+
+                reference.removeEdge(node, neighbour);
+                graph.removeEdge(node, neighbour);
+            }
+
+            int source = graph.getNodes()[0];
+            int dest = graph.getNodes()[graph.getSize() - 1];
+            int expectedCost = reference.shortestPath(source, dest, false).getCost();
+
+            assertEquals(reference.shortestPath(source, source, true).getLowestCosts(),
+                    graph.shortestPath(source, source, true).getLowestCosts());
+            assertEquals(expectedCost, graph.distance(source, dest));
+            assertEquals(reference.breadthFirstTraversal(source).size(), graph.breadthFirstTraversal(source).length);
+            assertEquals(reference.getComponentCount(), graph.getComponentCount());
+            assertEquals(reference.getComponentSize(dest), graph.getComponentSize(dest));
+            assertEquals(reference.areConnected(source, dest), graph.areConnected(source, dest));
+            assertEquals(reference.nodesWithinRangeOf(source, 150).size(),
+                    graph.nodesWithinRangeOf(source, 150).length);
+            assertEquals(new ArrayList<>(reference.nearestNodes(source, 5, node -> node % 3 == 0).values()),
+                    new ArrayList<>(graph.nearestNodes(source, 5, node -> node % 3 == 0).values()));
+            assertEquals(reference.shortestPath(source, dest, pool).getLowestCosts(),
+                    graph.shortestPath(source, dest, pool).getLowestCosts());
+
+            for (SearchStrategy strategy : SearchStrategy.values()) {
+                ShortestPath<Integer> path = graph.shortestPath(source, dest, strategy);
+
+                assertEquals(expectedCost, path.getCost());
+                assertRouteFollowsLowestCosts(path, source, dest);
+            }
+        }
+
+        pool.shutdown();
+    }
+
+    @Test
+    public void testAStar_FollowsHeuristic() {
+        // Nodes on a line, the heuristic is the distance along it
+        for (int node = 1; node < 100; node++) {
+            graph.addEdge(node - 1, node, 1);
+        }
+
+        graph.addEdge(50, 200, 1);
+        graph.setHeuristic((node, dest) -> node < 100 && dest < 100 ? Math.abs(node - dest) : 0);
+
+        ShortestPath<Integer> path = graph.shortestPath(40, 60, SearchStrategy.A_STAR);
+
+        assertEquals(20, path.getCost());
+        assertEquals(21, path.getNodes().size());
+        assertTrue(path.getLowestCosts().size() < 30);
+    }
+
+    @Test
+    public void testTracksRandomChanges() {
+        Random random = new Random(17);
+        Graph<Integer> reference = new Graph<>();
+        List<int[]> edges = new ArrayList<>();
+
+        for (int i = 0; i < 150; i++) {
+            int from = random.nextInt(60);
+            int to = random.nextInt(60);
+
+            if (from != to) {
+                int weight = 1 + random.nextInt(20);
+                reference.addEdge(from, to, weight);
+                graph.addEdge(from, to, weight);
+                edges.add(new int[] {from, to});
+            }
+        }
+
+        graph.addEdge(0, edges.get(0)[0] == 0 ? edges.get(0)[1] : edges.get(0)[0], 100);
+        reference.addEdge(0, edges.get(0)[0] == 0 ? edges.get(0)[1] : edges.get(0)[0], 100);
+
+        IntShortestPathTree tree = graph.trackShortestPaths(0);
+
+        for (int step = 0; step < 500; step++) {
+            int[] edge = edges.get(random.nextInt(edges.size()));
+            int weight = 1 + random.nextInt(20);
+
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertEquals(reference.removeEdge(edge[0], edge[1]), graph.removeEdge(edge[0], edge[1]));
+                    break;
+                case 1:
+                    if (reference.getNeighboringNodes(edge[0]).contains(edge[1])) {
+                        reference.updateWeight(edge[0], edge[1], weight);
+                        graph.updateWeight(edge[0], edge[1], weight);
+                    }
+                    break;
+                default:
+                    reference.addEdge(edge[0], edge[1], weight);
+                    graph.addEdge(edge[0], edge[1], weight);
+            }
+
+            Map<Integer, Integer> expected = reference.shortestPath(0, 0, true).getLowestCosts();
+
+            for (int node = 0; node < 60; node++) {
+                assertEquals(expected.getOrDefault(node, Integer.MAX_VALUE).intValue(), tree.getDistance(node));
+            }
+
+            assertEquals(expected, tree.shortestPathTo(0).getLowestCosts());
+            assertRouteFollowsLowestCosts(tree.shortestPathTo(edge[1]), 0, edge[1]);
+        }
+
+        graph.stopTracking(tree);
+    }
+
+    @Test
+    public void testTrackedTree_SurvivesClear() {
+        graph.addEdge(0, 1, 5);
+
+        IntShortestPathTree tree = graph.trackShortestPaths(0);
+        graph.clear();
+
+        assertEquals(Integer.MAX_VALUE, tree.getDistance(1));
+        assertEquals(0, tree.getDistance(0));
+
+        graph.addEdge(2, 1, 1);
+        graph.addEdge(1, 0, 3);
+
+        assertEquals(3, tree.getDistance(1));
+        assertEquals(4, tree.getDistance(2));
+        assertEquals(List.of(0, 1, 2), new ArrayList<>(tree.shortestPathTo(2).getNodes()));
+    }
+
+    @Test
+    public void testAddAll_MergesWithExistingEdges() {
+        graph.addEdge(1, 2, 10);
+        graph.addEdge(2, 3, 10);
+
+        IntShortestPathTree tree = graph.trackShortestPaths(1);
+        int[] added = graph.addAll(new GraphBuilder<Integer>()
+                .addEdge(1, 2, 4)
+                .addEdge(3, 4, 1)
+                .addEdge(4, 5, 7)
+                .addEdge(4, 5, 2)
+                .addNode(9));
+
+        assertArrayEquals(new int[] {4, 5, 9}, added);
+        assertEquals(6, graph.getSize());
+        assertEquals(4, graph.distance(1, 2));
+        assertEquals(17, graph.distance(1, 5));
+        assertEquals(17, tree.getDistance(5));
+        assertArrayEquals(new int[] {2, 4}, graph.getNeighboringNodes(3));
+        assertArrayEquals(new int[] {3, 5}, graph.getNeighboringNodes(4));
+        assertEquals(2, graph.getComponentCount());
+    }
+
+    @Test
+    public void testCache_InvalidatedOnChanges() {
+        ShortestPathCache<Integer> cache = new ShortestPathCache<>(10, Duration.ofMinutes(1));
+
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, 1);
+        graph.setCache(cache);
+
+        assertEquals(2, graph.shortestPath(0, 2, false).getCost());
+        assertEquals(List.of(0, 1, 2), new ArrayList<>(graph.shortestPath(0, 2, false).getNodes()));
+        assertEquals(1, cache.getHitCount());
+
+        graph.addEdge(0, 2, 1);
+
+        assertEquals(0, cache.size());
+        assertEquals(1, graph.shortestPath(0, 2, false).getCost());
+        assertSame(cache, graph.getCache());
+    }
+
+    @Test
+    public void testReportsQueriesToMetrics() {
+        List<QueryStats<Integer>> reported = new ArrayList<>();
+
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, 1);
+        graph.addEdge(0, 2, 5);
+        graph.setMetrics(reported::add);
+
+        graph.shortestPath(0, 2, SearchStrategy.DIJKSTRA);
+        graph.shortestPath(0, 2, SearchStrategy.BIDIRECTIONAL);
+        graph.nodesWithinRangeOf(0, 10);
+        graph.setMetrics(null);
+        graph.shortestPath(0, 2, SearchStrategy.A_STAR);
+
+        assertEquals(3, reported.size());
+
+        QueryStats<Integer> dijkstra = reported.get(0);
+        assertEquals(QueryType.SHORTEST_PATH, dijkstra.getType());
+        assertEquals(Integer.valueOf(2), dijkstra.getDest());
+        assertEquals(3, dijkstra.getSettledNodes());
+        assertEquals(4, dijkstra.getRelaxedEdges());
+        assertTrue(dijkstra.getLatencyNanos() > 0);
+        assertTrue(reported.get(1).getHeapOperations() >= reported.get(1).getSettledNodes());
+        assertEquals(QueryType.NODES_WITHIN_RANGE, reported.get(2).getType());
+        assertNull(reported.get(2).getDest());
+    }
+
+    @Test
+    public void testFreeze_IsReusedUntilTheGraphChanges() {
+        graph.addEdge(1, 2, 10);
+
+        CsrGraph<Integer> frozen = graph.freeze();
+
+        assertSame(frozen, graph.freeze());
+        assertEquals(Set.of(1, 2), frozen.getNodes());
+        assertEquals(10, graph.distanceMatrix(List.of(1), List.of(2)).get(0, 0));
+
+        graph.updateWeight(1, 2, 5);
+
+        assertNotSame(frozen, graph.freeze());
+        assertEquals(5, graph.freeze().shortestPath(1, 2, false).getCost());
+        assertEquals(5, graph.minimumSpanningForest().getTotalWeight());
+    }
+
+    @Test
+    public void testQueriesRunWhileEdgesAreAdded() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+
+        graph.addEdge(0, 1, 1);
+
+        futures.add(executor.submit(() -> {
+            // A path growing from node 0, so every query has its answer while it grows
+            for (int node = 2; node < 3000; node++) {
+                graph.addEdge(node - 1, node, 1);
+            }
+        }));
+
+        for (int reader = 0; reader < 3; reader++) {
+            Random random = new Random(reader);
+
+            futures.add(executor.submit(() -> {
+                for (int step = 0; step < 300; step++) {
+                    int size = graph.getSize();
+                    int dest = random.nextInt(size);
+
+                    assertEquals(dest, graph.distance(0, dest));
+                    assertEquals(dest, graph.shortestPath(0, dest, SearchStrategy.BIDIRECTIONAL).getCost());
+                    assertTrue(graph.areConnected(0, dest));
+                    assertTrue(graph.nodesWithinRangeOf(0, 10).length >= Math.min(size - 1, 10));
+                }
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+
+        executor.shutdown();
+
+        assertTrue(graph.isConnected());
+        assertEquals(2999, graph.distance(0, 2999));
+    }
+
+    /**
+     * Checks that the route leads along edges whose weights add up to the lowest costs.
+     */
+    private void assertRouteFollowsLowestCosts(ShortestPath<Integer> path, int source, int dest) {
+        List<Integer> route = new ArrayList<>(path.getNodes());
+
+        if (path.getCost() == Integer.MAX_VALUE) {
+            assertTrue(route.isEmpty());
+            return;
+        }
+
+        assertEquals(source, route.get(0).intValue());
+        assertEquals(dest, route.get(route.size() - 1).intValue());
+
+        int cost = 0;
+
+        for (int i = 1; i < route.size(); i++) {
+            assertTrue(Arrays.stream(graph.getNeighboringNodes(route.get(i - 1))).anyMatch(route.get(i)::equals));
+            cost += graph.distance(route.get(i - 1), route.get(i));
+        }
+
+        assertEquals(path.getCost(), cost);
+    }
+}
@@ -0,0 +1,208 @@
+package com.graphs.graph;
+
+import org.junit.Test;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class QueryMetricsTest {
+
+    @Test
+    public void testHistogramPercentiles() {
+        Histogram histogram = new Histogram();
+        Random random = new Random(3);
+        List<Long> values = new ArrayList<>();
+
+        for (int i = 0; i < 10000; i++) {
+            long value = (long) Math.exp(random.nextDouble() * 25);
+            values.add(value);
+            histogram.record(value);
+        }
+
+        values.sort(null);
+
+        for (double percentile : new double[] {0, 50, 90, 99, 99.9, 100}) {
+            long expected = values.get(Math.max(0, (int) Math.ceil(percentile / 100 * values.size()) - 1));
+            long actual = histogram.getValueAtPercentile(percentile);
+
+            assertTrue(percentile + ": " + actual + " vs " + expected,
+                    actual >= expected && actual <= expected + expected / 32 + 1);
+        }
+
+        assertEquals(values.get(values.size() - 1).longValue(), histogram.getMax());
+        assertEquals(10000, histogram.getCount());
+    }
+
+    @Test
+    public void testHistogramBucketsAreContiguous() {
+        for (int index = 1; index < Histogram.indexOf(Long.MAX_VALUE); index++) {
+            long lowest = Histogram.highestValueOf(index - 1) + 1;
+
+            assertEquals(index, Histogram.indexOf(lowest));
+            assertEquals(index, Histogram.indexOf(Histogram.highestValueOf(index)));
+        }
+    }
+
+    @Test
+    public void testGraphReportsQueries() {
+        Graph<Integer> graph = new Graph<>();
+        List<QueryStats<Integer>> reported = new ArrayList<>();
+        QueryMetrics<Integer> metrics = new QueryMetrics<>();
+
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, 1);
+        graph.addEdge(0, 2, 5);
+        graph.addNode(3);
+        graph.setCache(new ShortestPathCache<>(10, Duration.ofMinutes(1)));
+        graph.setMetrics(stats -> {
+            reported.add(stats);
+            metrics.onQuery(stats);
+        });
+
+        graph.shortestPath(0, 2, SearchStrategy.DIJKSTRA);
+        graph.shortestPath(0, 2, SearchStrategy.DIJKSTRA);
+        graph.setCache(null);
+        graph.shortestPath(0, 2, SearchStrategy.BIDIRECTIONAL);
+        graph.shortestPath(0, 2, SearchStrategy.A_STAR);
+        graph.nodesWithinRangeOf(0, 10);
+
+        assertEquals(5, reported.size());
+
+        QueryStats<Integer> dijkstra = reported.get(0);
+        assertEquals(QueryType.SHORTEST_PATH, dijkstra.getType());
+        assertEquals(Integer.valueOf(2), dijkstra.getDest());
+        assertEquals(3, dijkstra.getSettledNodes());
+        assertEquals(4, dijkstra.getRelaxedEdges());
+        assertFalse(dijkstra.isCacheHit());
+        assertTrue(dijkstra.getLatencyNanos() > 0);
+
+        assertTrue(reported.get(1).isCacheHit());
+        assertEquals(0, reported.get(1).getSettledNodes());
+
+        for (QueryStats<Integer> stats : reported.subList(2, 4)) {
+            assertTrue(stats.getSettledNodes() > 0);
+            assertTrue(stats.getHeapOperations() >= stats.getSettledNodes());
+        }
+
+        assertEquals(QueryType.NODES_WITHIN_RANGE, reported.get(4).getType());
+        assertEquals(3, reported.get(4).getSettledNodes());
+
+        assertEquals(5, metrics.getQueryCount());
+        assertEquals(1, metrics.getCacheHitCount());
+        assertEquals(1, metrics.getLatency(QueryType.NODES_WITHIN_RANGE).getCount());
+        assertNotNull(metrics.getSlowest());
+        assertTrue(metrics.getP99LatencyMicros() <= metrics.getMaxLatencyMicros());
+
+        metrics.reset();
+
+        assertEquals(0, metrics.getQueryCount());
+        assertNull(metrics.getSlowest());
+    }
+
+    @Test
+    public void testGraphWithoutMetrics() {
+        Graph<Integer> graph = new Graph<>();
+
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, 1);
+        graph.setMetrics(stats -> fail("Metrics were removed."));
+        graph.setMetrics(null);
+
+        assertEquals(2, graph.shortestPath(0, 2, SearchStrategy.BIDIRECTIONAL).getCost());
+        assertEquals(2, graph.shortestPath(0, 2, SearchStrategy.A_STAR).getCost());
+        assertEquals(List.of(1, 2), graph.nodesWithinRangeOf(0, 10));
+    }
+
+    @Test
+    public void testSnapshotAndHierarchyReportQueries() {
+        Graph<Integer> graph = new Graph<>();
+        List<QueryStats<Integer>> reported = new ArrayList<>();
+
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, 1);
+        graph.addEdge(0, 2, 5);
+        graph.addNode(3);
+
+        CsrGraph<Integer> snapshot = graph.freeze();
+        ContractionHierarchy<Integer> hierarchy = ContractionHierarchy.build(snapshot);
+
+        snapshot.setMetrics(reported::add);
+        hierarchy.setMetrics(reported::add);
+
+        snapshot.shortestPath(0, 2, false);
+        snapshot.nodesWithinRangeOf(0, 10);
+        snapshot.nearestNodes(0, 1, node -> true);
+        hierarchy.distance(0, 2);
+        hierarchy.shortestPath(0, 3);
+
+        assertEquals(5, reported.size());
+        assertEquals(QueryType.SHORTEST_PATH, reported.get(0).getType());
+        assertEquals(3, reported.get(0).getSettledNodes());
+        assertEquals(4, reported.get(0).getRelaxedEdges());
+        assertEquals(QueryType.NODES_WITHIN_RANGE, reported.get(1).getType());
+        assertEquals(3, reported.get(1).getSettledNodes());
+        assertEquals(QueryType.NEAREST_NODES, reported.get(2).getType());
+
+        for (QueryStats<Integer> stats : reported.subList(3, 5)) {
+            assertEquals(QueryType.SHORTEST_PATH, stats.getType());
+            assertEquals(SearchStrategy.BIDIRECTIONAL, stats.getStrategy());
+            assertTrue(stats.getSettledNodes() >= 2);
+            assertTrue(stats.getHeapOperations() >= stats.getSettledNodes());
+        }
+
+        // Only the snapshot reports, not the graph it was taken from
+        graph.shortestPath(0, 2, false);
+        snapshot.setMetrics(null);
+        hierarchy.setMetrics(null);
+        snapshot.shortestPath(0, 2, false);
+        hierarchy.distance(0, 2);
+
+        assertEquals(5, reported.size());
+    }
+
+    @Test
+    public void testShardedRouterReportsQueries() {
+        Graph<Integer> graph = new Graph<>();
+        List<QueryStats<Integer>> reported = new ArrayList<>();
+
+        for (int node = 0; node < 20; node++) {
+            graph.addEdge(node, node + 1, 1);
+        }
+
+        Partition<Integer> partition = new GraphPartitioner().partition(graph.freeze(), 2);
+        ShardedRouter<Integer> router = new ShardedRouter<>(
+                new LocalShardTransport<>(partition.shards(ForkJoinPool.commonPool())), partition::partOf);
+
+        router.setMetrics(reported::add);
+
+        assertEquals(20, router.shortestPath(0, 20).getCost());
+        assertEquals(1, reported.size());
+        assertEquals(Integer.valueOf(20), reported.get(0).getDest());
+        assertTrue(reported.get(0).getSettledNodes() > 0);
+        assertTrue(reported.get(0).getLatencyNanos() > 0);
+    }
+
+    @Test
+    public void testRegisterMBean() throws JMException {
+        QueryMetrics<Integer> metrics = new QueryMetrics<>();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = metrics.register("test");
+
+        try {
+            metrics.onQuery(new QueryStats<>(QueryType.FULL_SEARCH, SearchStrategy.DIJKSTRA, 1, 1));
+
+            assertEquals(1L, server.getAttribute(name, "QueryCount"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+}
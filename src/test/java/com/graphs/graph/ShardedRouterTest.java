@@ -0,0 +1,150 @@
+package com.graphs.graph;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ShardedRouterTest {
+    @Test
+    public void testPartition_GridIsBalancedWithFewCutEdges() {
+        int side = 40;
+        Graph<Integer> graph = new Graph<>();
+
+        for (int row = 0; row < side; row++) {
+            for (int column = 0; column < side; column++) {
+                int id = row * side + column;
+
+                if (column + 1 < side) {
+                    graph.addEdge(id, id + 1, 1);
+                }
+
+                if (row + 1 < side) {
+                    graph.addEdge(id, id + side, 1);
+                }
+            }
+        }
+
+        CsrGraph<Integer> frozen = graph.freeze();
+        Partition<Integer> initial = new GraphPartitioner().setMaxRounds(0).partition(frozen, 4);
+        Partition<Integer> refined = new GraphPartitioner().partition(frozen, 4);
+
+        assertEquals(4, refined.getPartCount());
+        assertEquals(side * side, Arrays.stream(refined.getPartSizes()).sum());
+
+        for (int partSize : refined.getPartSizes()) {
+            assertTrue(partSize > 0 && partSize <= Math.ceil(side * side / 4.0 * 1.05));
+        }
+
+        assertTrue(refined.getCutEdgeCount() <= initial.getCutEdgeCount());
+        // Straight cuts of the grid into four need 2 * side edges; a far worse split would cut hundreds
+        assertTrue(refined.getCutEdgeCount() < 4 * side);
+    }
+
+    @Test
+    public void testShortestPath_MatchesGraphOnRandomGraphs() {
+        Random random = new Random(21);
+
+        for (int i = 0; i < 20; i++) {
+            Graph<Integer> graph = new Graph<>();
+            int size = 2 + random.nextInt(200);
+
+            for (int edge = 0; edge < size * 2; edge++) {
+                int from = random.nextInt(size);
+                int to = random.nextInt(size);
+
+                if (from != to) {
+                    graph.addEdge(from, to, 1 + random.nextInt(50));
+                }
+            }
+
+            if (graph.isEmpty()) {
+                continue;
+            }
+
+            Partition<Integer> partition = new GraphPartitioner().partition(graph.freeze(), 1 + random.nextInt(6));
+            LocalShardTransport<Integer> transport =
+                    new LocalShardTransport<>(partition.shards(ForkJoinPool.commonPool()));
+            ShardedRouter<Integer> router = new ShardedRouter<>(transport, partition::partOf);
+            List<Integer> nodes = new ArrayList<>(graph.getNodes());
+
+            for (int query = 0; query < 20; query++) {
+                Integer source = nodes.get(random.nextInt(nodes.size()));
+                Integer dest = nodes.get(random.nextInt(nodes.size()));
+                ShortestPath<Integer> expected = graph.shortestPath(source, dest, false);
+                ShortestPath<Integer> actual = router.shortestPath(source, dest);
+
+                assertEquals(expected.getCost(), actual.getCost());
+                assertRoute(graph, actual, source, dest);
+            }
+        }
+    }
+
+    @Test
+    public void testShortestPath_AsksOnlyShardsAlongTheRoute() {
+        Graph<Integer> graph = new Graph<>();
+
+        // Three cliques in a row, joined by single edges
+        for (int clique = 0; clique < 3; clique++) {
+            for (int a = 0; a < 5; a++) {
+                for (int b = a + 1; b < 5; b++) {
+                    graph.addEdge(clique * 5 + a, clique * 5 + b, 1);
+                }
+            }
+        }
+
+        graph.addEdge(4, 5, 10);
+        graph.addEdge(9, 10, 10);
+
+        Partition<Integer> partition = new GraphPartitioner().partition(graph.freeze(), 3);
+        assertEquals(2, partition.getCutEdgeCount());
+
+        LocalShardTransport<Integer> transport = new LocalShardTransport<>(partition.shards(ForkJoinPool.commonPool()));
+        ShardedRouter<Integer> router = new ShardedRouter<>(transport, partition::partOf);
+        long[] before = requestCounts(transport);
+
+        ShortestPath<Integer> path = router.shortestPath(0, 6);
+
+        assertEquals(12, path.getCost());
+        assertEquals(List.of(0, 4, 5, 6), new ArrayList<>(path.getNodes()));
+        assertEquals(before[partition.partOf(10)], requestCounts(transport)[partition.partOf(10)]);
+    }
+
+    private static long[] requestCounts(LocalShardTransport<Integer> transport) {
+        long[] counts = new long[transport.getShardCount()];
+
+        for (int shard = 0; shard < counts.length; shard++) {
+            counts[shard] = transport.getRequestCount(shard);
+        }
+
+        return counts;
+    }
+
+    /**
+     * Checks that the route leads along edges of the graph whose weights add up to its lowest costs.
+     */
+    private static void assertRoute(Graph<Integer> graph, ShortestPath<Integer> path, Integer source, Integer dest) {
+        List<Integer> route = new ArrayList<>(path.getNodes());
+
+        if (path.getCost() == DistanceMatrix.UNREACHABLE) {
+            assertTrue(route.isEmpty());
+            return;
+        }
+
+        assertEquals(source, route.get(0));
+        assertEquals(dest, route.get(route.size() - 1));
+        assertEquals(0, (int) path.getLowestCosts().get(source));
+        assertEquals(path.getCost(), (int) path.getLowestCosts().get(dest));
+
+        for (int i = 1; i < route.size(); i++) {
+            Integer previous = route.get(i - 1);
+            Integer next = route.get(i);
+
+            assertTrue(graph.getNeighboringNodes(previous).contains(next));
+            assertEquals(path.getLowestCosts().get(next) - path.getLowestCosts().get(previous),
+                    graph.shortestPath(previous, next, false).getCost());
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.graphs.graph;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ShortestPathCacheTest {
+    Graph<Integer> graph = new Graph<>();
+    long now;
+    ShortestPathCache<Integer> cache;
+
+    @Before
+    public void init() {
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(0, 2, 2);
+        graph.addEdge(1, 2, 3);
+        graph.addEdge(2, 3, 50);
+
+        now = 0;
+        cache = new ShortestPathCache<>(2, Duration.ofNanos(100), () -> now);
+        graph.setCache(cache);
+    }
+
+    @Test
+    public void testRepeatedQuery_IsAHit() {
+        assertEquals(52, graph.shortestPath(0, 3, false).getCost());
+        assertEquals(52, graph.shortestPath(0, 3, false).getCost());
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(List.of(0, 2, 3), new ArrayList<>(graph.shortestPath(0, 3, false).getNodes()));
+    }
+
+    @Test
+    public void testFullSearch_AnswersRoutesFromSameSource() {
+        graph.shortestPath(0, 0, true);
+
+        assertEquals(3, graph.shortestPath(0, 1, false).getCost() + graph.shortestPath(0, 2, false).getCost());
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    public void testAddEdge_Invalidates() {
+        assertEquals(52, graph.shortestPath(0, 3, false).getCost());
+
+        graph.addEdge(1, 3, 5);
+
+        assertEquals(0, cache.size());
+        assertEquals(6, graph.shortestPath(0, 3, false).getCost());
+    }
+
+    @Test
+    public void testAddNode_Invalidates() {
+        graph.shortestPath(0, 3, false);
+
+        graph.addNode(3);
+        assertEquals(1, cache.size());
+
+        graph.addNode(4);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testClear_Invalidates() {
+        graph.shortestPath(0, 3, false);
+
+        graph.clear();
+
+        assertEquals(Integer.MAX_VALUE, graph.shortestPath(0, 3, false).getCost());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        graph.shortestPath(0, 1, false);
+        graph.shortestPath(0, 2, false);
+        graph.shortestPath(0, 1, false);
+        graph.shortestPath(0, 3, false);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+
+        graph.shortestPath(0, 1, false);
+
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    public void testExpiresEntries() {
+        graph.shortestPath(0, 1, false);
+
+        now = 100;
+        graph.shortestPath(0, 1, false);
+
+        assertEquals(0, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+}
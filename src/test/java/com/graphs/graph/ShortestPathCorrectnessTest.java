@@ -0,0 +1,209 @@
+package com.graphs.graph;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares the shortest path searches of {@link Graph} against the original linear scan
+ * implementation on random connected graphs.
+ */
+public class ShortestPathCorrectnessTest {
+    private static final int GRAPHS = 50;
+
+    @Test
+    public void testShortestPath_MatchesLinearScan() {
+        Random random = new Random(42);
+
+        for (int i = 0; i < GRAPHS; i++) {
+            Graph<Integer> graph = new Graph<>();
+            Map<Integer, Map<Integer, Integer>> adjacency = randomConnectedGraph(random, graph);
+
+            int source = random.nextInt(adjacency.size());
+            int dest = random.nextInt(adjacency.size());
+
+            Map<Integer, Integer> expected = linearScanShortestPath(adjacency, source);
+
+            assertEquals(expected.get(dest).intValue(), graph.shortestPath(source, dest, false).getCost());
+        }
+    }
+
+    @Test
+    public void testFullSearch_MatchesLinearScan() {
+        Random random = new Random(7);
+
+        for (int i = 0; i < GRAPHS; i++) {
+            Graph<Integer> graph = new Graph<>();
+            Map<Integer, Map<Integer, Integer>> adjacency = randomConnectedGraph(random, graph);
+
+            int source = random.nextInt(adjacency.size());
+
+            Map<Integer, Integer> expected = linearScanShortestPath(adjacency, source);
+
+            assertEquals(expected, graph.shortestPath(source, source, true).getLowestCosts());
+        }
+    }
+
+    @Test
+    public void testBidirectional_MatchesLinearScan() {
+        Random random = new Random(13);
+
+        for (int i = 0; i < GRAPHS; i++) {
+            Graph<Integer> graph = new Graph<>();
+            Map<Integer, Map<Integer, Integer>> adjacency = randomConnectedGraph(random, graph);
+
+            int source = random.nextInt(adjacency.size());
+            int dest = random.nextInt(adjacency.size());
+
+            Map<Integer, Integer> expected = linearScanShortestPath(adjacency, source);
+            ShortestPath<Integer> actual = graph.shortestPath(source, dest, SearchStrategy.BIDIRECTIONAL);
+
+            assertEquals(expected.get(dest).intValue(), actual.getCost());
+            assertEquals(actual.getCost(), routeLength(adjacency, new ArrayList<>(actual.getNodes()), source, dest));
+        }
+    }
+
+    @Test
+    public void testAStar_MatchesLinearScan() {
+        Random random = new Random(17);
+
+        for (int i = 0; i < GRAPHS; i++) {
+            int size = 2 + random.nextInt(200);
+            double[] x = random.doubles(size, 0, 1000).toArray();
+            double[] y = random.doubles(size, 0, 1000).toArray();
+            Graph<Integer> graph = new Graph<>();
+            Map<Integer, Map<Integer, Integer>> adjacency = new HashMap<>();
+
+            // Roads are at least as long as the straight line between their ends
+            for (int node = 1; node < size; node++) {
+                for (int link = 0; link < 3; link++) {
+                    int other = random.nextInt(node);
+                    int length = (int) Math.ceil(Math.hypot(x[node] - x[other], y[node] - y[other]));
+
+                    addEdge(graph, adjacency, node, other, 1 + length + random.nextInt(50));
+                }
+            }
+
+            graph.setHeuristic((node, dest) -> (int) Math.hypot(x[node] - x[dest], y[node] - y[dest]));
+
+            int source = random.nextInt(size);
+            int dest = random.nextInt(size);
+
+            Map<Integer, Integer> expected = linearScanShortestPath(adjacency, source);
+            ShortestPath<Integer> actual = graph.shortestPath(source, dest, SearchStrategy.A_STAR);
+
+            assertEquals(expected.get(dest).intValue(), actual.getCost());
+            assertEquals(actual.getCost(), routeLength(adjacency, new ArrayList<>(actual.getNodes()), source, dest));
+        }
+    }
+
+    @Test
+    public void testBidirectional_UnreachableDestination() {
+        Graph<Integer> graph = new Graph<>();
+        graph.addEdge(0, 1, 3);
+        graph.addEdge(2, 3, 4);
+
+        ShortestPath<Integer> shortestPath = graph.shortestPath(0, 3, SearchStrategy.BIDIRECTIONAL);
+
+        assertEquals(Integer.MAX_VALUE, shortestPath.getCost());
+        assertTrue(shortestPath.getNodes().isEmpty());
+    }
+
+    @Test
+    public void testShortestPath_UnreachableDestination() {
+        Graph<Integer> graph = new Graph<>();
+        graph.addEdge(0, 1, 3);
+        graph.addEdge(2, 3, 4);
+
+        ShortestPath<Integer> shortestPath = graph.shortestPath(0, 3, false);
+
+        assertEquals(Integer.MAX_VALUE, shortestPath.getCost());
+        assertFalse(shortestPath.getLowestCosts().containsKey(3));
+    }
+
+    /**
+     * Builds a random spanning tree over the nodes and then adds random extra edges, so every
+     * node is reachable from every other node.
+     */
+    private static Map<Integer, Map<Integer, Integer>> randomConnectedGraph(Random random, Graph<Integer> graph) {
+        int size = 2 + random.nextInt(200);
+        int extraEdges = random.nextInt(size * 3);
+        Map<Integer, Map<Integer, Integer>> adjacency = new HashMap<>();
+
+        for (int node = 1; node < size; node++) {
+            addEdge(graph, adjacency, node, random.nextInt(node), 1 + random.nextInt(100));
+        }
+
+        for (int i = 0; i < extraEdges; i++) {
+            int from = random.nextInt(size);
+            int to = random.nextInt(size);
+
+            if (from != to) {
+                addEdge(graph, adjacency, from, to, 1 + random.nextInt(100));
+            }
+        }
+
+        return adjacency;
+    }
+
+    /**
+     * @return total weight of the route, after checking it leads from source to dest over existing edges
+     */
+    private static int routeLength(Map<Integer, Map<Integer, Integer>> adjacency, List<Integer> route,
+                                   int source, int dest) {
+        assertEquals(source, route.get(0).intValue());
+        assertEquals(dest, route.get(route.size() - 1).intValue());
+
+        int length = 0;
+
+        for (int i = 1; i < route.size(); i++) {
+            Integer weight = adjacency.get(route.get(i - 1)).get(route.get(i));
+
+            assertNotNull(weight);
+            length += weight;
+        }
+
+        return length;
+    }
+
+    private static void addEdge(Graph<Integer> graph, Map<Integer, Map<Integer, Integer>> adjacency,
+                                int from, int to, int weight) {
+        graph.addEdge(from, to, weight);
+        adjacency.computeIfAbsent(from, __ -> new HashMap<>()).put(to, weight);
+        adjacency.computeIfAbsent(to, __ -> new HashMap<>()).put(from, weight);
+    }
+
+    /**
+     * The original O(V^2) Dijkstra which picks the next node by scanning all distances.
+     */
+    private static Map<Integer, Integer> linearScanShortestPath(Map<Integer, Map<Integer, Integer>> adjacency, int source) {
+        Set<Integer> visited = new HashSet<>();
+        Map<Integer, Integer> distance = new HashMap<>();
+        adjacency.keySet().forEach(node -> distance.put(node, Integer.MAX_VALUE));
+        distance.put(source, 0);
+
+        while (visited.size() != adjacency.size()) {
+            Integer current = distance.entrySet().stream()
+                    .filter(e -> !visited.contains(e.getKey()))
+                    .min(Comparator.comparingInt(Map.Entry::getValue))
+                    .map(Map.Entry::getKey)
+                    .orElseThrow();
+
+            adjacency.get(current).forEach((child, dist) -> {
+                if (!visited.contains(child)) {
+                    int alternate = distance.get(current) + dist;
+
+                    if (alternate < distance.get(child)) {
+                        distance.put(child, alternate);
+                    }
+                }
+            });
+
+            visited.add(current);
+        }
+
+        return distance;
+    }
+}
@@ -0,0 +1,157 @@
+package com.graphs.graph;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ShortestPathTreeTest {
+
+    @Test
+    public void testTracksRandomChanges() {
+        Random random = new Random(17);
+        Graph<Integer> graph = new Graph<>();
+        List<int[]> edges = new ArrayList<>();
+
+        for (int i = 0; i < 150; i++) {
+            int from = random.nextInt(60);
+            int to = random.nextInt(60);
+
+            if (from != to) {
+                graph.addEdge(from, to, 1 + random.nextInt(20));
+                edges.add(new int[] {from, to});
+            }
+        }
+
+        ShortestPathTree<Integer> tree = graph.trackShortestPaths(0);
+
+        for (int step = 0; step < 500; step++) {
+            int[] edge = edges.get(random.nextInt(edges.size()));
+
+            switch (random.nextInt(3)) {
+                case 0:
+                    graph.removeEdge(edge[0], edge[1]);
+                    break;
+                case 1:
+                    if (graph.getNeighboringNodes(edge[0]).contains(edge[1])) {
+                        graph.updateWeight(edge[0], edge[1], 1 + random.nextInt(20));
+                    }
+                    break;
+                default:
+                    graph.addEdge(edge[0], edge[1], 1 + random.nextInt(20));
+            }
+
+            assertMatchesFullSearch(graph, tree);
+        }
+    }
+
+    @Test
+    public void testRepairsOnlyAffectedSubtree() {
+        Graph<Integer> graph = new Graph<>();
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, 1);
+        graph.addEdge(2, 3, 1);
+        graph.addEdge(0, 4, 1);
+        graph.addEdge(4, 5, 1);
+        graph.addEdge(5, 3, 5);
+
+        ShortestPathTree<Integer> tree = graph.trackShortestPaths(0);
+
+        graph.removeEdge(1, 2);
+
+        assertEquals(2, tree.getLastRepairSize());
+        assertEquals(7, tree.getDistance(3));
+        assertEquals(8, tree.getDistance(2));
+
+        graph.updateWeight(4, 5, 3);
+
+        assertEquals(3, tree.getLastRepairSize());
+        assertEquals(9, tree.getDistance(3));
+
+        // Lengthening an edge outside the tree changes nothing
+        graph.addEdge(1, 3, 20);
+        graph.updateWeight(1, 3, 30);
+
+        assertEquals(0, tree.getLastRepairSize());
+
+        graph.stopTracking(tree);
+        graph.removeEdge(0, 4);
+
+        assertEquals(9, tree.getDistance(3));
+    }
+
+    @Test
+    public void testConcurrentUpdatesMatchRecompute() throws Exception {
+        ConcurrentGraph<Integer> graph = new ConcurrentGraph<>();
+
+        for (int node = 1; node < 60; node++) {
+            graph.addEdge(node - 1, node, 10);
+        }
+
+        ShortestPathTree<Integer> tree = graph.trackShortestPaths(0);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int writer = 0; writer < 4; writer++) {
+            Random random = new Random(writer);
+
+            futures.add(executor.submit(() -> {
+                for (int step = 0; step < 2000; step++) {
+                    int from = random.nextInt(60);
+                    int to = random.nextInt(60);
+
+                    if (from == to) {
+                        continue;
+                    }
+
+                    if (random.nextInt(3) == 0) {
+                        graph.removeEdge(from, to);
+                    } else {
+                        graph.addEdge(from, to, 1 + random.nextInt(20));
+                    }
+                }
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+
+        executor.shutdown();
+
+        Map<Integer, Integer> repaired = tree.shortestPathTo(0).getLowestCosts();
+        tree.recompute();
+
+        assertEquals(tree.shortestPathTo(0).getLowestCosts(), repaired);
+        assertMatchesFullSearch(graph, tree);
+    }
+
+    private void assertMatchesFullSearch(Graph<Integer> graph, ShortestPathTree<Integer> tree) {
+        Map<Integer, Integer> expected = graph.shortestPath(0, 0, true).getLowestCosts();
+
+        for (int node = 0; node < 60; node++) {
+            int cost = tree.getDistance(node);
+
+            assertEquals(expected.getOrDefault(node, Integer.MAX_VALUE).intValue(), cost);
+
+            if (cost != Integer.MAX_VALUE) {
+                List<Integer> route = new ArrayList<>(tree.shortestPathTo(node).getNodes());
+
+                assertEquals(0, route.get(0).intValue());
+                assertEquals(node, route.get(route.size() - 1).intValue());
+
+                for (int i = 1; i < route.size(); i++) {
+                    assertTrue(graph.getNeighboringNodes(route.get(i - 1)).contains(route.get(i)));
+                }
+            }
+        }
+    }
+}
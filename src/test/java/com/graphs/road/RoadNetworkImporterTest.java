@@ -0,0 +1,162 @@
+package com.graphs.road;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class RoadNetworkImporterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    TownRoadNetwork townRoadNetwork;
+
+    @Before
+    public void init() {
+        townRoadNetwork = new TownRoadNetwork();
+    }
+
+    @Test
+    public void testImport() throws IOException {
+        Path townFile = write("towns.csv", "# name,population[,x,y]\n"
+                + "First Town,10000,0,0\n"
+                + "Second Town,14000,30,40\r\n"
+                + "\n"
+                + "Third Town, 5000\n"
+                + "Fourth Town,6000");
+        Path roadFile = write("roads.csv", "First Town,Second Town,100\n"
+                + "Second Town,Third Town,50\n"
+                + "First Town,Third Town,200\n"
+                + "Third Town,Fourth Town,7\n"
+                + "Fourth Town,First Town,300\n");
+        List<ImportProgress> reports = new ArrayList<>();
+        RoadNetworkImporter importer = new RoadNetworkImporter(townRoadNetwork)
+                .setBatchSize(2)
+                .setListener(reports::add);
+
+        ImportProgress towns = importer.importTowns(townFile);
+        ImportProgress roads = importer.importRoads(roadFile);
+
+        assertEquals(4, towns.getRecords());
+        assertEquals(5, roads.getRecords());
+        assertEquals(Files.size(roadFile), roads.getBytesRead());
+        assertEquals(1.0, roads.getFraction(), 0);
+        // The last town line has no line break, so it is only added at the end of the file
+        assertEquals(List.of(2L, 4L, 2L, 4L, 5L),
+                reports.stream().map(ImportProgress::getRecords).collect(Collectors.toList()));
+
+        Map<String, Town> byName = townRoadNetwork.getTowns().stream()
+                .collect(Collectors.toMap(Town::getName, town -> town));
+
+        assertEquals(4, byName.size());
+        assertEquals(5000, byName.get("Third Town").getPopulation());
+        assertTrue(byName.get("Second Town").hasCoordinates());
+        assertTrue(townRoadNetwork.areAllTownsConnected());
+        assertEquals(157, townRoadNetwork.roadTo(byName.get("First Town"), byName.get("Fourth Town")).getDistance());
+    }
+
+    @Test
+    public void testImport_ReportsBadLine() throws IOException {
+        Path townFile = write("towns.csv", "First Town,10000\nSecond Town,14000\n");
+        Path roadFile = write("roads.csv", "First Town,Second Town,100\nFirst Town,Nowhere,5\n");
+        RoadNetworkImporter importer = new RoadNetworkImporter(townRoadNetwork);
+
+        importer.importTowns(townFile);
+
+        try {
+            importer.importRoads(roadFile);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().endsWith("roads.csv:2: unknown town Nowhere"));
+        }
+    }
+
+    @Test
+    public void testImport_KeepsEarlierBatchesOfABadFile() throws IOException {
+        Path townFile = write("towns.csv", "First Town,10000\nSecond Town,14000\nThird Town,5000\n"
+                + "Fourth Town,many\n");
+        Path roadFile = write("roads.csv", "First Town,Second Town,100\nFirst Town,Third Town,5\n");
+        RoadNetworkImporter importer = new RoadNetworkImporter(townRoadNetwork).setBatchSize(2);
+
+        try {
+            importer.importTowns(townFile);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().endsWith("towns.csv:4: For input string: \"many\""));
+        }
+
+        // The first batch was added, the towns of the second one are unregistered again
+        TownRegistry registry = townRoadNetwork.getRegistry();
+
+        assertEquals(2, registry.getSize());
+        assertEquals(TownRegistry.NO_TOWN, registry.idOf("Third Town"));
+        assertEquals(Set.of("First Town", "Second Town"),
+                townRoadNetwork.getTowns().stream().map(Town::getName).collect(Collectors.toSet()));
+        assertEquals(2, townRoadNetwork.getPopulationStats().getCount());
+        assertEquals(24000, townRoadNetwork.getPopulationStats().getTotal());
+
+        try {
+            importer.setBatchSize(1).importRoads(roadFile);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().endsWith("roads.csv:2: unknown town Third Town"));
+        }
+
+        assertTrue(townRoadNetwork.areAllTownsConnected());
+    }
+
+    @Test
+    public void testImport_KeepsTownsAddedMeanwhile() throws Exception {
+        Path townFile = write("towns.csv", "First Town,10000\nSecond Town,14000\nThird Town,5000\n"
+                + "Fourth Town,many\n");
+        Town added = new Town("Added Town", 700);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        // Another thread adds a town after the first batch, while the second one is being read
+        RoadNetworkImporter importer = new RoadNetworkImporter(townRoadNetwork)
+                .setBatchSize(2)
+                .setListener(progress -> {
+                    try {
+                        executor.submit(() -> townRoadNetwork.addTown(added)).get();
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+
+        try {
+            importer.importTowns(townFile);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().endsWith("towns.csv:4: For input string: \"many\""));
+        }
+
+        executor.shutdown();
+
+        TownRegistry registry = townRoadNetwork.getRegistry();
+
+        assertEquals(2, registry.idOf(added));
+        assertEquals(TownRegistry.NO_TOWN, registry.idOf("Third Town"));
+        assertEquals(Set.of("First Town", "Second Town", "Added Town"),
+                townRoadNetwork.getTowns().stream().map(Town::getName).collect(Collectors.toSet()));
+        assertEquals(3, townRoadNetwork.getPopulationStats().getCount());
+        assertEquals(24700, townRoadNetwork.getPopulationStats().getTotal());
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path file = folder.newFile(name).toPath();
+        Files.writeString(file, content);
+        return file;
+    }
+}
@@ -0,0 +1,189 @@
+package com.graphs.road;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TownRegistryTest {
+    TownRegistry registry;
+
+    @Before
+    public void init() {
+        registry = new TownRegistry();
+    }
+
+    @Test
+    public void testRegister_GrowsColumns() {
+        List<Town> towns = new ArrayList<>();
+
+        for (int i = 0; i < 1000; i++) {
+            towns.add(i % 3 == 0
+                    ? new Town("Town \u00e9 " + i + " with a rather long name to fill the name bytes", i)
+                    : new Town("Town " + i, i, i, -i));
+            assertEquals(i, registry.register(towns.get(i)));
+        }
+
+        assertEquals(1000, registry.getSize());
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, registry.idOf(towns.get(i).getName()));
+            assertEquals(i, registry.idOf(towns.get(i)));
+            assertSame(towns.get(i), registry.town(i));
+            assertEquals(i, registry.register(towns.get(i)));
+        }
+
+        assertEquals(1000, registry.getSize());
+        assertEquals(List.of(5, 6, 7), registry.keys().subList(5, 8));
+        assertEquals(TownRegistry.NO_TOWN, registry.idOf(new Town("Town 1", 2, 1, -1)));
+    }
+
+    @Test
+    public void testRegister_KeepsTownsOfTheSameName() {
+        Town first = new Town("Springfield", 10000);
+        Town second = new Town("Springfield", 10000);
+
+        assertEquals(0, registry.register(first));
+        assertEquals(1, registry.register(second));
+        assertEquals(2, registry.register("Springfield", 500, 1, 2));
+        assertEquals(0, registry.register(first));
+
+        assertArrayEquals(new int[] {0, 1, 2}, registry.idsOf("Springfield"));
+        assertSame(second, registry.town(1));
+
+        // A town registered from its data is created once and then stands for its id
+        Town third = registry.town(2);
+
+        assertSame(third, registry.town(2));
+        assertEquals(2, registry.idOf(third));
+        assertEquals(500, third.getPopulation());
+
+        registry.unregister(2);
+
+        assertEquals(TownRegistry.NO_TOWN, registry.idOf(third));
+        assertArrayEquals(new int[] {0, 1}, registry.idsOf("Springfield"));
+    }
+
+    @Test
+    public void testStraightLineDistance_MatchesTowns() {
+        Town first = new Town("First Town", 10000, 0, 0);
+        Town second = new Town("Second Town", 14000, 30, 40);
+        Town third = new Town("Third Town", 5000);
+
+        registry.register(first);
+        registry.register(second);
+        registry.register(third);
+
+        assertEquals(first.straightLineDistanceTo(second), registry.straightLineDistance(0, 1));
+        assertEquals(50, registry.straightLineDistance(1, 0));
+        assertEquals(0, registry.straightLineDistance(0, 2));
+    }
+
+    @Test
+    public void testCopy_RegistersOnItsOwn() {
+        registry.register(new Town("First Town", 10000));
+
+        TownRegistry copy = registry.copy();
+        copy.register(new Town("Second Town", 14000));
+
+        assertEquals(1, registry.getSize());
+        assertEquals(2, copy.getSize());
+        assertEquals("First Town", copy.getName(0));
+        assertEquals(TownRegistry.NO_TOWN, registry.idOf("Second Town"));
+    }
+
+    @Test
+    public void testRegister_TownInSeveralRegistries() {
+        TownRegistry other = new TownRegistry();
+        Town town = new Town("Springfield", 10000);
+
+        other.register(new Town("Shelbyville", 8000));
+
+        assertEquals(0, registry.register(town));
+        assertEquals(1, other.register(town));
+        assertEquals(0, registry.idOf(town));
+        assertEquals(1, other.idOf(town));
+
+        other.unregister(1);
+
+        assertEquals(TownRegistry.NO_TOWN, other.idOf(town));
+        assertEquals(0, registry.idOf(town));
+
+        registry.unregister(0);
+        registry.register(new Town("Capital City", 900000));
+
+        assertEquals(TownRegistry.NO_TOWN, registry.idOf(town));
+        assertEquals(1, registry.register(town));
+        assertEquals(1, registry.idOf(town));
+        assertEquals(0, registry.copy().idOf(registry.town(0)));
+    }
+
+    @Test
+    public void testUnregister_KeepsTownsRegisteredInBetween() {
+        Town first = new Town("Springfield", 10000);
+        Town second = new Town("Shelbyville", 8000);
+
+        registry.register(first);
+        registry.register("Ogdenville", 500, 1, 2);
+        registry.register(second);
+        registry.register("North Haverbrook", 700, 3, 4);
+
+        registry.unregister(1, 3);
+
+        assertEquals(3, registry.getSize());
+        assertEquals(TownRegistry.NO_TOWN, registry.idOf("Ogdenville"));
+        assertEquals(TownRegistry.NO_TOWN, registry.idOf("North Haverbrook"));
+        assertEquals(2, registry.idOf(second));
+        assertEquals("Shelbyville", registry.getName(2));
+        assertEquals(3, registry.register(new Town("Brockway", 300)));
+
+        try {
+            registry.town(1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Town 1 is not registered.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testTown_CreatedOnceByConcurrentThreads() throws Exception {
+        for (int i = 0; i < 5000; i++) {
+            registry.register("Town " + i, i, i, i);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<List<Town>>> futures = new ArrayList<>();
+
+        for (int thread = 0; thread < 4; thread++) {
+            futures.add(executor.submit(() -> registry.towns(registry.keys())));
+        }
+
+        List<Town> expected = futures.get(0).get(30, TimeUnit.SECONDS);
+
+        for (Future<List<Town>> future : futures) {
+            List<Town> towns = future.get(30, TimeUnit.SECONDS);
+
+            for (int id = 0; id < towns.size(); id++) {
+                assertSame(expected.get(id), towns.get(id));
+                assertEquals(id, registry.idOf(towns.get(id)));
+            }
+        }
+
+        executor.shutdown();
+        assertEquals("Town 4999", registry.town(4999).getName());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTown_RejectsUnknownId() {
+        registry.register(new Town("First Town", 10000));
+
+        registry.town(1);
+    }
+}
@@ -1,20 +1,43 @@
 package com.graphs.road;
 
+import com.graphs.graph.QueryStats;
+import com.graphs.graph.SearchStrategy;
+import com.graphs.graph.ShortestPathCache;
 import com.graphs.road.FullRoad;
 import com.graphs.road.Road;
+import com.graphs.road.ShardedRoadNetwork;
 import com.graphs.road.Town;
 import com.graphs.road.TownRoadNetwork;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
-
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 
 public class TownRoadNetworkTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     TownRoadNetwork townRoadNetwork;
 
     @Before
@@ -70,6 +93,10 @@ public class TownRoadNetworkTest {
         townRoadNetwork.addConnection(road3);
 
         assertFalse(townRoadNetwork.areAllTownsConnected());
+        assertTrue(townRoadNetwork.areConnected(firstTown, thirdTown));
+        assertFalse(townRoadNetwork.areConnected(thirdTown, fourthTown));
+        assertEquals(List.of(Set.of(firstTown, secondTown, thirdTown), Set.of(fourthTown, fifthTown)),
+                townRoadNetwork.getRegions());
     }
 
     @Test
@@ -105,6 +132,150 @@ public class TownRoadNetworkTest {
         assertEquals(expectedAvg, avgPopulation);
     }
 
+    @Test
+    public void testGetNearestTowns() {
+        Town first = new Town("First Town", 10000);
+        Town second = new Town("Second Town", 14000);
+        Town third = new Town("Third Town", 5000);
+        Town fourth = new Town("Fourth Town", 60000);
+
+        townRoadNetwork.addConnection(new Road(first, second, 100));
+        townRoadNetwork.addConnection(new Road(second, third, 50));
+        townRoadNetwork.addConnection(new Road(third, fourth, 500));
+
+        assertEquals(List.of(second, third), new ArrayList<>(townRoadNetwork.getNearestTowns(first, 2).keySet()));
+        assertEquals(Map.of(fourth, 650),
+                townRoadNetwork.getNearestTowns(first, 1, town -> town.getPopulation() > 20000));
+        assertEquals(Map.of(), townRoadNetwork.getNearestTowns(first, 1, town -> town.getPopulation() > 100000));
+    }
+
+    @Test
+    public void testTownsAreRegisteredByInstance() {
+        Town first = new Town("First Town", 10000, 0, 0);
+        Town second = new Town("Second Town", 14000, 30, 40);
+        Town namesake = new Town("First Town", 10000, 0, 0);
+        Town third = new Town("Third Town", 5000);
+
+        townRoadNetwork.addConnection(new Road(first, second, 100));
+        // A town of the same name is a town of its own
+        townRoadNetwork.addConnection(new Road(namesake, third, 20));
+        townRoadNetwork.addTown(first);
+
+        TownRegistry registry = townRoadNetwork.getRegistry();
+
+        assertEquals(4, registry.getSize());
+        assertEquals(4, townRoadNetwork.getPopulationStats().getCount());
+        assertEquals(0, registry.idOf("First Town"));
+        assertArrayEquals(new int[] {0, 2}, registry.idsOf("First Town"));
+        assertEquals(TownRegistry.NO_TOWN, registry.idOf("Fourth Town"));
+        assertSame(namesake, registry.town(2));
+        assertEquals(Set.of(first, second, namesake, third), townRoadNetwork.getTowns());
+        assertFalse(townRoadNetwork.areConnected(second, third));
+        assertEquals(List.of(namesake, third), new ArrayList<>(townRoadNetwork.roadTo(namesake, third).getTowns()));
+
+        try {
+            townRoadNetwork.roadTo(first, new Town("Second Town", 14000, 30, 40));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Town Second Town is not part of the network.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testShardedRoadTo_MatchesWholeNetwork() {
+        List<Town> towns = new ArrayList<>();
+
+        for (int i = 0; i < 60; i++) {
+            towns.add(new Town("Town " + i, 1000 + i));
+        }
+
+        for (int i = 0; i < 60; i++) {
+            townRoadNetwork.addConnection(new Road(towns.get(i), towns.get((i + 1) % 60), 10 + i % 7));
+            townRoadNetwork.addConnection(new Road(towns.get(i), towns.get((i * 7 + 3) % 60 == i ? (i + 2) % 60
+                    : (i * 7 + 3) % 60), 40 + i % 11));
+        }
+
+        ShardedRoadNetwork sharded = ShardedRoadNetwork.inProcess(townRoadNetwork, 4);
+
+        assertTrue(sharded.getBoundaryTownCount() > 0);
+
+        for (int i = 0; i < 60; i += 7) {
+            for (int j = 0; j < 60; j += 11) {
+                assertEquals(townRoadNetwork.roadTo(towns.get(i), towns.get(j)).getDistance(),
+                        sharded.roadTo(towns.get(i), towns.get(j)).getDistance());
+            }
+        }
+    }
+
+    @Test
+    public void testGetBackbone() {
+        Town first = new Town("First Town", 10000);
+        Town second = new Town("Second Town", 14000);
+        Town third = new Town("Third Town", 5000);
+        Town fourth = new Town("Fourth Town", 6000);
+        Town fifth = new Town("Fifth Town", 16000);
+
+        townRoadNetwork.addConnection(new Road(first, second, 100));
+        townRoadNetwork.addConnection(new Road(second, third, 50));
+        townRoadNetwork.addConnection(new Road(first, third, 120));
+        townRoadNetwork.addConnection(new Road(fourth, fifth, 30));
+
+        TownRoadNetwork backbone = townRoadNetwork.getBackbone();
+
+        assertEquals(townRoadNetwork.getTowns(), backbone.getTowns());
+        assertEquals(townRoadNetwork.getAvgPopulation(), backbone.getAvgPopulation());
+        assertEquals(150, backbone.roadTo(first, third).getDistance());
+        assertEquals(30, backbone.roadTo(fourth, fifth).getDistance());
+        assertFalse(backbone.areAllTownsConnected());
+
+        // The backbone is a network of its own
+        backbone.addConnection(new Road(third, fourth, 10));
+
+        assertTrue(backbone.areAllTownsConnected());
+        assertFalse(townRoadNetwork.areAllTownsConnected());
+    }
+
+    @Test
+    public void testPopulationStatsAndPopulationWithinRange() throws IOException {
+        Town first = new Town("First Town", 10000);
+        Town second = new Town("Second Town", 14000);
+        Town third = new Town("Third Town", 5000);
+        Town fourth = new Town("Fourth Town", 6000);
+
+        townRoadNetwork.addConnection(new Road(first, second, 100));
+        townRoadNetwork.addConnection(new Road(second, third, 50));
+        townRoadNetwork.addConnection(new Road(first, third, 300));
+        townRoadNetwork.addTown(first);
+        townRoadNetwork.addConnections(List.of(new Road(third, fourth, 500)));
+
+        PopulationStats stats = townRoadNetwork.getPopulationStats();
+        assertEquals(4, stats.getCount());
+        assertEquals(35000, stats.getTotal());
+        assertEquals(5000, stats.getMin());
+        assertEquals(14000, stats.getMax());
+        assertEquals(8750, townRoadNetwork.getAvgPopulation());
+        assertEquals(14000, stats.getPercentile(100));
+
+        assertEquals(10000, townRoadNetwork.getPopulationWithinRange(first, 99));
+        assertEquals(29000, townRoadNetwork.getPopulationWithinRange(first, 150));
+
+        Path file = folder.newFile("network.bin").toPath();
+        townRoadNetwork.save(file);
+
+        TownRoadNetwork loaded = TownRoadNetwork.load(file);
+        Town loadedFirst = loaded.getTowns().stream().filter(town -> town.getName().equals("First Town"))
+                .findFirst().orElseThrow();
+
+        assertEquals(35000, loaded.getPopulationStats().getTotal());
+        assertEquals(29000, loaded.getPopulationWithinRange(loadedFirst, 150));
+
+        loaded.addConnection(new Road(loadedFirst, new Town("Fifth Town", 1000), 10));
+
+        assertEquals(5, loaded.getPopulationStats().getCount());
+        assertEquals(1000, loaded.getPopulationStats().getMin());
+        assertEquals(30000, loaded.getPopulationWithinRange(loadedFirst, 150));
+    }
+
     @Test
     public void testGetRoadsInRange() {
         Town firstTown = new Town("First Town", 10000);
@@ -142,6 +313,85 @@ public class TownRoadNetworkTest {
         assertTrue(expected.containsAll(actual));
     }
 
+    @Test
+    public void testGetRoadTo_AStar() {
+        Town firstTown = new Town("First Town", 10000, 0, 0);
+        Town secondTown = new Town("Second Town", 14000, 60, 80);
+        Town thirdTown = new Town("Third Town", 5000, 120, 150);
+        Town fourthTown = new Town("Fourth Town", 6000, 100, 40);
+        Town fifthTown = new Town("Fifth Town", 16000);
+
+        townRoadNetwork.addConnection(new Road(firstTown, secondTown, 100));
+        townRoadNetwork.addConnection(new Road(secondTown, thirdTown, 95));
+        townRoadNetwork.addConnection(new Road(firstTown, fourthTown, 110));
+        townRoadNetwork.addConnection(new Road(fourthTown, thirdTown, 120));
+        townRoadNetwork.addConnection(new Road(firstTown, fifthTown, 10));
+        townRoadNetwork.addConnection(new Road(fifthTown, thirdTown, 250));
+
+        townRoadNetwork.setRouteStrategy(SearchStrategy.A_STAR);
+        FullRoad shortestRoad = townRoadNetwork.roadTo(firstTown, thirdTown);
+
+        assertEquals(195, shortestRoad.getDistance());
+        assertEquals(List.of(firstTown, secondTown, thirdTown), new ArrayList<>(shortestRoad.getTowns()));
+    }
+
+    @Test
+    public void testPrepareRouting_DroppedOnNewRoad() {
+        Town firstTown = new Town("First Town", 10000);
+        Town secondTown = new Town("Second Town", 14000);
+        Town thirdTown = new Town("Third Town", 5000);
+
+        townRoadNetwork.addConnection(new Road(firstTown, secondTown, 100));
+        townRoadNetwork.addConnection(new Road(secondTown, thirdTown, 100));
+        townRoadNetwork.prepareRouting();
+
+        assertEquals(200, townRoadNetwork.roadTo(firstTown, thirdTown).getDistance());
+
+        townRoadNetwork.addConnection(new Road(firstTown, thirdTown, 150));
+
+        assertEquals(150, townRoadNetwork.roadTo(firstTown, thirdTown).getDistance());
+    }
+
+    @Test
+    public void testPrepareRouting_UnusedAfterUpdates() throws Exception {
+        Town firstTown = new Town("First Town", 10000);
+        Town secondTown = new Town("Second Town", 14000);
+        Town thirdTown = new Town("Third Town", 5000);
+
+        townRoadNetwork.addConnection(new Road(firstTown, secondTown, 100));
+        townRoadNetwork.addConnection(new Road(secondTown, thirdTown, 100));
+        townRoadNetwork.prepareRouting();
+        townRoadNetwork.updateRoadLength(secondTown, thirdTown, 30);
+
+        assertEquals(130, townRoadNetwork.roadTo(firstTown, thirdTown).getDistance());
+
+        townRoadNetwork.prepareRouting();
+        townRoadNetwork.closeRoad(firstTown, secondTown);
+
+        assertEquals(Integer.MAX_VALUE, townRoadNetwork.roadTo(firstTown, thirdTown).getDistance());
+
+        // Hierarchies prepared while the roads change must not answer for the roads they missed
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        townRoadNetwork.addConnection(new Road(firstTown, secondTown, 100));
+
+        Future<?> preparing = executor.submit(() -> {
+            for (int i = 0; i < 200; i++) {
+                townRoadNetwork.prepareRouting();
+            }
+        });
+        Future<?> updating = executor.submit(() -> {
+            for (int length = 1; length <= 2000; length++) {
+                townRoadNetwork.updateRoadLength(secondTown, thirdTown, length);
+            }
+        });
+
+        preparing.get(30, TimeUnit.SECONDS);
+        updating.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertEquals(2100, townRoadNetwork.roadTo(firstTown, thirdTown).getDistance());
+    }
+
     @Test
     public void testGetRoadTo() {
         Town firstTown = new Town("First Town", 10000);
@@ -169,6 +419,17 @@ public class TownRoadNetworkTest {
         townRoadNetwork.addConnection(road7);
 
         FullRoad shortestRoad = townRoadNetwork.roadTo(firstTown, thirdTown);
+        townRoadNetwork.setRouteStrategy(SearchStrategy.BIDIRECTIONAL);
+        FullRoad bidirectionalRoad = townRoadNetwork.roadTo(firstTown, thirdTown);
+
+        assertEquals(new ArrayList<>(shortestRoad.getTowns()), new ArrayList<>(bidirectionalRoad.getTowns()));
+        assertEquals(shortestRoad.getDistance(), bidirectionalRoad.getDistance());
+
+        townRoadNetwork.prepareRouting();
+        FullRoad preparedRoad = townRoadNetwork.roadTo(firstTown, thirdTown);
+
+        assertEquals(new ArrayList<>(shortestRoad.getTowns()), new ArrayList<>(preparedRoad.getTowns()));
+        assertEquals(shortestRoad.getDistance(), preparedRoad.getDistance());
 
         assertEquals(170, shortestRoad.getDistance());
 
@@ -188,4 +449,204 @@ public class TownRoadNetworkTest {
 
         assertEquals(expectedTownsInOrder, actualTownsInOrder);
     }
+
+    @Test
+    public void testCloseRoadAndUpdateLength() {
+        Town first = new Town("First Town", 10000);
+        Town second = new Town("Second Town", 14000);
+        Town third = new Town("Third Town", 5000);
+
+        townRoadNetwork.addConnection(new Road(first, second, 100));
+        townRoadNetwork.addConnection(new Road(second, third, 50));
+        townRoadNetwork.addConnection(new Road(first, third, 200));
+        townRoadNetwork.prepareRouting();
+
+        TrackedRoads roads = townRoadNetwork.trackRoadsFrom(first);
+
+        assertTrue(townRoadNetwork.closeRoad(second, third));
+        assertEquals(200, townRoadNetwork.roadTo(first, third).getDistance());
+        assertEquals(200, roads.getDistance(third));
+
+        townRoadNetwork.updateRoadLength(first, third, 120);
+
+        assertEquals(120, townRoadNetwork.roadTo(first, third).getDistance());
+        assertEquals(120, roads.getDistance(third));
+        assertEquals(List.of(first, third), new ArrayList<>(roads.roadTo(third).getTowns()));
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        Town first = new Town("First Town", 10000, 0, 0);
+        Town second = new Town("Second Town \u00e9", 14000, 30, 40);
+        Town third = new Town("Third Town", 5000);
+        Town lonely = new Town("Lonely Town", 100);
+
+        townRoadNetwork.addConnection(new Road(first, second, 100));
+        townRoadNetwork.addConnection(new Road(second, third, 50));
+        townRoadNetwork.addConnection(new Road(first, third, 200));
+        townRoadNetwork.addTown(lonely);
+
+        Path file = folder.newFile("network.bin").toPath();
+        townRoadNetwork.save(file);
+
+        TownRoadNetwork loaded = TownRoadNetwork.load(file);
+        Map<String, Town> towns = loaded.getTowns().stream()
+                .collect(Collectors.toMap(Town::getName, town -> town));
+
+        assertEquals(Set.of("First Town", "Second Town \u00e9", "Third Town", "Lonely Town"), towns.keySet());
+        assertEquals(14000, towns.get("Second Town \u00e9").getPopulation());
+        assertEquals(50, towns.get("First Town").straightLineDistanceTo(towns.get("Second Town \u00e9")));
+        assertFalse(towns.get("Third Town").hasCoordinates());
+        assertEquals(townRoadNetwork.getAvgPopulation(), loaded.getAvgPopulation());
+        assertFalse(loaded.areAllTownsConnected());
+
+        FullRoad road = loaded.roadTo(towns.get("First Town"), towns.get("Third Town"));
+        assertEquals(150, road.getDistance());
+        assertEquals(List.of("First Town", "Second Town \u00e9", "Third Town"),
+                road.getTowns().stream().map(Town::getName).collect(Collectors.toList()));
+        assertEquals(List.of(towns.get("Second Town \u00e9")),
+                loaded.getTownsWithinRange(towns.get("First Town"), 100));
+
+        // Changing the loaded network keeps the roads it was loaded with
+        loaded.addConnection(new Road(towns.get("Third Town"), towns.get("Lonely Town"), 10));
+
+        assertTrue(loaded.areAllTownsConnected());
+        assertEquals(160, loaded.roadTo(towns.get("First Town"), towns.get("Lonely Town")).getDistance());
+    }
+
+    @Test
+    public void testSave_OverTheFileItWasLoadedFrom() throws IOException {
+        Town first = new Town("First Town", 10000);
+        Town second = new Town("Second Town", 14000);
+        Town third = new Town("Third Town", 5000);
+
+        townRoadNetwork.addConnection(new Road(first, second, 100));
+        townRoadNetwork.addConnection(new Road(second, third, 50));
+
+        Path file = folder.newFile("network.bin").toPath();
+        townRoadNetwork.save(file);
+
+        TownRoadNetwork loaded = TownRoadNetwork.load(file);
+        loaded.save(file);
+
+        Map<String, Town> towns = loaded.getTowns().stream()
+                .collect(Collectors.toMap(Town::getName, town -> town));
+
+        assertTrue(loaded.areAllTownsConnected());
+        assertEquals(150, loaded.roadTo(towns.get("First Town"), towns.get("Third Town")).getDistance());
+
+        TownRoadNetwork reloaded = TownRoadNetwork.load(file);
+        Map<String, Town> reloadedTowns = reloaded.getTowns().stream()
+                .collect(Collectors.toMap(Town::getName, town -> town));
+
+        assertTrue(reloaded.areAllTownsConnected());
+        assertEquals(150, reloaded.roadTo(reloadedTowns.get("First Town"), reloadedTowns.get("Third Town"))
+                .getDistance());
+        assertEquals(List.of(file), Files.list(folder.getRoot().toPath()).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testLoad_AnswersFromTheMappedRoads() throws IOException {
+        townRoadNetwork.addConnection(new Road(new Town("First Town", 10000), new Town("Second Town", 14000), 100));
+        townRoadNetwork.addConnection(new Road(new Town("Third Town", 5000), new Town("Fourth Town", 2000), 50));
+
+        Path file = folder.newFile("network.bin").toPath();
+        townRoadNetwork.save(file);
+
+        TownRoadNetwork loaded = TownRoadNetwork.load(file);
+        Map<String, Town> towns = loaded.getTowns().stream()
+                .collect(Collectors.toMap(Town::getName, town -> town));
+        ShortestPathCache<Integer> cache = new ShortestPathCache<>(10, Duration.ofMinutes(1));
+        List<QueryStats<Integer>> reported = new ArrayList<>();
+
+        loaded.setRouteCache(cache);
+        loaded.setRouteStrategy(SearchStrategy.A_STAR);
+        loaded.setQueryMetrics(reported::add);
+
+        assertTrue(loaded.areConnected(towns.get("First Town"), towns.get("Second Town")));
+        assertFalse(loaded.areConnected(towns.get("First Town"), towns.get("Third Town")));
+        assertEquals(Set.of(Set.of(towns.get("First Town"), towns.get("Second Town")),
+                Set.of(towns.get("Third Town"), towns.get("Fourth Town"))), new HashSet<>(loaded.getRegions()));
+
+        // Until the network changes, routes are found on the mapped roads with Dijkstra and cached
+        assertEquals(100, loaded.roadTo(towns.get("First Town"), towns.get("Second Town")).getDistance());
+        assertEquals(100, loaded.roadTo(towns.get("First Town"), towns.get("Second Town")).getDistance());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(SearchStrategy.DIJKSTRA, reported.get(0).getStrategy());
+        assertTrue(reported.get(1).isCacheHit());
+
+        loaded.addConnection(new Road(towns.get("Second Town"), towns.get("Third Town"), 10));
+
+        assertEquals(110, loaded.roadTo(towns.get("First Town"), towns.get("Third Town")).getDistance());
+        assertEquals(1, loaded.getRegions().size());
+        assertEquals(SearchStrategy.A_STAR, reported.get(2).getStrategy());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testLoad_RejectsCorruptHeader() throws IOException {
+        townRoadNetwork.addConnection(new Road(new Town("First Town", 10000), new Town("Second Town", 14000), 100));
+
+        Path file = folder.newFile("network.bin").toPath();
+        townRoadNetwork.save(file);
+        byte[] saved = Files.readAllBytes(file);
+
+        // The number of towns is at byte 8 and the number of adjacency entries at byte 12
+        int[][] corruptions = {{8, -1}, {8, Integer.MAX_VALUE}, {8, 3}, {12, -2}, {12, Integer.MAX_VALUE}, {12, 4}};
+
+        for (int[] corruption : corruptions) {
+            ByteBuffer bytes = ByteBuffer.wrap(saved.clone()).order(ByteOrder.LITTLE_ENDIAN);
+            bytes.putInt(corruption[0], corruption[1]);
+            Files.write(file, bytes.array());
+
+            try {
+                TownRoadNetwork.load(file);
+                fail("Loaded a file with " + corruption[1] + " at byte " + corruption[0]);
+            } catch (IOException expected) {
+                // The file is rejected before anything is allocated for it
+            }
+        }
+
+        Files.write(file, Arrays.copyOf(saved, saved.length + 1));
+
+        try {
+            TownRoadNetwork.load(file);
+            fail("Loaded a file with a trailing byte");
+        } catch (IOException expected) {
+            // The names do not end the file
+        }
+    }
+
+    @Test
+    public void testLoad_RejectsCorruptAdjacency() throws IOException {
+        townRoadNetwork.addConnection(new Road(new Town("First Town", 10000), new Town("Second Town", 14000), 100));
+
+        Path file = folder.newFile("network.bin").toPath();
+        townRoadNetwork.save(file);
+        byte[] saved = Files.readAllBytes(file);
+
+        // Two towns: the adjacency offsets start at byte 68, followed by two targets and two weights
+        int[][] corruptions = {{72, 3}, {76, 1}, {80, 2}, {84, -1}, {88, 0}};
+
+        for (int[] corruption : corruptions) {
+            ByteBuffer bytes = ByteBuffer.wrap(saved.clone()).order(ByteOrder.LITTLE_ENDIAN);
+            bytes.putInt(corruption[0], corruption[1]);
+            Files.write(file, bytes.array());
+
+            try {
+                TownRoadNetwork.load(file);
+                fail("Loaded a file with " + corruption[1] + " at byte " + corruption[0]);
+            } catch (IOException expected) {
+                // The file is rejected
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoad_RejectsOtherFiles() throws IOException {
+        Path file = folder.newFile("roads.csv").toPath();
+        Files.writeString(file, "First Town,Second Town,100\n");
+
+        TownRoadNetwork.load(file);
+    }
 }